@@ -1,16 +1,49 @@
 import java.awt.*;
+import java.awt.datatransfer.*;
 import java.awt.event.*;
 import java.awt.print.*;
 import java.io.*;
+import java.math.BigDecimal;
 import java.sql.*;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.event.*;
 import javax.swing.table.*;
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.*;
+import java.awt.Font;
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.db.ConnectionPool;
+import com.payroll.db.JournalReplayer;
+import com.payroll.db.PoolConfig;
+import com.payroll.db.RegisterDao;
+import com.payroll.db.RegisterFilter;
+import com.payroll.export.PdfRegisterExporter;
+import com.payroll.export.RegisterExporter;
+import com.payroll.export.XlsxRegisterExporter;
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.journal.OfflineJournal;
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+import com.payroll.model.UndoJournal;
+import com.payroll.search.AsyncSearcher;
+import com.payroll.stats.RegisterAggregates;
+import com.payroll.search.RegisterIndex;
+import com.payroll.ui.CellStyles;
+import com.payroll.ui.EdtWatchdog;
+import com.payroll.ui.ExportWorker;
+import com.payroll.ui.FormatRule;
+import com.payroll.ui.ImportWorker;
+import com.payroll.ui.JournalSyncWorker;
+import com.payroll.ui.PagedPayrollTableModel;
+import com.payroll.ui.RegisterCellRenderer;
+import com.payroll.ui.RegisterDeltaWorker;
+import com.payroll.ui.RegisterLoadWorker;
+import com.payroll.ui.RegisterTable;
+import com.payroll.ui.TsvBlock;
 
 public class PayrollDesktopApp extends JFrame {
     // Color scheme
@@ -23,7 +56,13 @@ public class PayrollDesktopApp extends JFrame {
     static final Color RED = new Color(215, 68, 87);
     static final Color GREEN = new Color(34, 197, 94);
     static final Color BLUE = new Color(59, 130, 246);
-    static final Color LIGHT_RED = new Color(254, 226, 226);
+    
+    // Backgrounds a format rule can give a cell; index aligned with the names
+    private static final String[] RULE_BACKGROUND_NAMES = {"None", "Red", "Orange", "Green", "Blue", "Purple"};
+    private static final Color[] RULE_BACKGROUNDS = {
+        null, new Color(254, 202, 202), new Color(254, 215, 170), new Color(187, 247, 208),
+        new Color(191, 219, 254), new Color(233, 213, 255)
+    };
     
     // Fonts
     private static final Font BODY_FONT = new Font("Segoe UI", Font.PLAIN, 14);
@@ -32,14 +71,46 @@ public class PayrollDesktopApp extends JFrame {
     
     // Components
     private JTable payrollTable;
-    private DefaultTableModel tableModel;
+    private PayrollTableModel tableModel;
     private JTextField searchField;
     private JTextField idFilterField;
     private JTextField dateFilterField;
+    private JLabel statusLabel;
+    private JProgressBar loadProgressBar;
+    private JButton cancelLoadButton;
+    private RegisterLoadWorker loadWorker;
+    private RegisterDeltaWorker deltaWorker;
+    // Database time of the last full load or delta refresh; null until the
+    // register has been loaded from the database
+    private Timestamp syncWatermark;
+    // Pay month shown in the register; null until the first load picks the latest
+    private java.time.YearMonth registerPeriod;
+    private JTextField periodField;
+    private ExportWorker exportWorker;
+    private ImportWorker importWorker;
+    private JournalSyncWorker journalSyncWorker;
+    private OfflineJournal offlineJournal;
+    private PagedPayrollTableModel historyModel;
+    private boolean historyMode = false;
+    private JButton historyBtn;
+    private RegisterIndex searchIndex;
+    private TableRowSorter<PayrollTableModel> registerSorter;
+    private AsyncSearcher asyncSearcher;
+    private Timer searchDebounce;
+    private JCheckBox liveSearchBox;
+    private JCheckBox autoMergeBox;
+    private RegisterAggregates aggregates;
+    private Timer statsRefresh;
+    private JLabel totalEmployeesLabel;
+    private JLabel activeRecordsLabel;
+    private JLabel averageSalaryLabel;
+    private JLabel databaseStatusLabel;
+    private JLabel totalGrossLabel;
+    private JLabel totalDeductionsLabel;
+    private JLabel totalNetLabel;
+    private JLabel statusCountsLabel;
     private boolean isDatabaseConnected = false;
-    private LinkedList<TableEdit> undoHistory = new LinkedList<>();
-    private int selectedRow = -1;
-    private int selectedCol = -1;
+    private final CellStyles cellStyles = new CellStyles();
     
     // Column names - all 24 columns
     private final String[] columnNames = {
@@ -51,19 +122,21 @@ public class PayrollDesktopApp extends JFrame {
         "Deductions", "Total Deductions", "Net Pay", "Status"
     };
     
-    // Sample data
+    // Sample data - same rows as database_setup.sql; amounts are exact decimal strings
     private Object[][] sampleData = {
-        {"2024-01-15", 1, "Ahmed Hassan", 5000.0, 500.0, 200.0, 2, 0.1, 700.0, 1, 150.0, 10, 25.0, 250.0, 6600.0, 300.0, 100.0, 50.0, 1, 0.05, 250.0, 700.0, 5900.0, "Active"},
-        {"2024-01-15", 2, "Sarah Johnson", 4500.0, 300.0, 150.0, 1, 0.08, 360.0, 2, 200.0, 8, 30.0, 240.0, 5450.0, 270.0, 150.0, 75.0, 2, 0.06, 270.0, 765.0, 4685.0, "Active"},
-        {"2024-01-15", 3, "Mohamed Ali", 6000.0, 600.0, 300.0, 3, 0.12, 900.0, 0, 0.0, 15, 35.0, 525.0, 7425.0, 360.0, 200.0, 100.0, 1, 0.04, 240.0, 900.0, 6525.0, "Active"},
-        {"2024-01-15", 4, "Lisa Chen", 5500.0, 400.0, 250.0, 2, 0.09, 495.0, 1, 120.0, 12, 28.0, 336.0, 7101.0, 330.0, 80.0, 60.0, 2, 0.05, 275.0, 745.0, 6356.0, "Active"},
-        {"2024-01-15", 5, "Omar Khalil", 4800.0, 350.0, 180.0, 1, 0.07, 336.0, 3, 300.0, 6, 32.0, 192.0, 6158.0, 288.0, 120.0, 90.0, 1, 0.06, 288.0, 786.0, 5372.0, "Active"}
+        {"2024-01-15", 1, "Ahmed Hassan", "5000.00", "500.00", "200.00", 2, "500.00", "700.00", 1, "150.00", "10", "31.25", "312.50", "6862.50", "300.00", "100.00", "50.00", 1, "250.00", "250.00", "700.00", "6162.50", "Active"},
+        {"2024-01-15", 2, "Sarah Johnson", "4500.00", "300.00", "150.00", 1, "450.00", "360.00", 2, "200.00", "8", "28.13", "225.00", "5735.00", "270.00", "150.00", "75.00", 2, "225.00", "270.00", "765.00", "4970.00", "Active"},
+        {"2024-01-15", 3, "Mohamed Ali", "6000.00", "600.00", "300.00", 3, "600.00", "900.00", 0, "0.00", "15", "37.50", "562.50", "8362.50", "360.00", "200.00", "100.00", 1, "300.00", "240.00", "900.00", "7462.50", "Active"},
+        {"2024-01-15", 4, "Lisa Chen", "5500.00", "400.00", "250.00", 2, "550.00", "495.00", 1, "120.00", "12", "34.38", "412.50", "7177.50", "330.00", "80.00", "60.00", 2, "275.00", "275.00", "745.00", "6432.50", "Active"},
+        {"2024-01-15", 5, "Omar Khalil", "4800.00", "350.00", "180.00", 1, "480.00", "336.00", 3, "300.00", "6", "30.00", "180.00", "6146.00", "288.00", "120.00", "90.00", 1, "240.00", "288.00", "786.00", "5360.00", "Active"}
     };
     
     public static void main(String[] args) {
+        PayrollMetrics.start();
+        EdtWatchdog.installFromSystemProperties(); // Before the first event, so the constructor is watched too
         SwingUtilities.invokeLater(() -> {
             try {
-                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeel());
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -75,34 +148,76 @@ public class PayrollDesktopApp extends JFrame {
         initializeComponents();
         setupLayout();
         setupEventHandlers();
-        loadSampleData();
+        loadDataFromDatabase(true);
         
         setTitle("Advanced Payroll Management System - Desktop Application");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1600, 900);
         setLocationRelativeTo(null);
         setExtendedState(JFrame.MAXIMIZED_BOTH);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (offlineJournal != null) {
+                    offlineJournal.close(); // Final fsync
+                }
+                saveStallReport();
+                PayrollMetrics.stop();
+            }
+        });
         
-        // Check database connection
+        // Check database connection, then send anything submitted while offline
+        openOfflineJournal();
         checkDatabaseConnection();
+        if (isDatabaseConnected) {
+            syncOfflineJournal(false);
+        } else if (offlineJournal != null && offlineJournal.hasPendingRecords()) {
+            setStatus(offlineJournal.getPendingRecords() + " offline changes waiting for the database");
+        }
     }
     
     private void initializeComponents() {
-        // Create table model with all 24 columns
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column != 0; // Payment date is not editable
+        // Create columnar table model with all 24 columns
+        tableModel = new PayrollTableModel(columnNames);
+        // Undo history size, e.g. -Dpayroll.undo.memoryMb=32 -Dpayroll.undo.steps=5000
+        tableModel.setUndoLimit(Long.getLong("payroll.undo.memoryMb", 8L) << 20,
+            Integer.getInteger("payroll.undo.steps", UndoJournal.DEFAULT_MAX_STEPS));
+        
+        // Editing any input recomputes the rates and totals that depend on it
+        tableModel.setRecalculator(PayrollCalculator.GRAPH);
+        
+        payrollTable = new RegisterTable(tableModel);
+        
+        // Search index, kept current from model events
+        searchIndex = new RegisterIndex(tableModel.getRegister());
+        tableModel.addTableModelListener(searchIndex);
+        registerSorter = new TableRowSorter<>(tableModel);
+        asyncSearcher = new AsyncSearcher(searchIndex);
+        
+        // Dashboard totals, kept current from model events; the cards are
+        // repainted at most every 250 ms however fast the events arrive
+        aggregates = new RegisterAggregates(tableModel.getRegister());
+        tableModel.addTableModelListener(aggregates);
+        statsRefresh = new Timer(250, e -> refreshStatCards());
+        statsRefresh.setRepeats(false);
+        tableModel.addTableModelListener(e -> {
+            if (!statsRefresh.isRunning()) {
+                statsRefresh.start();
             }
-        };
-        
-        payrollTable = new JTable(tableModel);
+        });
         setupTable();
         
         // Search components
         searchField = new JTextField("Search by Name, ID, or Date...", 20);
         idFilterField = new JTextField("Filter by ID", 10);
         dateFilterField = new JTextField("Filter by Date (YYYY-MM-DD)", 15);
+        liveSearchBox = new JCheckBox("Live", true);
+        liveSearchBox.setOpaque(false);
+        liveSearchBox.setToolTipText("Filter while typing");
+        
+        // Search-as-you-type waits for a pause in typing
+        searchDebounce = new Timer(250, e -> performSearch());
+        searchDebounce.setRepeats(false);
         
         setupSearchFields();
     }
@@ -113,29 +228,14 @@ public class PayrollDesktopApp extends JFrame {
         payrollTable.setGridColor(LIGHT_GRAY);
         payrollTable.setSelectionBackground(NAVY_LIGHT);
         payrollTable.setSelectionForeground(WHITE);
+        payrollTable.setCellSelectionEnabled(true); // Rectangular blocks for copy, paste and fill
         
-        // Custom cell renderer for colored columns
-        payrollTable.setDefaultRenderer(Object.class, new CustomCellRenderer());
+        // Column tints, bold/highlighted cells and format rules, painted without allocating
+        payrollTable.setDefaultRenderer(Object.class, new RegisterCellRenderer(cellStyles));
         
         // Enable Excel-like navigation
         setupExcelLikeNavigation();
         
-        // Auto-calculate fields when basic salary changes
-        tableModel.addTableModelListener(new TableModelListener() {
-            @Override
-            public void tableChanged(TableModelEvent e) {
-                if (e.getType() == TableModelEvent.UPDATE) {
-                    int row = e.getFirstRow();
-                    int col = e.getColumn();
-                    
-                    // Auto-calculate when basic salary changes
-                    if (col == 3) { // Basic Salary column
-                        calculatePayrollFields(row);
-                    }
-                }
-            }
-        });
-        
         // Add key listener for immediate editing
         payrollTable.addKeyListener(new KeyAdapter() {
             @Override
@@ -192,6 +292,40 @@ public class PayrollDesktopApp extends JFrame {
                 moveSelection(0, 1);
             }
         });
+        
+        // Block copy/paste through the system clipboard and fill, as in a spreadsheet
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_C, InputEvent.CTRL_DOWN_MASK), "copyCells");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_V, InputEvent.CTRL_DOWN_MASK), "pasteCells");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_DOWN_MASK), "fillDown");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_R, InputEvent.CTRL_DOWN_MASK), "fillRight");
+        
+        actionMap.put("copyCells", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                copySelectedCells();
+            }
+        });
+        
+        actionMap.put("pasteCells", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pasteCells();
+            }
+        });
+        
+        actionMap.put("fillDown", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                fillSelection(true);
+            }
+        });
+        
+        actionMap.put("fillRight", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                fillSelection(false);
+            }
+        });
     }
     
     private void moveSelection(int rowDelta, int colDelta) {
@@ -202,8 +336,6 @@ public class PayrollDesktopApp extends JFrame {
         int newCol = Math.max(0, Math.min(payrollTable.getColumnCount() - 1, currentCol + colDelta));
         
         payrollTable.changeSelection(newRow, newCol, false, false);
-        selectedRow = newRow;
-        selectedCol = newCol;
     }
     
     private void handleKeyNavigation(KeyEvent e) {
@@ -229,6 +361,153 @@ public class PayrollDesktopApp extends JFrame {
         }
     }
     
+    // The selected block as tab-separated text, ready to paste into a spreadsheet
+    private void copySelectedCells() {
+        int[] viewRows = payrollTable.getSelectedRows();
+        int[] viewCols = payrollTable.getSelectedColumns();
+        if (viewRows.length == 0 || viewCols.length == 0) {
+            setStatus("Select the cells to copy first");
+            return;
+        }
+        
+        String[][] cells = new String[viewRows.length][viewCols.length];
+        for (int i = 0; i < viewRows.length; i++) {
+            for (int j = 0; j < viewCols.length; j++) {
+                Object value = payrollTable.getValueAt(viewRows[i], viewCols[j]);
+                cells[i][j] = value == null ? ""
+                    : value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+            }
+        }
+        StringSelection selection = new StringSelection(TsvBlock.format(cells));
+        try {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(selection, selection);
+        } catch (IllegalStateException ex) {
+            setStatus("The clipboard is busy - try copying again");
+            return;
+        }
+        setStatus("Copied " + viewRows.length + " x " + viewCols.length + " cells");
+    }
+    
+    // Tab-separated text from the clipboard, written from the top-left selected
+    // cell down and right. A single value fills the whole selection instead.
+    // The whole paste is one model update, one recalculation pass and one undo step.
+    private void pasteCells() {
+        if (historyMode) {
+            setStatus("History mode is read-only - switch back to the register to paste");
+            return;
+        }
+        int[] viewRows = payrollTable.getSelectedRows();
+        int[] viewCols = payrollTable.getSelectedColumns();
+        if (viewRows.length == 0 || viewCols.length == 0) {
+            setStatus("Select the cell to paste into first");
+            return;
+        }
+        
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException | IllegalStateException ex) {
+            setStatus("Nothing to paste - the clipboard holds no text");
+            return;
+        }
+        String[][] block = TsvBlock.parse(text);
+        if (block.length == 0) {
+            setStatus("Nothing to paste - the clipboard is empty");
+            return;
+        }
+        
+        int[] rows;
+        int[] cols;
+        Object[][] values;
+        if (block.length == 1 && block[0].length == 1) {
+            rows = toModelRows(viewRows);
+            cols = toModelColumns(viewCols);
+            Object[] rowValues = new Object[cols.length];
+            Arrays.fill(rowValues, block[0][0]);
+            values = new Object[rows.length][];
+            Arrays.fill(values, rowValues);
+        } else {
+            int width = 0;
+            for (String[] line : block) {
+                width = Math.max(width, line.length);
+            }
+            int top = viewRows[0];
+            int left = viewCols[0];
+            rows = new int[Math.min(block.length, payrollTable.getRowCount() - top)];
+            cols = new int[Math.min(width, payrollTable.getColumnCount() - left)];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = payrollTable.convertRowIndexToModel(top + i);
+            }
+            for (int j = 0; j < cols.length; j++) {
+                cols[j] = payrollTable.convertColumnIndexToModel(left + j);
+            }
+            values = Arrays.copyOf(block, rows.length, Object[][].class);
+        }
+        applyBlock(rows, cols, values, "Pasted");
+    }
+    
+    // Ctrl+D copies the top row of the selection into the rows below it,
+    // Ctrl+R the leftmost column into the columns to its right
+    private void fillSelection(boolean down) {
+        if (historyMode) {
+            setStatus("History mode is read-only - switch back to the register to fill cells");
+            return;
+        }
+        int[] viewRows = payrollTable.getSelectedRows();
+        int[] viewCols = payrollTable.getSelectedColumns();
+        if ((down ? viewRows.length : viewCols.length) < 2 || viewRows.length == 0 || viewCols.length == 0) {
+            setStatus("Select the source cells and the " + (down ? "rows below" : "columns to the right") + " to fill first");
+            return;
+        }
+        
+        int[] rows = toModelRows(viewRows);
+        int[] cols = toModelColumns(viewCols);
+        Object[][] values = new Object[down ? rows.length - 1 : rows.length][];
+        if (down) {
+            Object[] source = new Object[cols.length];
+            for (int j = 0; j < cols.length; j++) {
+                source[j] = tableModel.getValueAt(rows[0], cols[j]);
+            }
+            Arrays.fill(values, source);
+            rows = Arrays.copyOfRange(rows, 1, rows.length);
+        } else {
+            for (int i = 0; i < rows.length; i++) {
+                Object[] rowValues = new Object[cols.length - 1];
+                Arrays.fill(rowValues, tableModel.getValueAt(rows[i], cols[0]));
+                values[i] = rowValues;
+            }
+            cols = Arrays.copyOfRange(cols, 1, cols.length);
+        }
+        applyBlock(rows, cols, values, down ? "Filled down" : "Filled right");
+    }
+    
+    private void applyBlock(int[] rows, int[] cols, Object[][] values, String action) {
+        stopCellEditing();
+        long cells = 0;
+        for (Object[] rowValues : values) {
+            cells += Math.min(rowValues.length, cols.length);
+        }
+        int skipped = tableModel.setValues(rows, cols, values);
+        setStatus(action + " " + (cells - skipped) + " cell(s) in " + rows.length + " row(s)"
+            + (skipped > 0 ? " - " + skipped + " skipped (read-only, or not a valid value for the column)" : ""));
+    }
+    
+    private int[] toModelRows(int[] viewRows) {
+        int[] rows = new int[viewRows.length];
+        for (int i = 0; i < viewRows.length; i++) {
+            rows[i] = payrollTable.convertRowIndexToModel(viewRows[i]);
+        }
+        return rows;
+    }
+    
+    private int[] toModelColumns(int[] viewCols) {
+        int[] cols = new int[viewCols.length];
+        for (int i = 0; i < viewCols.length; i++) {
+            cols[i] = payrollTable.convertColumnIndexToModel(viewCols[i]);
+        }
+        return cols;
+    }
+    
     private void setupSearchFields() {
         // Setup placeholder behavior for search fields
         setupPlaceholder(searchField, "Search by Name, ID, or Date...");
@@ -267,6 +546,44 @@ public class PayrollDesktopApp extends JFrame {
         // Create main content
         JPanel mainPanel = createMainPanel();
         add(mainPanel, BorderLayout.CENTER);
+        
+        // Status bar
+        add(createStatusBar(), BorderLayout.SOUTH);
+    }
+    
+    private JPanel createStatusBar() {
+        JPanel statusBar = new JPanel(new BorderLayout());
+        statusBar.setBackground(WHITE);
+        statusBar.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createMatteBorder(1, 0, 0, 0, LIGHT_GRAY),
+            BorderFactory.createEmptyBorder(6, 20, 6, 20)
+        ));
+        
+        statusLabel = new JLabel("Ready");
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        statusLabel.setForeground(NAVY);
+        statusBar.add(statusLabel, BorderLayout.WEST);
+        
+        // Load progress, only visible while the register is streaming in
+        JPanel loadPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        loadPanel.setOpaque(false);
+        loadProgressBar = new JProgressBar(0, 100);
+        loadProgressBar.setStringPainted(true);
+        loadProgressBar.setVisible(false);
+        loadPanel.add(loadProgressBar);
+        
+        cancelLoadButton = createStyledButton("✖ Cancel", RED);
+        cancelLoadButton.addActionListener(e -> cancelBackgroundWork());
+        cancelLoadButton.setVisible(false);
+        loadPanel.add(cancelLoadButton);
+        
+        statusBar.add(loadPanel, BorderLayout.EAST);
+        
+        return statusBar;
+    }
+    
+    private void setStatus(String message) {
+        statusLabel.setText(message);
     }
     
     private JPanel createSidebar() {
@@ -380,6 +697,7 @@ public class PayrollDesktopApp extends JFrame {
         JButton searchBtn = createStyledButton("🔍 Search", NAVY_MEDIUM);
         searchBtn.addActionListener(e -> performSearch());
         searchPanel.add(searchBtn);
+        searchPanel.add(liveSearchBox);
         
         header.add(searchPanel, BorderLayout.EAST);
         
@@ -392,14 +710,27 @@ public class PayrollDesktopApp extends JFrame {
         statsPanel.setBorder(BorderFactory.createEmptyBorder(0, 30, 30, 30));
         
         // Stats cards
-        JPanel cardsPanel = new JPanel(new GridLayout(1, 4, 20, 0));
+        JPanel cardsPanel = new JPanel(new GridLayout(2, 4, 20, 10));
         cardsPanel.setOpaque(false);
         cardsPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 20, 0));
         
-        cardsPanel.add(createStatCard("Total Employees", String.valueOf(tableModel.getRowCount()), "👥"));
-        cardsPanel.add(createStatCard("Active Records", String.valueOf(getActiveRecordsCount()), "✅"));
-        cardsPanel.add(createStatCard("Average Salary", formatCurrency(calculateAverageSalary()), "💰"));
-        cardsPanel.add(createStatCard("Database Status", isDatabaseConnected ? "Connected" : "Disconnected", "🔗"));
+        totalEmployeesLabel = new JLabel();
+        activeRecordsLabel = new JLabel();
+        averageSalaryLabel = new JLabel();
+        databaseStatusLabel = new JLabel();
+        totalGrossLabel = new JLabel();
+        totalDeductionsLabel = new JLabel();
+        totalNetLabel = new JLabel();
+        statusCountsLabel = new JLabel();
+        cardsPanel.add(createStatCard("Total Employees", totalEmployeesLabel, "👥"));
+        cardsPanel.add(createStatCard("Active Records", activeRecordsLabel, "✅"));
+        cardsPanel.add(createStatCard("Average Salary", averageSalaryLabel, "💰"));
+        cardsPanel.add(createStatCard("Database Status", databaseStatusLabel, "🔗"));
+        cardsPanel.add(createStatCard("Total Gross Pay", totalGrossLabel, "📈"));
+        cardsPanel.add(createStatCard("Total Deductions", totalDeductionsLabel, "📉"));
+        cardsPanel.add(createStatCard("Total Net Pay", totalNetLabel, "💵"));
+        cardsPanel.add(createStatCard("By Status", statusCountsLabel, "📋"));
+        refreshStatCards();
         
         statsPanel.add(cardsPanel, BorderLayout.NORTH);
         
@@ -416,7 +747,7 @@ public class PayrollDesktopApp extends JFrame {
         return statsPanel;
     }
     
-    private JPanel createStatCard(String title, String value, String icon) {
+    private JPanel createStatCard(String title, JLabel valueLabel, String icon) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(WHITE);
         card.setBorder(BorderFactory.createCompoundBorder(
@@ -436,7 +767,6 @@ public class PayrollDesktopApp extends JFrame {
         titleLabel.setForeground(Color.GRAY);
         textPanel.add(titleLabel);
         
-        JLabel valueLabel = new JLabel(value);
         valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
         valueLabel.setForeground(NAVY);
         textPanel.add(valueLabel);
@@ -455,18 +785,41 @@ public class PayrollDesktopApp extends JFrame {
         addRowBtn.addActionListener(e -> addNewRow());
         buttonPanel.add(addRowBtn);
         
+        JButton deleteRowBtn = createStyledButton("🗑 Delete Row", NAVY_MEDIUM);
+        deleteRowBtn.addActionListener(e -> deleteSelectedRows());
+        buttonPanel.add(deleteRowBtn);
+        
         JButton submitBtn = createStyledButton("✔ Submit", GREEN);
         submitBtn.addActionListener(e -> submitChanges());
         buttonPanel.add(submitBtn);
         
+        autoMergeBox = new JCheckBox("Auto-merge", false);
+        autoMergeBox.setOpaque(false);
+        autoMergeBox.setToolTipText("On submit, merge rows that others changed in different fields");
+        buttonPanel.add(autoMergeBox);
+        
         JButton undoBtn = createStyledButton("↩ Undo", NAVY_MEDIUM);
         undoBtn.addActionListener(e -> undoLastChange());
         buttonPanel.add(undoBtn);
         
+        JButton redoBtn = createStyledButton("↪ Redo", NAVY_MEDIUM);
+        redoBtn.addActionListener(e -> redoLastChange());
+        buttonPanel.add(redoBtn);
+        
+        historyBtn = createStyledButton("📜 History", NAVY_MEDIUM);
+        historyBtn.addActionListener(e -> toggleHistoryMode());
+        buttonPanel.add(historyBtn);
+        
         JButton refreshBtn = createStyledButton("🔄 Refresh", NAVY_MEDIUM);
         refreshBtn.addActionListener(e -> refreshData());
         buttonPanel.add(refreshBtn);
         
+        periodField = new JTextField(7);
+        periodField.setFont(BODY_FONT);
+        periodField.setToolTipText("Pay period to load (yyyy-MM), Enter to load; empty loads the latest");
+        periodField.addActionListener(e -> changePeriod());
+        buttonPanel.add(periodField);
+        
         JButton boldBtn = createStyledButton("✍ Bold", NAVY_MEDIUM);
         boldBtn.addActionListener(e -> toggleBoldSelectedCell());
         buttonPanel.add(boldBtn);
@@ -475,10 +828,22 @@ public class PayrollDesktopApp extends JFrame {
         highlightBtn.addActionListener(e -> highlightSelectedCell());
         buttonPanel.add(highlightBtn);
         
+        JButton rulesBtn = createStyledButton("📐 Rules", NAVY_MEDIUM);
+        rulesBtn.addActionListener(e -> showFormatRulesDialog());
+        buttonPanel.add(rulesBtn);
+        
+        JButton importBtn = createStyledButton("📥 Import CSV", NAVY_MEDIUM);
+        importBtn.addActionListener(e -> importCsv());
+        buttonPanel.add(importBtn);
+        
         JButton exportBtn = createStyledButton("📤 Export PDF", RED);
         exportBtn.addActionListener(e -> exportToPDF());
         buttonPanel.add(exportBtn);
         
+        JButton excelBtn = createStyledButton("📊 Export Excel", GREEN);
+        excelBtn.addActionListener(e -> exportToExcel());
+        buttonPanel.add(excelBtn);
+        
         return buttonPanel;
     }
     
@@ -506,19 +871,43 @@ public class PayrollDesktopApp extends JFrame {
     }
     
     private void setupEventHandlers() {
-        // Add table selection listener
-        payrollTable.getSelectionModel().addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
-                selectedRow = payrollTable.getSelectedRow();
-                selectedCol = payrollTable.getSelectedColumn();
-            }
-        });
-        
         // Add search field listeners
         searchField.addActionListener(e -> performSearch());
         idFilterField.addActionListener(e -> performSearch());
         dateFilterField.addActionListener(e -> performSearch());
         
+        // Live filtering: every edit restarts the debounce timer
+        DocumentListener liveSearch = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleLiveSearch();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleLiveSearch();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only
+            }
+        };
+        searchField.getDocument().addDocumentListener(liveSearch);
+        idFilterField.getDocument().addDocumentListener(liveSearch);
+        dateFilterField.getDocument().addDocumentListener(liveSearch);
+        
+        // In history mode sorting is done by the database
+        payrollTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewCol = payrollTable.columnAtPoint(e.getPoint());
+                if (historyMode && viewCol >= 0) {
+                    historyModel.toggleSort(payrollTable.convertColumnIndexToModel(viewCol));
+                }
+            }
+        });
+        
         // Add keyboard shortcuts
         setupKeyboardShortcuts();
     }
@@ -543,18 +932,53 @@ public class PayrollDesktopApp extends JFrame {
                 undoLastChange();
             }
         });
+        
+        // Ctrl+Y for Redo
+        KeyStroke ctrlY = KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(ctrlY, "redo");
+        getRootPane().getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                redoLastChange();
+            }
+        });
+        
+        // Ctrl+B for Bold
+        KeyStroke ctrlB = KeyStroke.getKeyStroke(KeyEvent.VK_B, InputEvent.CTRL_DOWN_MASK);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(ctrlB, "bold");
+        getRootPane().getActionMap().put("bold", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                toggleBoldSelectedCell();
+            }
+        });
+        
+        // Ctrl+Shift+D for the UI stall report
+        KeyStroke ctrlShiftD = KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(ctrlShiftD, "stallReport");
+        getRootPane().getActionMap().put("stallReport", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showStallReport();
+            }
+        });
     }
     
+    // Offline only. The sample rows stand in for stored rows, so they are
+    // not tracked as inserts and a submit does not try to add them again.
     private void loadSampleData() {
+        PayrollRegister sample = new PayrollRegister(sampleData.length);
         for (Object[] row : sampleData) {
-            tableModel.addRow(row);
+            sample.addRow(row);
         }
+        tableModel.appendPersisted(sample);
     }
     
     private void checkDatabaseConnection() {
         try (Connection conn = Connect.getConnection()) {
             if (conn != null && !conn.isClosed()) {
                 isDatabaseConnected = true;
+                setStatus("Database connected - pool: " + Connect.getPool().getStats());
                 JOptionPane.showMessageDialog(this, "Database connected successfully!", 
                     "Database Connection", JOptionPane.INFORMATION_MESSAGE);
             }
@@ -563,109 +987,53 @@ public class PayrollDesktopApp extends JFrame {
             JOptionPane.showMessageDialog(this, "Database connection failed: " + ex.getMessage(), 
                 "Database Connection", JOptionPane.ERROR_MESSAGE);
         }
+        refreshStatCards();
     }
     
-    private void calculatePayrollFields(int row) {
-        try {
-            double basicSalary = Double.parseDouble(tableModel.getValueAt(row, 3).toString());
-            
-            // Calculate bonus rate (10% of basic salary)
-            double bonusRate = basicSalary * 0.1;
-            tableModel.setValueAt(bonusRate, row, 7);
-            
-            // Calculate OT rate (basic salary / 160 hours)
-            double otRate = basicSalary / 160;
-            tableModel.setValueAt(otRate, row, 12);
-            
-            // Calculate deduction rate (5% of basic salary)
-            double deductionRate = basicSalary * 0.05;
-            tableModel.setValueAt(deductionRate, row, 19);
-            
-            // Recalculate totals
-            calculateRowTotals(row);
-            
-        } catch (NumberFormatException e) {
-            // Handle invalid input
-        }
-    }
-    
-    private void calculateRowTotals(int row) {
-        try {
-            double basicSalary = getDoubleValue(row, 3);
-            double incentive = getDoubleValue(row, 4);
-            double specialBonus = getDoubleValue(row, 5);
-            double bonus = getDoubleValue(row, 8);
-            double businessTripAmount = getDoubleValue(row, 10);
-            double otAmount = getDoubleValue(row, 13);
-            
-            // Calculate Gross Pay
-            double grossPay = basicSalary + incentive + specialBonus + bonus + businessTripAmount + otAmount;
-            tableModel.setValueAt(grossPay, row, 14);
-            
-            double socialInsurance = getDoubleValue(row, 15);
-            double advances = getDoubleValue(row, 16);
-            double transportationDeductions = getDoubleValue(row, 17);
-            double deductions = getDoubleValue(row, 20);
-            
-            // Calculate Total Deductions
-            double totalDeductions = socialInsurance + advances + transportationDeductions + deductions;
-            tableModel.setValueAt(totalDeductions, row, 21);
-            
-            // Calculate Net Pay
-            double netPay = grossPay - totalDeductions;
-            tableModel.setValueAt(netPay, row, 22);
-            
-        } catch (Exception e) {
-            // Handle calculation errors
-        }
-    }
-    
-    private double getDoubleValue(int row, int col) {
-        Object value = tableModel.getValueAt(row, col);
-        if (value == null || value.toString().isEmpty()) {
-            return 0.0;
-        }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            return 0.0;
+    private void scheduleLiveSearch() {
+        if (liveSearchBox.isSelected()) {
+            searchDebounce.restart();
         }
     }
     
     private void performSearch() {
+        searchDebounce.stop();
         String generalSearch = searchField.getText().trim();
         String idFilter = idFilterField.getText().trim();
         String dateFilter = dateFilterField.getText().trim();
         
-        // Reset to show all data first
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(tableModel);
-        payrollTable.setRowSorter(sorter);
-        
-        List<RowFilter<Object, Object>> filters = new ArrayList<>();
-        
-        // General search filter
-        if (!generalSearch.isEmpty() && !generalSearch.equals("Search by Name, ID, or Date...")) {
-            filters.add(RowFilter.regexFilter("(?i)" + generalSearch));
-        }
+        RegisterFilter filter = new RegisterFilter(
+            generalSearch.equals("Search by Name, ID, or Date...") ? null : generalSearch,
+            idFilter.equals("Filter by ID") ? null : idFilter,
+            dateFilter.equals("Filter by Date (YYYY-MM-DD)") ? null : dateFilter);
         
-        // ID filter
-        if (!idFilter.isEmpty() && !idFilter.equals("Filter by ID")) {
-            filters.add(RowFilter.regexFilter("(?i)" + idFilter, 1)); // Column 1 is ID
-        }
-        
-        // Date filter
-        if (!dateFilter.isEmpty() && !dateFilter.equals("Filter by Date (YYYY-MM-DD)")) {
-            filters.add(RowFilter.regexFilter("(?i)" + dateFilter, 0)); // Column 0 is Payment Date
+        // History mode filters in SQL
+        if (historyMode) {
+            asyncSearcher.cancel();
+            historyModel.setFilter(filter);
+            return;
         }
         
-        if (!filters.isEmpty()) {
-            sorter.setRowFilter(RowFilter.andFilter(filters));
+        // Register mode looks rows up in the search index off the EDT, then
+        // swaps the finished row set into the sorter in one step
+        if (payrollTable.getRowSorter() != registerSorter) {
+            payrollTable.setRowSorter(registerSorter);
         }
+        asyncSearcher.search(filter, rowFilter -> {
+            if (!historyMode) {
+                registerSorter.setRowFilter(rowFilter);
+            }
+        });
     }
     
     private void addNewRow() {
+        if (historyMode) {
+            setStatus("History mode is read-only - switch back to the register to add rows");
+            return;
+        }
+        
         Object[] newRow = new Object[columnNames.length];
-        newRow[0] = new SimpleDateFormat("yyyy-MM-dd").format(new Date()); // Payment Date
+        newRow[0] = newRowDate().toString(); // Payment Date
         newRow[1] = getNextId(); // ID
         newRow[23] = "Pending"; // Status
         
@@ -684,74 +1052,101 @@ public class PayrollDesktopApp extends JFrame {
         payrollTable.setColumnSelectionInterval(2, 2); // Focus on Employee Name
     }
     
+    // A day of the month on screen, so the row is still there after a refresh:
+    // today in the current month, otherwise the month's latest payment date
+    private java.time.LocalDate newRowDate() {
+        java.time.LocalDate today = java.time.LocalDate.now();
+        if (registerPeriod == null || registerPeriod.equals(java.time.YearMonth.from(today))) {
+            return today;
+        }
+        PayrollRegister register = tableModel.getRegister();
+        java.time.LocalDate latest = null;
+        for (int i = 0; i < register.getRowCount(); i++) {
+            java.time.LocalDate date = java.time.LocalDate.ofEpochDay(register.getEpochDay(i));
+            if (registerPeriod.equals(java.time.YearMonth.from(date)) && (latest == null || date.isAfter(latest))) {
+                latest = date;
+            }
+        }
+        return latest != null ? latest : registerPeriod.atEndOfMonth();
+    }
+    
     private int getNextId() {
+        PayrollRegister register = tableModel.getRegister();
         int maxId = 0;
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            Object idObj = tableModel.getValueAt(i, 1);
-            if (idObj != null) {
-                try {
-                    int id = Integer.parseInt(idObj.toString());
-                    maxId = Math.max(maxId, id);
-                } catch (NumberFormatException e) {
-                    // Ignore invalid IDs
-                }
-            }
+        for (int i = 0; i < register.getRowCount(); i++) {
+            maxId = Math.max(maxId, register.getInt(i, PayrollColumns.ID));
         }
         return maxId + 1;
     }
     
+    private void deleteSelectedRows() {
+        if (historyMode) {
+            setStatus("History mode is read-only - switch back to the register to delete rows");
+            return;
+        }
+        
+        int[] viewRows = payrollTable.getSelectedRows();
+        if (viewRows.length == 0) {
+            return;
+        }
+        
+        int result = JOptionPane.showConfirmDialog(this, 
+            "Delete " + viewRows.length + " selected row(s)?", "Delete Row", 
+            JOptionPane.YES_NO_OPTION);
+        if (result != JOptionPane.YES_OPTION) {
+            return;
+        }
+        
+        // Remove from the bottom up so model indexes stay valid
+        int[] modelRows = new int[viewRows.length];
+        for (int i = 0; i < viewRows.length; i++) {
+            modelRows[i] = payrollTable.convertRowIndexToModel(viewRows[i]);
+        }
+        Arrays.sort(modelRows);
+        tableModel.beginCompoundEdit(); // One undo step for the whole selection
+        try {
+            for (int i = modelRows.length - 1; i >= 0; i--) {
+                tableModel.removeRow(modelRows[i]);
+            }
+        } finally {
+            tableModel.endCompoundEdit();
+        }
+        setStatus(modelRows.length + " row(s) deleted - submit to save");
+    }
+    
     private void submitChanges() {
-        if (!isDatabaseConnected) {
-            JOptionPane.showMessageDialog(this, "Database not connected. Changes saved locally only.", 
-                "Submit Changes", JOptionPane.WARNING_MESSAGE);
+        if (!isDatabaseConnected && !reconnect()) {
+            saveChangesLocally();
+            return;
+        }
+        if (offlineJournal != null && offlineJournal.hasPendingRecords()) {
+            syncOfflineJournal(true); // Earlier offline submits go first
+            return;
+        }
+        
+        ChangeTracker changes = tableModel.getChangeTracker();
+        if (!changes.hasChanges()) {
+            setStatus("No changes to submit");
             return;
         }
         
         try (Connection conn = Connect.getConnection()) {
-            conn.setAutoCommit(false);
-            
-            String sql = "INSERT INTO payroll_register (payment_date, id, employee_name, basic_salary, " +
-                        "incentive, special_bonus, number_of_bonuses, bonus_rate, bonus, " +
-                        "number_of_business_trips, business_trip_amount, ot_hours, ot_rate, ot_amount, " +
-                        "gross_pay, social_insurance, advances, transportation_deductions, " +
-                        "number_of_deductions, deduction_rate, deductions, total_deductions, net_pay, status) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                        "ON DUPLICATE KEY UPDATE " +
-                        "employee_name=VALUES(employee_name), basic_salary=VALUES(basic_salary), " +
-                        "incentive=VALUES(incentive), special_bonus=VALUES(special_bonus), " +
-                        "number_of_bonuses=VALUES(number_of_bonuses), bonus_rate=VALUES(bonus_rate), " +
-                        "bonus=VALUES(bonus), number_of_business_trips=VALUES(number_of_business_trips), " +
-                        "business_trip_amount=VALUES(business_trip_amount), ot_hours=VALUES(ot_hours), " +
-                        "ot_rate=VALUES(ot_rate), ot_amount=VALUES(ot_amount), gross_pay=VALUES(gross_pay), " +
-                        "social_insurance=VALUES(social_insurance), advances=VALUES(advances), " +
-                        "transportation_deductions=VALUES(transportation_deductions), " +
-                        "number_of_deductions=VALUES(number_of_deductions), deduction_rate=VALUES(deduction_rate), " +
-                        "deductions=VALUES(deductions), total_deductions=VALUES(total_deductions), " +
-                        "net_pay=VALUES(net_pay), status=VALUES(status)";
+            RegisterDao.SubmitResult result = RegisterDao.submitChanges(conn, tableModel.getRegister(), changes, 
+                autoMergeBox.isSelected());
+            for (int i = 0; i < result.mergedRows.length; i++) {
+                tableModel.replaceRow(result.mergedRows[i], result.mergedValues, i);
+            }
+            tableModel.acceptChanges(result.rejectedRows, result.rejectedDeletes);
             
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                int successCount = 0;
-                
-                for (int i = 0; i < tableModel.getRowCount(); i++) {
-                    for (int j = 0; j < columnNames.length; j++) {
-                        Object value = tableModel.getValueAt(i, j);
-                        ps.setObject(j + 1, value);
-                    }
-                    
-                    ps.addBatch();
-                    successCount++;
-                }
-                
-                ps.executeBatch();
-                conn.commit();
-                
+            setStatus(result.total() + " rows written (" + result.inserted + " inserted, " 
+                + result.updated + " updated, " + result.deleted + " deleted, " + result.merged + " merged)"
+                + (result.conflicts.isEmpty() ? "" : ", " + result.conflicts.size() + " conflicts"));
+            if (result.conflicts.isEmpty()) {
                 JOptionPane.showMessageDialog(this, 
-                    successCount + " records submitted successfully!", 
+                    result.total() + " records submitted successfully!", 
                     "Submit Changes", JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
+            } else {
+                showConflictReport(result);
             }
             
         } catch (SQLException e) {
@@ -760,144 +1155,628 @@ public class PayrollDesktopApp extends JFrame {
         }
     }
     
+    // Rows the database rejected because another user got there first. They
+    // stay edited (and amber) so they can be refreshed and submitted again.
+    private void showConflictReport(RegisterDao.SubmitResult result) {
+        StringBuilder report = new StringBuilder();
+        report.append(result.total()).append(" records submitted. ")
+            .append(result.conflicts.size()).append(" were changed by another user and not saved:\n\n");
+        for (RegisterDao.Conflict conflict : result.conflicts) {
+            report.append("ID ").append(ChangeTracker.keyId(conflict.key)).append(" on ")
+                .append(java.time.LocalDate.ofEpochDay(ChangeTracker.keyEpochDay(conflict.key))).append(": ");
+            switch (conflict.kind) {
+                case CHANGED_BY_OTHERS:
+                    report.append("also changed by another user");
+                    StringBuilder columns = new StringBuilder();
+                    for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                        if ((conflict.columnMask & (1 << col)) != 0) {
+                            columns.append(columns.length() > 0 ? ", " : "").append(columnNames[col]);
+                        }
+                    }
+                    if (columns.length() > 0) {
+                        report.append(" (").append(columns).append(")");
+                    }
+                    break;
+                case DELETED_BY_OTHERS:
+                    report.append("deleted by another user");
+                    break;
+                case DUPLICATE_ID:
+                    report.append("this ID and date were already added by another user");
+                    break;
+                case DELETE_OF_CHANGED_ROW:
+                    report.append("not deleted, another user changed it");
+                    break;
+            }
+            report.append("\n");
+        }
+        report.append("\nRefresh to see their values, then edit and submit again.");
+        
+        JTextArea text = new JTextArea(report.toString(), Math.min(20, result.conflicts.size() + 5), 60);
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(text), "Submit Conflicts", JOptionPane.WARNING_MESSAGE);
+    }
+    
+    // Offline submit: the delta is appended to the local journal (on its own
+    // thread) and replayed into the database once it is reachable again
+    private void saveChangesLocally() {
+        ChangeTracker changes = tableModel.getChangeTracker();
+        if (!changes.hasChanges()) {
+            setStatus("No changes to submit");
+            return;
+        }
+        if (offlineJournal == null) {
+            JOptionPane.showMessageDialog(this, "Database not connected and the offline journal is unavailable. Changes were not saved.", 
+                "Submit Changes", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        OfflineJournal.Transaction transaction = OfflineJournal.Transaction.of(tableModel.getRegister(), changes);
+        int records = transaction.getRecordCount();
+        // Only a copy into the mapping; the edits stay pending unless it succeeded
+        try {
+            offlineJournal.append(transaction);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Database not connected and the changes could not be written to the offline journal: "
+                + e.getMessage() + "\nThey are still pending - submit again once the database is reachable.", 
+                "Submit Changes", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        tableModel.acceptChanges();
+        
+        setStatus(records + " changes saved to the offline journal - they are sent when the database is reachable");
+        JOptionPane.showMessageDialog(this, "Database not connected. " + records 
+            + " changed rows were saved locally and will be submitted on reconnect.", 
+            "Submit Changes", JOptionPane.WARNING_MESSAGE);
+    }
+    
+    // Quiet connection check before falling back to the offline journal
+    private boolean reconnect() {
+        try (Connection conn = Connect.getConnection()) {
+            isDatabaseConnected = conn != null && !conn.isClosed();
+        } catch (SQLException e) {
+            isDatabaseConnected = false;
+        }
+        refreshStatCards();
+        return isDatabaseConnected;
+    }
+    
+    // Journal of offline submits, e.g. -Dpayroll.journal=/data/payroll/offline.journal
+    private void openOfflineJournal() {
+        String path = System.getProperty("payroll.journal", System.getProperty("user.home") 
+            + File.separator + ".payroll" + File.separator + "offline.journal");
+        try {
+            offlineJournal = OfflineJournal.open(java.nio.file.Paths.get(path));
+        } catch (IOException e) {
+            setStatus("Offline journal unavailable: " + e.getMessage());
+        }
+    }
+    
+    private void showStallReport() {
+        EdtWatchdog watchdog = EdtWatchdog.getInstalled();
+        if (watchdog == null) {
+            setStatus("UI stall watchdog is off (-D" + EdtWatchdog.THRESHOLD_PROPERTY + "=0)");
+            return;
+        }
+        JTextArea report = new JTextArea(watchdog.getReport(), 30, 110);
+        report.setEditable(false);
+        report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JOptionPane.showMessageDialog(this, new JScrollPane(report), "UI Stall Report", 
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    // Leaves the stall report next to the offline journal when the UI froze
+    // this session, e.g. -Dpayroll.edt.report=/data/payroll/edt-stalls.txt
+    private void saveStallReport() {
+        EdtWatchdog watchdog = EdtWatchdog.getInstalled();
+        if (watchdog == null || watchdog.getStallCount() == 0) {
+            return;
+        }
+        String path = System.getProperty("payroll.edt.report", System.getProperty("user.home") 
+            + File.separator + ".payroll" + File.separator + "edt-stalls.txt");
+        try {
+            java.nio.file.Path file = java.nio.file.Paths.get(path);
+            if (file.getParent() != null) {
+                java.nio.file.Files.createDirectories(file.getParent());
+            }
+            java.nio.file.Files.write(file, watchdog.getReport().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Could not save the UI stall report to " + path + ": " + e.getMessage());
+        }
+    }
+    
+    // Replays the offline journal in the background; optionally submits the
+    // current edits once the journal is through
+    private void syncOfflineJournal(boolean thenSubmit) {
+        if (offlineJournal == null || !offlineJournal.hasPendingRecords()) {
+            return;
+        }
+        if (journalSyncWorker != null && !journalSyncWorker.isDone()) {
+            setStatus("Still sending offline changes - submit again when done");
+            return;
+        }
+        
+        journalSyncWorker = new JournalSyncWorker(offlineJournal, Connect::getConnection) {
+            @Override
+            protected void done() {
+                try {
+                    JournalReplayer.Result result = get();
+                    // The replay bumped the versions of our own rows
+                    tableModel.advanceVersions(result.keys, result.versions);
+                    setStatus(result.records + " offline changes written to the database");
+                    if (thenSubmit) {
+                        submitChanges();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    setStatus("Sending offline changes failed - they stay in the journal");
+                    JOptionPane.showMessageDialog(PayrollDesktopApp.this, "Error sending offline changes: " + e.getCause().getMessage(), 
+                        "Submit Changes", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        setStatus("Sending " + offlineJournal.getPendingRecords() + " offline changes...");
+        journalSyncWorker.execute();
+    }
+    
     private void undoLastChange() {
-        if (!undoHistory.isEmpty()) {
-            TableEdit lastEdit = undoHistory.removeLast();
-            tableModel.setValueAt(lastEdit.oldValue, lastEdit.row, lastEdit.col);
-            JOptionPane.showMessageDialog(this, "Last change undone.", "Undo", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(this, "No changes to undo.", "Undo", JOptionPane.INFORMATION_MESSAGE);
+        if (historyMode) {
+            setStatus("History mode is read-only - nothing to undo");
+            return;
+        }
+        stopCellEditing();
+        setStatus(tableModel.undo() ? "Last change undone" : "No changes to undo");
+    }
+    
+    private void redoLastChange() {
+        if (historyMode) {
+            setStatus("History mode is read-only - nothing to redo");
+            return;
+        }
+        stopCellEditing();
+        setStatus(tableModel.redo() ? "Change redone" : "No changes to redo");
+    }
+    
+    // Commits a half-typed cell first so it becomes its own undo step
+    private void stopCellEditing() {
+        if (payrollTable.isEditing()) {
+            payrollTable.getCellEditor().stopCellEditing();
         }
     }
     
     private void refreshData() {
-        // Clear current data
-        tableModel.setRowCount(0);
+        if (historyMode) {
+            historyModel.reload();
+            return;
+        }
         
-        if (isDatabaseConnected) {
-            // Load from database
-            loadDataFromDatabase();
+        if (isDatabaseConnected && syncWatermark != null) {
+            // Fetch only what changed; unsaved edits and the selection stay
+            refreshDelta();
+        } else if (isDatabaseConnected) {
+            // Load from database in the background
+            tableModel.clear();
+            loadDataFromDatabase(false);
         } else {
             // Load sample data
+            tableModel.clear();
             loadSampleData();
+            JOptionPane.showMessageDialog(this, "Data refreshed successfully!", "Refresh", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    // Switches the table between the editable in-memory register and the
+    // read-only history view that pages rows from the database on demand
+    private void toggleHistoryMode() {
+        if (!historyMode && !isDatabaseConnected) {
+            JOptionPane.showMessageDialog(this, "History mode needs a database connection.", 
+                "History", JOptionPane.WARNING_MESSAGE);
+            return;
         }
         
-        JOptionPane.showMessageDialog(this, "Data refreshed successfully!", "Refresh", JOptionPane.INFORMATION_MESSAGE);
+        if (payrollTable.isEditing()) {
+            payrollTable.getCellEditor().stopCellEditing();
+        }
+        historyMode = !historyMode;
+        payrollTable.setRowSorter(null);
+        
+        if (historyMode) {
+            if (historyModel == null) {
+                historyModel = new PagedPayrollTableModel(columnNames, Connect::getConnection);
+            }
+            payrollTable.setModel(historyModel);
+            performSearch(); // Applies the current filter and loads the first pages
+            historyBtn.setText("📋 Register");
+            setStatus("History mode - rows are paged from the database, click a header to sort");
+        } else {
+            payrollTable.setModel(tableModel);
+            performSearch();
+            historyBtn.setText("📜 History");
+            setStatus("Register mode");
+        }
     }
     
-    private void loadDataFromDatabase() {
-        try (Connection conn = Connect.getConnection()) {
-            String sql = "SELECT * FROM payroll_register ORDER BY id";
-            try (PreparedStatement ps = conn.prepareStatement(sql);
-                 ResultSet rs = ps.executeQuery()) {
+    private void refreshDelta() {
+        if ((deltaWorker != null && !deltaWorker.isDone()) || (loadWorker != null && !loadWorker.isDone())) {
+            setStatus("Refresh already in progress");
+            return;
+        }
+        
+        deltaWorker = new RegisterDeltaWorker(Connect::getConnection, syncWatermark, registerPeriod) {
+            @Override
+            protected void done() {
+                try {
+                    RegisterDao.Delta delta = get();
+                    PayrollTableModel.MergeResult result = tableModel.mergeRemote(delta.changed, delta.deletedKeys);
+                    syncWatermark = delta.watermark;
+                    setStatus("Refreshed: " + result.updated + " updated, " + result.inserted + " added, " 
+                        + result.deleted + " removed" + (result.conflicts > 0 
+                            ? " - " + result.conflicts + " row(s) with unsaved edits changed in the database (highlighted)" : ""));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    // e.g. a database without the updated_at column: fall back to a full reload
+                    setStatus("Delta refresh failed (" + e.getCause().getMessage() + ") - reloading everything");
+                    syncWatermark = null;
+                    tableModel.clear();
+                    loadDataFromDatabase(false);
+                }
+            }
+        };
+        setStatus("Checking the database for changes...");
+        deltaWorker.execute();
+    }
+    
+    // At startup the latest month is loaded; if the database cannot be
+    // reached the sample rows are shown instead and the app works offline
+    private void loadDataFromDatabase(boolean startup) {
+        if (loadWorker != null && !loadWorker.isDone()) {
+            loadWorker.cancel(true);
+        }
+        syncWatermark = null;
+        
+        loadWorker = new RegisterLoadWorker(tableModel, Connect::getConnection, registerPeriod) {
+            @Override
+            protected void done() {
+                if (loadWorker != this) {
+                    return; // Superseded by a newer load
+                }
+                showLoadProgress(isRunning(exportWorker) || isRunning(importWorker));
                 
-                while (rs.next()) {
-                    Object[] row = new Object[columnNames.length];
-                    for (int i = 0; i < columnNames.length; i++) {
-                        row[i] = rs.getObject(i + 1);
+                if (isCancelled()) {
+                    setStatus("Load cancelled - " + tableModel.getRowCount() + " rows loaded");
+                    return;
+                }
+                try {
+                    int rows = get();
+                    syncWatermark = getWatermark();
+                    registerPeriod = getPeriod();
+                    periodField.setText(registerPeriod.toString());
+                    setStatus(rows + " rows of " + registerPeriod + " loaded in " + getElapsedMillis() + " ms");
+                    if (startup) {
+                        isDatabaseConnected = true;
+                        refreshStatCards();
+                    } else {
+                        JOptionPane.showMessageDialog(PayrollDesktopApp.this, "Data refreshed successfully!", 
+                            "Refresh", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    if (startup) {
+                        isDatabaseConnected = false;
+                        tableModel.clear();
+                        loadSampleData();
+                        refreshStatCards();
+                        setStatus("Database not reachable (" + e.getCause().getMessage() + ") - showing sample data");
+                        return;
                     }
-                    tableModel.addRow(row);
+                    setStatus("Load failed");
+                    JOptionPane.showMessageDialog(PayrollDesktopApp.this, "Error loading data: " + e.getCause().getMessage(), 
+                        "Load Data", JOptionPane.ERROR_MESSAGE);
                 }
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading data: " + e.getMessage(), 
-                "Load Data", JOptionPane.ERROR_MESSAGE);
+        };
+        loadWorker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                loadProgressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        
+        setStatus("Loading payroll register...");
+        showLoadProgress(true);
+        loadWorker.execute();
+    }
+    
+    // Loads another pay month into the register (Enter in the period field)
+    private void changePeriod() {
+        java.time.YearMonth period = null;
+        String text = periodField.getText().trim();
+        if (!text.isEmpty()) {
+            try {
+                period = java.time.YearMonth.parse(text);
+            } catch (java.time.format.DateTimeParseException e) {
+                JOptionPane.showMessageDialog(this, "Enter the period as yyyy-MM, e.g. 2024-01.", 
+                    "Period", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
         }
+        if (!isDatabaseConnected) {
+            setStatus("Periods are loaded from the database - not connected");
+            return;
+        }
+        if (tableModel.getChangeTracker().hasChanges()) {
+            int choice = JOptionPane.showConfirmDialog(this, 
+                "Loading another period discards the unsaved changes. Continue?", 
+                "Period", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (choice != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+        if (historyMode) {
+            toggleHistoryMode();
+        }
+        registerPeriod = period;
+        tableModel.clear();
+        loadDataFromDatabase(false);
     }
     
-    private void toggleBoldSelectedCell() {
-        if (selectedRow >= 0 && selectedCol >= 0) {
-            String cellKey = selectedRow + "," + selectedCol;
-            // This would require custom cell renderer implementation
-            JOptionPane.showMessageDialog(this, "Bold formatting applied to selected cell.", 
-                "Bold", JOptionPane.INFORMATION_MESSAGE);
+    private void cancelBackgroundWork() {
+        if (loadWorker != null && !loadWorker.isDone()) {
+            loadWorker.cancel(true);
         }
+        if (exportWorker != null && !exportWorker.isDone()) {
+            exportWorker.cancel(false); // Let the writer close the file
+        }
+        if (importWorker != null && !importWorker.isDone()) {
+            importWorker.stop(); // Rows already read are still written
+        }
+    }
+    
+    private static boolean isRunning(javax.swing.SwingWorker<?, ?> worker) {
+        return worker != null && !worker.isDone();
+    }
+    
+    private void showLoadProgress(boolean loading) {
+        loadProgressBar.setValue(0);
+        loadProgressBar.setVisible(loading);
+        cancelLoadButton.setVisible(loading);
+    }
+    
+    private void toggleBoldSelectedCell() {
+        toggleSelectedCellStyle(CellStyles.BOLD, "bold");
     }
     
     private void highlightSelectedCell() {
-        if (selectedRow >= 0 && selectedCol >= 0) {
-            // This would require custom cell renderer implementation
-            JOptionPane.showMessageDialog(this, "Highlight applied to selected cell.", 
-                "Highlight", JOptionPane.INFORMATION_MESSAGE);
-        }
+        toggleSelectedCellStyle(CellStyles.HIGHLIGHT, "highlighted");
     }
     
-    private void exportToPDF() {
-        try {
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("Save PDF Report");
-            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("PDF files", "pdf"));
-            
-            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-                File file = fileChooser.getSelectedFile();
-                if (!file.getName().toLowerCase().endsWith(".pdf")) {
-                    file = new File(file.getAbsolutePath() + ".pdf");
+    // Sets the style on every selected cell, or clears it if they all have it
+    private void toggleSelectedCellStyle(int style, String description) {
+        if (historyMode) {
+            setStatus("History mode is read-only - switch back to the register to format cells");
+            return;
+        }
+        int[] viewRows = payrollTable.getSelectedRows();
+        int[] viewCols = payrollTable.getSelectedColumns();
+        if (viewRows.length == 0 || viewCols.length == 0) {
+            setStatus("Select the cells to make " + description + " first");
+            return;
+        }
+        
+        PayrollRegister register = tableModel.getRegister();
+        long[] rowKeys = new long[viewRows.length];
+        int[] cols = new int[viewCols.length];
+        for (int i = 0; i < viewRows.length; i++) {
+            rowKeys[i] = ChangeTracker.keyOf(register, payrollTable.convertRowIndexToModel(viewRows[i]));
+        }
+        for (int i = 0; i < viewCols.length; i++) {
+            cols[i] = payrollTable.convertColumnIndexToModel(viewCols[i]);
+        }
+        boolean allSet = true;
+        for (int i = 0; i < rowKeys.length && allSet; i++) {
+            for (int col : cols) {
+                if ((cellStyles.get(rowKeys[i], col) & style) == 0) {
+                    allSet = false;
+                    break;
                 }
-                
-                generatePDFReport(file);
-                JOptionPane.showMessageDialog(this, "PDF exported successfully to: " + file.getAbsolutePath(), 
-                    "Export PDF", JOptionPane.INFORMATION_MESSAGE);
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error exporting PDF: " + e.getMessage(), 
-                "Export PDF", JOptionPane.ERROR_MESSAGE);
         }
+        for (long rowKey : rowKeys) {
+            for (int col : cols) {
+                cellStyles.set(rowKey, col, style, !allSet);
+            }
+        }
+        payrollTable.repaint();
+        setStatus((long) rowKeys.length * cols.length + " cell(s) " + (allSet ? "no longer " : "now ") + description);
     }
     
-    private void generatePDFReport(File file) throws Exception {
-        Document document = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(document, new FileOutputStream(file));
-        
-        document.open();
-        
-        // Title
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph title = new Paragraph("PAYROLL REGISTER REPORT", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        
-        document.add(new Paragraph(" ")); // Space
+    // Conditional formatting rules, applied when cells are painted
+    private void showFormatRulesDialog() {
+        JDialog dialog = new JDialog(this, "Format Rules", true);
+        dialog.setLayout(new BorderLayout(8, 8));
+        
+        DefaultListModel<String> ruleNames = new DefaultListModel<>();
+        for (FormatRule rule : cellStyles.getRules()) {
+            ruleNames.addElement(rule.describe(columnNames));
+        }
+        JList<String> ruleList = new JList<>(ruleNames);
+        ruleList.setFont(BODY_FONT);
+        dialog.add(new JScrollPane(ruleList), BorderLayout.CENTER);
+        
+        JComboBox<String> columnBox = new JComboBox<>(columnNames);
+        columnBox.setSelectedIndex(PayrollColumns.NET_PAY);
+        JComboBox<FormatRule.Operator> operatorBox = new JComboBox<>(FormatRule.Operator.values());
+        JTextField valueField = new JTextField(10);
+        JCheckBox boldBox = new JCheckBox("Bold");
+        JComboBox<String> backgroundBox = new JComboBox<>(RULE_BACKGROUND_NAMES);
+        JCheckBox wholeRowBox = new JCheckBox("Whole row");
+        JButton addBtn = new JButton("Add");
+        JButton removeBtn = new JButton("Remove");
+        addBtn.addActionListener(e -> {
+            try {
+                FormatRule rule = new FormatRule(columnBox.getSelectedIndex(), 
+                    (FormatRule.Operator) operatorBox.getSelectedItem(), valueField.getText(), boldBox.isSelected(), 
+                    RULE_BACKGROUNDS[backgroundBox.getSelectedIndex()], wholeRowBox.isSelected());
+                cellStyles.addRule(rule);
+                ruleNames.addElement(rule.describe(columnNames));
+                payrollTable.repaint();
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(dialog, ex.getMessage(), "Format Rules", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        removeBtn.addActionListener(e -> {
+            int index = ruleList.getSelectedIndex();
+            if (index >= 0) {
+                cellStyles.removeRule(index);
+                ruleNames.remove(index);
+                payrollTable.repaint();
+            }
+        });
         
-        // Date
-        Paragraph date = new Paragraph("Generated on: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
-        date.setAlignment(Element.ALIGN_RIGHT);
-        document.add(date);
+        JPanel editor = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        editor.add(new JLabel("When"));
+        editor.add(columnBox);
+        editor.add(operatorBox);
+        editor.add(valueField);
+        editor.add(boldBox);
+        editor.add(new JLabel("Background:"));
+        editor.add(backgroundBox);
+        editor.add(wholeRowBox);
+        editor.add(addBtn);
+        editor.add(removeBtn);
+        dialog.add(editor, BorderLayout.SOUTH);
+        
+        dialog.setSize(900, 320);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    private void exportToPDF() {
+        exportRegister("PDF", "pdf", new PdfRegisterExporter(columnNames));
+    }
+    
+    private void exportToExcel() {
+        exportRegister("Excel", "xlsx", new XlsxRegisterExporter(columnNames));
+    }
+    
+    private void exportRegister(String format, String extension, RegisterExporter exporter) {
+        if (exportWorker != null && !exportWorker.isDone()) {
+            setStatus("An export is already running");
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save " + format + " Report");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(format + " files", extension));
+        
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            if (!file.getName().toLowerCase().endsWith("." + extension)) {
+                file = new File(file.getAbsolutePath() + "." + extension);
+            }
+            
+            exportInBackground(format, exporter, file);
+        }
+    }
+    
+    // Writes the report on a worker thread; the rows are snapshotted first so
+    // the register stays editable while the file is written
+    private void exportInBackground(String format, RegisterExporter exporter, File file) {
+        if (payrollTable.isEditing()) {
+            payrollTable.getCellEditor().stopCellEditing();
+        }
+        exportWorker = new ExportWorker(tableModel.getRegister(), exporter, file) {
+            @Override
+            protected void done() {
+                showLoadProgress(isRunning(loadWorker) || isRunning(importWorker));
+                if (isCancelled()) {
+                    setStatus(format + " export cancelled");
+                    return;
+                }
+                try {
+                    int rows = get();
+                    setStatus(rows + " rows exported to " + getFile().getName());
+                    JOptionPane.showMessageDialog(PayrollDesktopApp.this, format + " exported successfully to: " + getFile().getAbsolutePath(), 
+                        "Export " + format, JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    setStatus(format + " export failed");
+                    JOptionPane.showMessageDialog(PayrollDesktopApp.this, "Error exporting " + format + ": " + e.getCause().getMessage(), 
+                        "Export " + format, JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        exportWorker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                loadProgressBar.setValue((Integer) e.getNewValue());
+            }
+        });
         
-        document.add(new Paragraph(" ")); // Space
+        setStatus("Exporting " + format + "...");
+        showLoadProgress(true);
+        exportWorker.execute();
+    }
+    
+    // Streams a CSV/TSV file into the database in the background, then
+    // refreshes the register so imported rows of the shown period appear
+    private void importCsv() {
+        if (isRunning(importWorker)) {
+            setStatus("An import is already running");
+            return;
+        }
+        if (!isDatabaseConnected && !reconnect()) {
+            JOptionPane.showMessageDialog(this, "Importing writes to the database - connect first.", 
+                "Import CSV", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import Payroll CSV");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV/TSV files", "csv", "tsv", "txt"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
         
-        // Table
-        PdfPTable pdfTable = new PdfPTable(columnNames.length);
-        pdfTable.setWidthPercentage(100);
-        
-        // Headers
-        for (String columnName : columnNames) {
-            PdfPCell cell = new PdfPCell(new Phrase(columnName, new Font(Font.FontFamily.HELVETICA, 8, Font.BOLD)));
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            pdfTable.addCell(cell);
-        }
-        
-        // Data
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                Object value = tableModel.getValueAt(i, j);
-                PdfPCell cell = new PdfPCell(new Phrase(value != null ? value.toString() : "", 
-                    new Font(Font.FontFamily.HELVETICA, 7)));
-                
-                // Color specific columns
-                if (j == 14) { // Gross Pay
-                    cell.setBackgroundColor(new BaseColor(59, 130, 246, 50)); // Light blue
-                } else if (j == 21) { // Total Deductions
-                    cell.setBackgroundColor(new BaseColor(254, 226, 226)); // Light red
-                } else if (j == 22) { // Net Pay
-                    cell.setBackgroundColor(new BaseColor(34, 197, 94, 50)); // Light green
+        long start = System.nanoTime();
+        importWorker = new ImportWorker(Connect::getConnection, fileChooser.getSelectedFile()) {
+            @Override
+            protected void done() {
+                showLoadProgress(isRunning(loadWorker) || isRunning(exportWorker));
+                try {
+                    com.payroll.batch.CsvImporter.Result result = get();
+                    String summary = String.format("%,d rows imported, %,d rejected in %.1f s (%,.0f rows/s)", 
+                        result.imported, result.rejected, result.elapsedNanos / 1e9, result.rowsPerSecond());
+                    setStatus((result.cancelled ? "Import stopped - " : "") + summary);
+                    if (result.errorFile != null) {
+                        JOptionPane.showMessageDialog(PayrollDesktopApp.this, summary + "\nRejected lines and the reasons were written to:\n" 
+                            + result.errorFile, "Import CSV", JOptionPane.WARNING_MESSAGE);
+                    }
+                    if (result.imported > 0 && !historyMode) {
+                        refreshData();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    setStatus("Import failed");
+                    JOptionPane.showMessageDialog(PayrollDesktopApp.this, "Error importing " + getFile().getName() + ": " 
+                        + e.getCause().getMessage() + "\nRows of the chunks written before the error stay in the database.", 
+                        "Import CSV", JOptionPane.ERROR_MESSAGE);
                 }
-                
-                pdfTable.addCell(cell);
             }
-        }
+        };
+        importWorker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                loadProgressBar.setValue((Integer) e.getNewValue());
+            } else if ("rows".equals(e.getPropertyName())) {
+                long rows = (Long) e.getNewValue();
+                setStatus(String.format("Importing %s: %,d rows (%,.0f rows/s)", importWorker.getFile().getName(), 
+                    rows, rows * 1e9 / (System.nanoTime() - start)));
+            }
+        });
         
-        document.add(pdfTable);
-        document.close();
+        setStatus("Importing " + importWorker.getFile().getName() + "...");
+        showLoadProgress(true);
+        importWorker.execute();
     }
     
     private void showHelpDialog() {
@@ -920,11 +1799,21 @@ public class PayrollDesktopApp extends JFrame {
         return "PAYROLL MANAGEMENT SYSTEM - HELP GUIDE\n\n" +
                "KEY ACTIONS:\n" +
                "• Add Row: Click 'Add Row' to insert a new employee record\n" +
-               "• Submit: Save all changes to the database (Ctrl+S)\n" +
-               "• Undo: Revert the last cell edit (Ctrl+Z)\n" +
-               "• Refresh: Reload data from database\n" +
-               "• Search: Filter records by name, ID, or date\n" +
-               "• Export PDF: Generate a comprehensive payroll report\n\n" +
+               "• Delete Row: Remove the selected rows (saved on next submit)\n" +
+               "• Submit: Save changed rows to the database (Ctrl+S)\n" +
+               "• Undo: Revert the last change - an edit together with the totals it recalculated, an added row or a deletion (Ctrl+Z)\n" +
+               "• Redo: Re-apply a change that was undone (Ctrl+Y)\n" +
+               "• Refresh: Fetch only the rows changed in the database since the last load; your unsaved edits are kept and rows changed on both sides are highlighted\n" +
+               "• Period: The register shows one pay month; type yyyy-MM in the field next to Refresh and press Enter to load another\n" +
+               "• History: Browse the full payroll history page by page (read-only, sorted and filtered by the database)\n" +
+               "• Search: Filter records by name, ID, or date (filters as you type while Live is ticked)\n" +
+               "• Import CSV: Load a CSV/TSV file with database column names in the header into the database (runs in the background; bad lines go to a .errors file next to it; Cancel stops reading)\n" +
+               "• Export PDF: Generate a comprehensive payroll report (runs in the background; Cancel stops it)\n" +
+               "• Export Excel: Save the register as an .xlsx workbook with numeric amounts\n" +
+               "• Bold / Highlight: Toggle bold text or a yellow background on the selected cells; the style stays with the row (by ID and date) while you sort, filter and reload\n" +
+               "• Rules: Conditional formatting, e.g. Net Pay < 0 in red or Status = Failed for the whole row\n" +
+               "• Copy / Paste: Ctrl+C copies the selected cells as tab-separated text; Ctrl+V pastes a block copied here or from a spreadsheet at the top-left selected cell (a single value fills the selection). A paste is one undo step\n" +
+               "• Fill: Ctrl+D copies the top row of the selection down, Ctrl+R the left column to the right\n\n" +
                "NAVIGATION:\n" +
                "• Use arrow keys to navigate between cells\n" +
                "• Press F2 or start typing to edit a cell\n" +
@@ -945,6 +1834,11 @@ public class PayrollDesktopApp extends JFrame {
                "KEYBOARD SHORTCUTS:\n" +
                "• Ctrl+S: Submit changes\n" +
                "• Ctrl+Z: Undo last change\n" +
+               "• Ctrl+Y: Redo\n" +
+               "• Ctrl+B: Bold selected cells\n" +
+               "• Ctrl+C / Ctrl+V: Copy / paste cells\n" +
+               "• Ctrl+D / Ctrl+R: Fill down / fill right\n" +
+               "• Ctrl+Shift+D: UI stall report - which actions froze the window, and where\n" +
                "• F2: Edit selected cell\n" +
                "• Arrow Keys: Navigate cells\n" +
                "• Tab/Enter: Move to next cell\n\n" +
@@ -955,89 +1849,45 @@ public class PayrollDesktopApp extends JFrame {
                "• Search Not Working: Clear filters and try again";
     }
     
-    private int getActiveRecordsCount() {
-        int count = 0;
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            Object status = tableModel.getValueAt(i, 23);
-            if ("Active".equals(status)) {
-                count++;
-            }
+    // Copies the running aggregates into the stat cards; O(statuses), not O(rows)
+    private void refreshStatCards() {
+        if (totalEmployeesLabel == null) {
+            return; // Cards not built yet
         }
-        return count;
-    }
-    
-    private double calculateAverageSalary() {
-        double total = 0;
-        int count = 0;
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            Object salaryObj = tableModel.getValueAt(i, 3);
-            if (salaryObj != null) {
-                try {
-                    total += Double.parseDouble(salaryObj.toString());
-                    count++;
-                } catch (NumberFormatException e) {
-                    // Skip invalid values
-                }
-            }
+        totalEmployeesLabel.setText(String.valueOf(aggregates.getRowCount()));
+        activeRecordsLabel.setText(String.valueOf(aggregates.getStatusCount("Active")));
+        averageSalaryLabel.setText(formatCurrency(aggregates.getAverageBasicSalary()));
+        databaseStatusLabel.setText(isDatabaseConnected ? "Connected" : "Disconnected");
+        totalGrossLabel.setText(formatCurrency(aggregates.getGrossPayTotal()));
+        totalDeductionsLabel.setText(formatCurrency(aggregates.getTotalDeductionsTotal()));
+        totalNetLabel.setText(formatCurrency(aggregates.getNetPayTotal()));
+        
+        StringBuilder statuses = new StringBuilder();
+        for (Map.Entry<String, Integer> status : aggregates.getStatusCounts().entrySet()) {
+            statuses.append(statuses.length() > 0 ? " · " : "").append(status.getKey()).append(' ').append(status.getValue());
         }
-        return count > 0 ? total / count : 0;
+        statusCountsLabel.setText(statuses.length() > 0 ? statuses.toString() : "-");
     }
     
-    private String formatCurrency(double amount) {
-        return String.format("$%.2f", amount);
+    private String formatCurrency(long cents) {
+        return Money.appendTo(new StringBuilder("$"), cents, true).toString();
     }
     
-    // Custom cell renderer for colored columns
-    private class CustomCellRenderer extends DefaultTableCellRenderer {
-        @Override
-        public Component getTableCellRendererComponent(JTable table, Object value, 
-                boolean isSelected, boolean hasFocus, int row, int column) {
-            
-            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-            
-            if (!isSelected) {
-                // Color specific columns
-                if (column == 14) { // Gross Pay
-                    c.setBackground(new Color(59, 130, 246, 50)); // Light blue
-                } else if (column == 21) { // Total Deductions
-                    c.setBackground(LIGHT_RED); // Light red
-                } else if (column == 22) { // Net Pay
-                    c.setBackground(new Color(34, 197, 94, 50)); // Light green
-                } else {
-                    c.setBackground(WHITE);
-                }
-            }
-            
-            return c;
-        }
-    }
-    
-    // Helper class for undo functionality
-    private static class TableEdit {
-        int row, col;
-        Object oldValue, newValue;
+    // Database connection class - hands out connections from a shared pool
+    // configured by payroll-db.properties
+    static class Connect {
+        private static ConnectionPool pool;
         
-        TableEdit(int row, int col, Object oldValue, Object newValue) {
-            this.row = row;
-            this.col = col;
-            this.oldValue = oldValue;
-            this.newValue = newValue;
+        public static synchronized ConnectionPool getPool() throws SQLException {
+            if (pool == null) {
+                pool = new ConnectionPool(PoolConfig.load());
+                Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "payroll-pool-shutdown"));
+            }
+            return pool;
         }
-    }
-    
-    // Database connection class
-    static class Connect {
-        private static final String URL = "jdbc:mysql://localhost:3306/payroll_db?useSSL=false&serverTimezone=UTC";
-        private static final String USER = "root";
-        private static final String PASSWORD = "password";
         
         public static Connection getConnection() throws SQLException {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                return DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("MySQL JDBC Driver not found", e);
-            }
+            return getPool().getConnection();
         }
     }
 }
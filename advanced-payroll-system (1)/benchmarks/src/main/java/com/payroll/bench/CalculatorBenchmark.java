@@ -0,0 +1,97 @@
+package com.payroll.bench;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Time to recalculate a whole pay period through the calculation engine, on
+// one thread and split across the common fork/join pool, plus the single-row
+// recalculation the desktop app runs after each cell edit: a basic salary
+// edit (every derived column) and an Advances edit (two of them). Every
+// invocation changes the input first, so the derived columns are really rewritten.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class CalculatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Period {
+        @Param({"1000", "100000", "1000000"})
+        public int rows;
+
+        PayrollRegister register;
+        private long salaryBump;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            register = sampleRegister(rows);
+        }
+
+        @Setup(Level.Invocation)
+        public void changeSalaries() {
+            salaryBump = salaryBump == 0 ? 1 : 0;
+            for (int row = 0; row < rows; row++) {
+                register.setCents(row, PayrollColumns.BASIC_SALARY,
+                    register.getCents(row, PayrollColumns.BASIC_SALARY) + (salaryBump == 1 ? 1 : -1));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EditedRow {
+        @Param({"1000", "100000", "1000000"})
+        public int rows;
+
+        PayrollRegister register;
+        int row;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            register = sampleRegister(rows);
+        }
+    }
+
+    @Benchmark
+    public int singleThreaded(Period period) {
+        return PayrollCalculator.calculate(period.register, 0, period.rows);
+    }
+
+    @Benchmark
+    public int forkJoin(Period period) {
+        return PayrollCalculator.calculateAll(period.register);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int editedRow(EditedRow edit) {
+        int row = edit.row = (edit.row + 1) % edit.rows;
+        PayrollRegister register = edit.register;
+        register.setCents(row, PayrollColumns.BASIC_SALARY,
+            register.getCents(row, PayrollColumns.BASIC_SALARY) ^ 1);
+        return PayrollCalculator.calculateRow(register, row);
+    }
+
+    // An Advances edit: the graph recomputes Total Deductions and Net Pay only
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int editedAdvances(EditedRow edit) {
+        int row = edit.row = (edit.row + 1) % edit.rows;
+        PayrollRegister register = edit.register;
+        register.setCents(row, PayrollColumns.ADVANCES, register.getCents(row, PayrollColumns.ADVANCES) ^ 1);
+        return PayrollCalculator.GRAPH.recalculate(register, row, 1 << PayrollColumns.ADVANCES);
+    }
+
+    static PayrollRegister sampleRegister(int rows) {
+        PayrollRegister register = new PayrollRegister(rows);
+        for (int i = 0; i < rows; i++) {
+            register.addRow(RegisterFootprint.sampleRow(i));
+        }
+        return register;
+    }
+}
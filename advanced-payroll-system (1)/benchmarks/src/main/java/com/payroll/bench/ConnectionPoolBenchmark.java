@@ -0,0 +1,92 @@
+package com.payroll.bench;
+
+import com.payroll.db.ConnectionPool;
+import com.payroll.db.PoolConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+
+// Connect-heavy workflow (open, run one query, close) with a fresh
+// DriverManager connection per call vs a pooled connection.
+// H2 runs as a TCP server in MySQL mode so every direct connect pays a
+// socket + login handshake, like the app did against MySQL.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private Server server;
+    private String url;
+    private ConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+        try (Connection conn = DriverManager.getConnection(url, USER, PASSWORD);
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS payroll_register (id INT PRIMARY KEY, employee_name VARCHAR(100))");
+            st.execute("MERGE INTO payroll_register KEY(id) VALUES (1, 'Ahmed Hassan')");
+        }
+
+        Properties props = new Properties();
+        props.setProperty("db.driver", "org.h2.Driver");
+        props.setProperty("db.url", url);
+        props.setProperty("db.user", USER);
+        props.setProperty("db.password", PASSWORD);
+        props.setProperty("pool.minSize", "2");
+        props.setProperty("pool.maxSize", "4");
+        pool = new ConnectionPool(PoolConfig.fromProperties(props));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public int directConnect() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url, USER, PASSWORD)) {
+            return query(conn);
+        }
+    }
+
+    @Benchmark
+    public int pooledConnect() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            return query(conn);
+        }
+    }
+
+    // Eight threads sharing a pool of four
+    @Benchmark
+    @Threads(8)
+    public int pooledConnectContended() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            return query(conn);
+        }
+    }
+
+    private static int query(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM payroll_register");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
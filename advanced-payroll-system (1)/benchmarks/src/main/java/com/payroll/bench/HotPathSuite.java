@@ -0,0 +1,231 @@
+package com.payroll.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// The app's hot paths at 1k, 100k and 1M rows - calculation, search, stat
+// aggregation, PDF export and submit/upsert against H2 - in one run, with
+// JMH's JSON results written to a file so versions can be compared:
+//   java -cp target/benchmarks.jar com.payroll.bench.HotPathSuite results-1.1.json [--baseline results-1.0.json] [JMH options]
+//   java -cp target/benchmarks.jar com.payroll.bench.HotPathSuite --compare results-1.1.json results-1.0.json
+// JMH options narrow the run, e.g. -p rows=1000,100000 or -f 0 for a quick look.
+// With a baseline, every score is printed next to the old one and the exit
+// status is 1 if any got more than 10% worse (beyond the two error margins).
+public class HotPathSuite {
+    static final String INCLUDE = "com\\.payroll\\.bench\\.(CalculatorBenchmark\\.|SearchBenchmark\\.index"
+        + "|StatsBenchmark\\.|PdfExportBenchmark\\.|UpsertBenchmark\\.)";
+    private static final double REGRESSION = 0.10;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--compare")) {
+            System.exit(compare(Paths.get(args[1]), Paths.get(args[2])) ? 1 : 0);
+        }
+        if (args.length == 0 || args[0].startsWith("-")) {
+            System.err.println("Usage: HotPathSuite RESULT.json [--baseline OLD.json] [JMH options]");
+            System.err.println("       HotPathSuite --compare NEW.json OLD.json");
+            System.exit(2);
+        }
+        Path result = Paths.get(args[0]);
+        Path baseline = null;
+        int next = 1;
+        if (args.length > 2 && args[1].equals("--baseline")) {
+            baseline = Paths.get(args[2]);
+            next = 3;
+        }
+        run(result, Arrays.copyOfRange(args, next, args.length));
+        if (baseline != null) {
+            System.exit(compare(result, baseline) ? 1 : 0);
+        }
+    }
+
+    private static void run(Path result, String[] jmhArgs) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(jmhArgs))
+            .include(INCLUDE)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result.toString())
+            .build();
+        new Runner(options).run();
+    }
+
+    // Prints new vs old scores; true when something regressed
+    static boolean compare(Path current, Path baseline) throws IOException {
+        Map<String, Score> now = Score.load(current);
+        Map<String, Score> before = Score.load(baseline);
+        boolean regressed = false;
+        System.out.printf(Locale.ROOT, "%-60s %14s %14s %8s%n", "Benchmark", "old", "new", "change");
+        for (Map.Entry<String, Score> entry : now.entrySet()) {
+            Score score = entry.getValue();
+            Score old = before.get(entry.getKey());
+            if (old == null || !old.unit.equals(score.unit)) {
+                System.out.printf(Locale.ROOT, "%-60s %14s %14.3f %8s%n", entry.getKey(), "-", score.score, "new");
+                continue;
+            }
+            // Positive = worse: lower throughput, or more time per operation
+            double change = (score.score - old.score) / old.score * (score.higherIsBetter() ? -1 : 1);
+            boolean worse = change > REGRESSION
+                && Math.abs(score.score - old.score) > score.error + old.error;
+            regressed |= worse;
+            System.out.printf(Locale.ROOT, "%-60s %14.3f %14.3f %+7.1f%%%s%n", entry.getKey(), old.score,
+                score.score, change * 100, worse ? "  REGRESSION" : "");
+        }
+        return regressed;
+    }
+
+    // One benchmark/parameter combination of a JMH JSON result file
+    static final class Score {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Score(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+
+        @SuppressWarnings("unchecked")
+        static Map<String, Score> load(Path file) throws IOException {
+            Object json = new Json(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).value();
+            Map<String, Score> scores = new LinkedHashMap<>();
+            for (Object item : (List<Object>) json) {
+                Map<String, Object> run = (Map<String, Object>) item;
+                StringBuilder key = new StringBuilder(((String) run.get("benchmark"))
+                    .replace("com.payroll.bench.", ""));
+                Object params = run.get("params");
+                if (params != null) {
+                    for (Map.Entry<String, Object> param : new TreeMap<>((Map<String, Object>) params).entrySet()) {
+                        key.append(' ').append(param.getKey()).append('=').append(param.getValue());
+                    }
+                }
+                Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+                Object error = metric.get("scoreError");
+                scores.put(key.toString(), new Score((String) run.get("mode"), (Double) metric.get("score"),
+                    error instanceof Double && !((Double) error).isNaN() ? (Double) error : 0,
+                    (String) metric.get("scoreUnit")));
+            }
+            return scores;
+        }
+    }
+
+    // Just enough JSON for JMH result files: objects, arrays, strings,
+    // numbers (as Double, "NaN" strings included), true/false/null
+    private static final class Json {
+        private final String text;
+        private int pos;
+
+        Json(String text) {
+            this.text = text;
+        }
+
+        Object value() {
+            skipSpace();
+            char c = text.charAt(pos);
+            if (c == '{') {
+                Map<String, Object> object = new LinkedHashMap<>();
+                pos++;
+                skipSpace();
+                if (text.charAt(pos) == '}') {
+                    pos++;
+                    return object;
+                }
+                do {
+                    skipSpace();
+                    String name = string();
+                    skipSpace();
+                    expect(':');
+                    object.put(name, value());
+                    skipSpace();
+                } while (text.charAt(pos++) == ',');
+                return object;
+            } else if (c == '[') {
+                List<Object> array = new ArrayList<>();
+                pos++;
+                skipSpace();
+                if (text.charAt(pos) == ']') {
+                    pos++;
+                    return array;
+                }
+                do {
+                    array.add(value());
+                    skipSpace();
+                } while (text.charAt(pos++) == ',');
+                return array;
+            } else if (c == '"') {
+                String s = string();
+                return s.equals("NaN") ? Double.NaN : s;
+            } else if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            } else if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            } else if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            return Double.valueOf(text.substring(start, pos));
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder s = new StringBuilder();
+            char c;
+            while ((c = text.charAt(pos++)) != '"') {
+                if (c == '\\') {
+                    c = text.charAt(pos++);
+                    if (c == 'u') {
+                        c = (char) Integer.parseInt(text.substring(pos, pos + 4), 16);
+                        pos += 4;
+                    } else if (c == 'n') {
+                        c = '\n';
+                    } else if (c == 't') {
+                        c = '\t';
+                    }
+                }
+                s.append(c);
+            }
+            return s.toString();
+        }
+
+        private void expect(char c) {
+            if (text.charAt(pos++) != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at offset " + (pos - 1));
+            }
+        }
+
+        private void skipSpace() {
+            while (Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.payroll.bench;
+
+import com.payroll.journal.OfflineJournal;
+import com.payroll.model.PayrollRegister;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Offline journal throughput: encoding and appending single-row submits
+// (the EDT cost plus the writer thread), and recovering a 100k-record log
+// on startup. Fsync runs on its own schedule and is not part of the append.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int RECOVER_RECORDS = 100_000;
+
+    private PayrollRegister register;
+    private Path dir;
+    private OfflineJournal journal;
+    private Path recoverFile;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        register = new PayrollRegister();
+        for (int i = 0; i < 1000; i++) {
+            register.addRow(RegisterFootprint.sampleRow(i));
+        }
+        dir = Files.createTempDirectory("payroll-journal");
+        journal = OfflineJournal.open(dir.resolve("append.journal"));
+
+        recoverFile = dir.resolve("recover.journal");
+        try (OfflineJournal log = OfflineJournal.open(recoverFile)) {
+            for (int i = 0; i < RECOVER_RECORDS; i += 100) {
+                OfflineJournal.Transaction transaction = new OfflineJournal.Transaction();
+                for (int r = 0; r < 100; r++) {
+                    transaction.upsert(register, r);
+                }
+                log.append(transaction);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.delete(dir.resolve("append.journal"));
+        Files.delete(recoverFile);
+        Files.delete(dir);
+    }
+
+    // Synchronous append so the writer's time is measured too
+    @Benchmark
+    public void appendSingleRowSubmit() throws IOException {
+        OfflineJournal.Transaction transaction = new OfflineJournal.Transaction();
+        transaction.update(row, register, row);
+        row = (row + 1) % register.getRowCount();
+        journal.append(transaction);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int recover100kRecords() throws IOException {
+        try (OfflineJournal log = OfflineJournal.open(recoverFile)) {
+            return log.getPendingRecords();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.payroll.bench;
+
+import com.payroll.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Parsing and summing 100k edited amounts the three ways the code base has
+// used: double (drifts), BigDecimal (exact, allocates) and Money long cents
+// (exact, no allocation). Run with -prof gc to see bytes per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final int AMOUNTS = 100_000;
+
+    private String[] amounts;
+
+    @Setup
+    public void setUp() {
+        amounts = new String[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = Money.format(3_000_00L + (i * 37L) % 500_000L);
+        }
+    }
+
+    @Benchmark
+    public double doubleSum() {
+        double total = 0;
+        for (String amount : amounts) {
+            total += Double.parseDouble(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalSum() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (String amount : amounts) {
+            total = total.add(new BigDecimal(amount).setScale(2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long moneySum() {
+        long total = 0;
+        for (String amount : amounts) {
+            total = Money.add(total, Money.parse(amount));
+        }
+        return total;
+    }
+}
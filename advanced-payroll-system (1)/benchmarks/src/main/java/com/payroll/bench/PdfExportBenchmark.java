@@ -0,0 +1,42 @@
+package com.payroll.bench;
+
+import com.payroll.export.PdfRegisterExporter;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// PDF export (the table building behind Export PDF) with the streaming
+// exporter. Output goes to a discarding stream so only layout and encoding
+// are timed. PdfSingleTableBenchmark has the previous approach for comparison.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class PdfExportBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PayrollRegister register;
+    private String[] columnNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        register = CalculatorBenchmark.sampleRegister(rows);
+        columnNames = new String[PayrollColumns.COUNT];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = PayrollColumns.dbName(i);
+        }
+    }
+
+    @Benchmark
+    public int streaming() throws Exception {
+        return new PdfRegisterExporter(columnNames).export(register, OutputStream.nullOutputStream(),
+            done -> { }, () -> false);
+    }
+}
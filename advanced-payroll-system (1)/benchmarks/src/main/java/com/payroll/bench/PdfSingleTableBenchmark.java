@@ -0,0 +1,76 @@
+package com.payroll.bench;
+
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// The PDF export as it was before the streaming exporter: one PdfPTable
+// holding every cell, new Font/BaseColor per cell. Kept as the baseline for
+// PdfExportBenchmark; it holds the whole table in memory, so it stops at 100k rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class PdfSingleTableBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private PayrollRegister register;
+    private String[] columnNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        register = CalculatorBenchmark.sampleRegister(rows);
+        columnNames = new String[PayrollColumns.COUNT];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = PayrollColumns.dbName(i);
+        }
+    }
+
+    @Benchmark
+    public int singleTable() throws Exception {
+        Document document = new Document(PageSize.A4.rotate());
+        PdfWriter.getInstance(document, OutputStream.nullOutputStream());
+        document.open();
+        PdfPTable pdfTable = new PdfPTable(columnNames.length);
+        pdfTable.setWidthPercentage(100);
+        for (String columnName : columnNames) {
+            PdfPCell cell = new PdfPCell(new Phrase(columnName, new Font(Font.FontFamily.HELVETICA, 8, Font.BOLD)));
+            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            pdfTable.addCell(cell);
+        }
+        for (int i = 0; i < register.getRowCount(); i++) {
+            for (int j = 0; j < columnNames.length; j++) {
+                Object value = register.getValue(i, j);
+                PdfPCell cell = new PdfPCell(new Phrase(value != null ? value.toString() : "",
+                    new Font(Font.FontFamily.HELVETICA, 7)));
+                if (j == 14) {
+                    cell.setBackgroundColor(new BaseColor(59, 130, 246, 50));
+                } else if (j == 21) {
+                    cell.setBackgroundColor(new BaseColor(254, 226, 226));
+                } else if (j == 22) {
+                    cell.setBackgroundColor(new BaseColor(34, 197, 94, 50));
+                }
+                pdfTable.addCell(cell);
+            }
+        }
+        document.add(pdfTable);
+        document.close();
+        return register.getRowCount();
+    }
+}
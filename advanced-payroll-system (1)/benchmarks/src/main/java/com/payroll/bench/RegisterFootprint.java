@@ -0,0 +1,89 @@
+package com.payroll.bench;
+
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollTableModel;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+
+// Retained heap of the register before (DefaultTableModel) and after (PayrollTableModel).
+// Run with: java -cp target/benchmarks.jar com.payroll.bench.RegisterFootprint [rows]
+public class RegisterFootprint {
+    private static final String[] COLUMN_NAMES = new String[PayrollColumns.COUNT];
+
+    static {
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            COLUMN_NAMES[i] = PayrollColumns.dbName(i);
+        }
+    }
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        long vectorBytes = measure(() -> fill(new DefaultTableModel(COLUMN_NAMES, 0), rows));
+        long columnarBytes = measure(() -> fill(new PayrollTableModel(COLUMN_NAMES), rows));
+
+        double scale = 100_000.0 / rows;
+        System.out.printf("rows=%d%n", rows);
+        System.out.printf("DefaultTableModel : %,d bytes per 100k rows%n", Math.round(vectorBytes * scale));
+        System.out.printf("PayrollTableModel : %,d bytes per 100k rows%n", Math.round(columnarBytes * scale));
+        System.out.printf("reduction         : %.1fx%n", (double) vectorBytes / Math.max(1, columnarBytes));
+    }
+
+    // Builds the same values that loadDataFromDatabase gets back from rs.getObject
+    static Object[] sampleRow(int i) {
+        Object[] row = new Object[PayrollColumns.COUNT];
+        row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf(LocalDate.of(2020, 1, 15).plusMonths(i % 60));
+        row[PayrollColumns.ID] = i + 1;
+        row[PayrollColumns.EMPLOYEE_NAME] = new String("Employee " + (i % 5_000));
+        for (int col = PayrollColumns.BASIC_SALARY; col < PayrollColumns.STATUS; col++) {
+            if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.INTEGER) {
+                row[col] = i % 4;
+            } else {
+                row[col] = BigDecimal.valueOf(3_000_00L + (i * 37L + col * 101L) % 500_000L, 2);
+            }
+        }
+        row[PayrollColumns.STATUS] = new String(i % 10 == 0 ? "Pending" : "Active");
+        return row;
+    }
+
+    private static TableModel fill(DefaultTableModel model, int rows) {
+        for (int i = 0; i < rows; i++) {
+            model.addRow(sampleRow(i));
+        }
+        return model;
+    }
+
+    private static TableModel fill(PayrollTableModel model, int rows) {
+        model.getRegister().ensureCapacity(rows);
+        for (int i = 0; i < rows; i++) {
+            model.addRow(sampleRow(i));
+        }
+        return model;
+    }
+
+    private static long measure(java.util.function.Supplier<TableModel> builder) {
+        long before = usedHeap();
+        TableModel model = builder.get();
+        long after = usedHeap();
+        if (model.getRowCount() == 0) {
+            throw new IllegalStateException("empty model");
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,127 @@
+package com.payroll.bench;
+
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+import com.payroll.ui.CellStyles;
+import com.payroll.ui.FormatRule;
+import com.payroll.ui.RegisterCellRenderer;
+import com.payroll.ui.RegisterTable;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+
+import org.openjdk.jmh.annotations.*;
+
+// Painting the register table: one cell through the register renderer vs
+// Swing's DefaultTableCellRenderer on the same model (getValueAt boxing and
+// toString per cell), and a full screen of rows while scrolling through the
+// register. Run with -prof gc to see the bytes allocated per operation.
+// Every 10th row has bold and highlighted cells and a format rule is active.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class RendererBenchmark {
+    private static final int CELL_WIDTH = 90;
+    private static final int ROW_HEIGHT = 20;
+    private static final int SCREEN_ROWS = 40;
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private RegisterTable table;
+    private JTable defaultTable;
+    private TableCellRenderer renderer;
+    private TableCellRenderer defaultRenderer;
+    private BufferedImage image;
+    private Graphics2D cellGraphics;
+    private Graphics2D screenGraphics;
+    private int cell;
+    private int firstRow;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PayrollRegister register = CalculatorBenchmark.sampleRegister(rows);
+        PayrollTableModel model = new PayrollTableModel(new String[PayrollColumns.COUNT], register);
+        CellStyles styles = new CellStyles();
+        for (int row = 0; row < rows; row += 10) {
+            long key = ChangeTracker.keyOf(register, row);
+            styles.set(key, PayrollColumns.EMPLOYEE_NAME, CellStyles.BOLD, true);
+            styles.set(key, PayrollColumns.NET_PAY, CellStyles.HIGHLIGHT, true);
+        }
+        styles.addRule(new FormatRule(PayrollColumns.NET_PAY, FormatRule.Operator.GREATER, "5000",
+            true, new Color(220, 252, 231), false));
+
+        table = new RegisterTable(model);
+        renderer = new RegisterCellRenderer(styles);
+        table.setDefaultRenderer(Object.class, renderer);
+        defaultTable = new JTable(model);
+        defaultRenderer = new DefaultTableCellRenderer();
+        for (JTable t : new JTable[] {table, defaultTable}) {
+            t.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+            t.setRowHeight(ROW_HEIGHT);
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                t.getColumnModel().getColumn(col).setPreferredWidth(CELL_WIDTH);
+            }
+            t.setSize(CELL_WIDTH * PayrollColumns.COUNT, ROW_HEIGHT * rows);
+            t.doLayout();
+        }
+
+        image = new BufferedImage(CELL_WIDTH * PayrollColumns.COUNT, ROW_HEIGHT * SCREEN_ROWS,
+            BufferedImage.TYPE_INT_RGB);
+        cellGraphics = image.createGraphics();
+        screenGraphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cellGraphics.dispose();
+        screenGraphics.dispose();
+    }
+
+    @Benchmark
+    public Component registerCell() {
+        return paintCell(table, renderer);
+    }
+
+    @Benchmark
+    public Component defaultCell() {
+        return paintCell(defaultTable, defaultRenderer);
+    }
+
+    // One screen of rows, moving down the register as a scroll would
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int scrollFrame() {
+        firstRow = (firstRow + SCREEN_ROWS / 2) % Math.max(1, rows - SCREEN_ROWS);
+        int y = firstRow * ROW_HEIGHT;
+        screenGraphics.setTransform(IDENTITY);
+        screenGraphics.translate(0, -y);
+        screenGraphics.setClip(0, y, image.getWidth(), image.getHeight());
+        table.paint(screenGraphics);
+        return firstRow;
+    }
+
+    // What JTable's UI does per cell: prepare the renderer, then stamp it
+    private Component paintCell(JTable t, TableCellRenderer cellRenderer) {
+        int index = cell = (cell + 1) % (rows * PayrollColumns.COUNT);
+        int row = index / PayrollColumns.COUNT;
+        int col = index % PayrollColumns.COUNT;
+        Component component = t.prepareRenderer(cellRenderer, row, col);
+        component.setBounds(0, 0, CELL_WIDTH, ROW_HEIGHT);
+        component.paint(cellGraphics);
+        return component;
+    }
+}
@@ -0,0 +1,68 @@
+package com.payroll.bench;
+
+import com.payroll.db.RegisterFilter;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollTableModel;
+import com.payroll.search.IndexedRowFilter;
+import com.payroll.search.RegisterIndex;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+
+import org.openjdk.jmh.annotations.*;
+
+// Search latency (performSearch) by register size: the old regex RowFilter
+// over every cell vs the RegisterIndex lookup, alone and driving the
+// TableRowSorter as the desktop app does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class SearchBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"Employee 4242", "2021-03"})
+    public String text;
+
+    private PayrollTableModel model;
+    private RegisterIndex index;
+    private TableRowSorter<PayrollTableModel> sorter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] names = new String[PayrollColumns.COUNT];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = PayrollColumns.dbName(i);
+        }
+        model = new PayrollTableModel(names);
+        model.getRegister().ensureCapacity(rows);
+        for (int i = 0; i < rows; i++) {
+            model.addRow(RegisterFootprint.sampleRow(i));
+        }
+        index = new RegisterIndex(model.getRegister());
+        model.addTableModelListener(index);
+        sorter = new TableRowSorter<>(model);
+    }
+
+    @Benchmark
+    public int regexRowFilter() {
+        TableRowSorter<PayrollTableModel> regexSorter = new TableRowSorter<>(model);
+        regexSorter.setRowFilter(RowFilter.regexFilter("(?i)" + text));
+        return regexSorter.getViewRowCount();
+    }
+
+    @Benchmark
+    public int indexLookup() {
+        return index.search(new RegisterFilter(text, null, null)).cardinality();
+    }
+
+    @Benchmark
+    public int indexedRowFilter() {
+        sorter.setRowFilter(new IndexedRowFilter(index, new RegisterFilter(text, null, null)));
+        return sorter.getViewRowCount();
+    }
+}
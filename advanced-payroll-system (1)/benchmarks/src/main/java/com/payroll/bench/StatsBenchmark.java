@@ -0,0 +1,61 @@
+package com.payroll.bench;
+
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.stats.RegisterAggregates;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableModel;
+
+import org.openjdk.jmh.annotations.*;
+
+// The stat cards' aggregations by register size: a full recount (after a
+// load or fireTableDataChanged) vs the O(1) update for one edited cell, and
+// the status breakdown the cards read on every refresh.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class StatsBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PayrollRegister register;
+    private RegisterAggregates aggregates;
+    private TableModelEvent dataChanged;
+    private DefaultTableModel source;
+    private int editedRow;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        register = CalculatorBenchmark.sampleRegister(rows);
+        aggregates = new RegisterAggregates(register);
+        // Events only need a source; the aggregates read the register itself
+        source = new DefaultTableModel();
+        dataChanged = new TableModelEvent(source);
+    }
+
+    @Benchmark
+    public long recount() {
+        aggregates.tableChanged(dataChanged);
+        return aggregates.getNetPayTotal();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long cellEdit() {
+        int row = editedRow = (editedRow + 1) % rows;
+        register.setCents(row, PayrollColumns.NET_PAY, register.getCents(row, PayrollColumns.NET_PAY) ^ 1);
+        aggregates.tableChanged(new TableModelEvent(source, row, row, PayrollColumns.NET_PAY));
+        return aggregates.getNetPayTotal();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object statusCounts() {
+        return aggregates.getStatusCounts();
+    }
+}
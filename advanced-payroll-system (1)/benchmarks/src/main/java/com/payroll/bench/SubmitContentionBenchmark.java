@@ -0,0 +1,155 @@
+package com.payroll.bench;
+
+import com.payroll.db.RegisterDao;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollTableModel;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.*;
+
+// Several clients submitting edits to the same few rows of one H2 database
+// (MySQL mode). Each thread is a client with its own copy of the register
+// and edits its own input column, so with autoMerge every stale write can be
+// merged; without it each one is reported as a conflict and the client
+// refreshes before the next attempt. The counters show committed rows,
+// merged rows and conflicts per second next to the submit throughput.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SubmitContentionBenchmark {
+    private static final String URL = "jdbc:h2:mem:contention;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final YearMonth PERIOD = YearMonth.of(2024, 1);
+    private static final int[] CLIENT_COLUMNS = {
+        PayrollColumns.INCENTIVE, PayrollColumns.SPECIAL_BONUS,
+        PayrollColumns.ADVANCES, PayrollColumns.TRANSPORTATION_DEDUCTIONS
+    };
+
+    // Rows all clients compete for
+    @Param({"16"})
+    public int hotRows;
+
+    @Param({"false", "true"})
+    public boolean autoMerge;
+
+    private final AtomicInteger nextClient = new AtomicInteger();
+    private Connection setup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        setup = DriverManager.getConnection(URL);
+        try (Statement st = setup.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS payroll_register");
+            st.execute("DROP TABLE IF EXISTS payroll_register_deletions");
+            st.execute(createTableSql());
+            st.execute(createDeletionsTableSql());
+        }
+        PayrollTableModel seed = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+        for (int i = 0; i < hotRows; i++) {
+            Object[] row = RegisterFootprint.sampleRow(i);
+            row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf(PERIOD.atDay(15));
+            seed.addRow(row);
+        }
+        RegisterDao.submitChanges(setup, seed.getRegister(), seed.getChangeTracker());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = setup.createStatement()) {
+            st.execute("DROP TABLE payroll_register, payroll_register_deletions");
+        }
+        setup.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Client {
+        public long committed;
+        public long merged;
+        public long conflicts;
+
+        int column;
+        int row;
+        long cents;
+        Connection conn;
+        PayrollTableModel model;
+
+        @Setup(Level.Iteration)
+        public void setUp(SubmitContentionBenchmark bench) throws SQLException {
+            if (conn == null) {
+                column = CLIENT_COLUMNS[bench.nextClient.getAndIncrement() % CLIENT_COLUMNS.length];
+                conn = DriverManager.getConnection(URL);
+            }
+            model = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+            model.appendPersisted(RegisterDao.readDelta(conn, new Timestamp(0), PERIOD).changed);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            conn.close();
+        }
+    }
+
+    @Benchmark
+    public RegisterDao.SubmitResult editAndSubmit(Client client) throws SQLException {
+        PayrollTableModel model = client.model;
+        client.row = (client.row + 1) % model.getRowCount();
+        model.setValueAt(BigDecimal.valueOf(++client.cents % 100_000, 2), client.row, client.column);
+
+        RegisterDao.SubmitResult result = RegisterDao.submitChanges(client.conn, model.getRegister(),
+            model.getChangeTracker(), autoMerge);
+        for (int i = 0; i < result.mergedRows.length; i++) {
+            model.replaceRow(result.mergedRows[i], result.mergedValues, i);
+        }
+        model.acceptChanges(result.rejectedRows, result.rejectedDeletes);
+        client.committed += result.total();
+        client.merged += result.merged;
+        client.conflicts += result.conflicts.size();
+        if (!result.conflicts.isEmpty()) {
+            // Pick up the other clients' versions; the edit is retried on the next submit
+            model.mergeRemote(RegisterDao.readDelta(client.conn, new Timestamp(0), PERIOD).changed, new long[0]);
+        }
+        return result;
+    }
+
+    static String createDeletionsTableSql() {
+        return "CREATE TABLE payroll_register_deletions (id INT NOT NULL, payment_date DATE NOT NULL, "
+            + "deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))";
+    }
+
+    static String createTableSql() {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE payroll_register (");
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            ddl.append(PayrollColumns.dbName(col)).append(' ');
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    ddl.append("DECIMAL(12,2)");
+                    break;
+                case INTEGER:
+                    ddl.append("INT");
+                    break;
+                case DATE:
+                    ddl.append("DATE");
+                    break;
+                default:
+                    ddl.append("VARCHAR(100)");
+            }
+            ddl.append(", ");
+        }
+        return ddl.append("row_version INT NOT NULL DEFAULT 0, PRIMARY KEY (id, payment_date), ")
+            .append("updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3))")
+            .toString();
+    }
+}
@@ -0,0 +1,148 @@
+package com.payroll.bench;
+
+import com.payroll.db.RegisterDao;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollTableModel;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Writing a pay period to an in-process H2 database (MySQL mode) by size:
+// Submit of a register whose rows are all new (one batched INSERT) or all
+// edited in one column (one batched versioned UPDATE), and the bulk
+// RegisterDao.upsertRows used by batch runs and imports over existing rows.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class UpsertBenchmark {
+    private static final String URL = "jdbc:h2:mem:upsert;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final YearMonth PERIOD = YearMonth.of(2024, 1);
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"1000", "100000", "1000000"})
+        public int rows;
+
+        Connection conn;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            conn = DriverManager.getConnection(URL);
+            try (Statement st = conn.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS payroll_register");
+                st.execute("DROP TABLE IF EXISTS payroll_register_deletions");
+                st.execute(SubmitContentionBenchmark.createTableSql());
+                st.execute(SubmitContentionBenchmark.createDeletionsTableSql());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Statement st = conn.createStatement()) {
+                st.execute("DROP TABLE payroll_register, payroll_register_deletions");
+            }
+            conn.close();
+        }
+
+        void truncate() throws SQLException {
+            try (Statement st = conn.createStatement()) {
+                st.execute("TRUNCATE TABLE payroll_register");
+            }
+        }
+
+        // A register of new rows, all in PERIOD
+        PayrollTableModel newRows() {
+            PayrollTableModel model = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+            model.getRegister().ensureCapacity(rows);
+            for (int i = 0; i < rows; i++) {
+                Object[] row = RegisterFootprint.sampleRow(i);
+                row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf(PERIOD.atDay(1 + i % 28));
+                model.addRow(row);
+            }
+            return model;
+        }
+    }
+
+    // Empty table, every row of the register new
+    @State(Scope.Benchmark)
+    public static class Inserts {
+        PayrollTableModel model;
+
+        @Setup(Level.Invocation)
+        public void setUp(Database db) throws SQLException {
+            db.truncate();
+            model = db.newRows();
+        }
+    }
+
+    // Stored rows, every one edited in one input column since the last submit
+    @State(Scope.Benchmark)
+    public static class Updates {
+        PayrollTableModel model;
+        private long incentive;
+
+        @Setup(Level.Trial)
+        public void seed(Database db) throws SQLException {
+            db.truncate();
+            PayrollTableModel seed = db.newRows();
+            RegisterDao.submitChanges(db.conn, seed.getRegister(), seed.getChangeTracker());
+            model = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+            model.appendPersisted(RegisterDao.readDelta(db.conn, new Timestamp(0), PERIOD).changed);
+        }
+
+        @Setup(Level.Invocation)
+        public void edit() {
+            BigDecimal value = BigDecimal.valueOf(++incentive % 100_000, 2);
+            for (int row = 0; row < model.getRowCount(); row++) {
+                model.setValueAt(value, row, PayrollColumns.INCENTIVE);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Bulk {
+        PayrollTableModel model;
+        int[] rows;
+
+        @Setup(Level.Trial)
+        public void seed(Database db) throws SQLException {
+            db.truncate();
+            model = db.newRows();
+            rows = new int[model.getRowCount()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = i;
+            }
+            RegisterDao.upsertRows(db.conn, model.getRegister(), rows, 1_024, 50_000);
+        }
+    }
+
+    @Benchmark
+    public int submitInserts(Database db, Inserts inserts) throws SQLException {
+        RegisterDao.SubmitResult result = RegisterDao.submitChanges(db.conn, inserts.model.getRegister(),
+            inserts.model.getChangeTracker());
+        return result.total();
+    }
+
+    @Benchmark
+    public int submitUpdates(Database db, Updates updates) throws SQLException {
+        RegisterDao.SubmitResult result = RegisterDao.submitChanges(db.conn, updates.model.getRegister(),
+            updates.model.getChangeTracker());
+        updates.model.acceptChanges(result.rejectedRows, result.rejectedDeletes);
+        return result.total();
+    }
+
+    @Benchmark
+    public int bulkUpsert(Database db, Bulk bulk) throws SQLException {
+        return RegisterDao.upsertRows(db.conn, bulk.model.getRegister(), bulk.rows, 1_024, 50_000);
+    }
+}
@@ -2,9 +2,13 @@
 CREATE DATABASE IF NOT EXISTS payroll_db;
 USE payroll_db;
 
+-- One row per employee and pay date, so earlier periods are kept as history.
+-- The table is partitioned by payment month: the app loads one month at a
+-- time with a payment_date range and MySQL only reads that partition
+-- (check with EXPLAIN, "partitions" column).
 CREATE TABLE IF NOT EXISTS payroll_register (
     payment_date DATE NOT NULL,
-    id INT PRIMARY KEY,
+    id INT NOT NULL,
     employee_name VARCHAR(100) NOT NULL,
     basic_salary DECIMAL(10,2) DEFAULT 0,
     incentive DECIMAL(10,2) DEFAULT 0,
@@ -26,11 +30,103 @@ CREATE TABLE IF NOT EXISTS payroll_register (
     deductions DECIMAL(10,2) DEFAULT 0,
     total_deductions DECIMAL(10,2) DEFAULT 0,
     net_pay DECIMAL(10,2) DEFAULT 0,
-    status VARCHAR(20) DEFAULT 'Active'
+    status VARCHAR(20) DEFAULT 'Active',
+    -- Bumped by every write; submits only update the version they read
+    row_version INT NOT NULL DEFAULT 0,
+    -- Maintained by MySQL on every insert and update; drives the delta refresh
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    -- Submits, merges and ID lookups; also orders a period load (id, payment_date)
+    PRIMARY KEY (id, payment_date),
+    -- History browsing in the natural (payment_date, id) order, date filters, latest period
+    INDEX idx_payroll_date_id (payment_date, id),
+    -- History sorted by name; the primary key columns complete the keyset order
+    INDEX idx_payroll_name (employee_name, payment_date),
+    -- Delta refresh
+    INDEX idx_payroll_updated_at (updated_at)
+)
+-- Add next year's months before they start by splitting p_future, e.g.
+-- ALTER TABLE payroll_register REORGANIZE PARTITION p_future INTO (
+--     PARTITION p2027_01 VALUES LESS THAN ('2027-02-01'),
+--     PARTITION p_future VALUES LESS THAN (MAXVALUE));
+PARTITION BY RANGE COLUMNS (payment_date) (
+    PARTITION p2024_01 VALUES LESS THAN ('2024-02-01'),
+    PARTITION p2024_02 VALUES LESS THAN ('2024-03-01'),
+    PARTITION p2024_03 VALUES LESS THAN ('2024-04-01'),
+    PARTITION p2024_04 VALUES LESS THAN ('2024-05-01'),
+    PARTITION p2024_05 VALUES LESS THAN ('2024-06-01'),
+    PARTITION p2024_06 VALUES LESS THAN ('2024-07-01'),
+    PARTITION p2024_07 VALUES LESS THAN ('2024-08-01'),
+    PARTITION p2024_08 VALUES LESS THAN ('2024-09-01'),
+    PARTITION p2024_09 VALUES LESS THAN ('2024-10-01'),
+    PARTITION p2024_10 VALUES LESS THAN ('2024-11-01'),
+    PARTITION p2024_11 VALUES LESS THAN ('2024-12-01'),
+    PARTITION p2024_12 VALUES LESS THAN ('2025-01-01'),
+    PARTITION p2025_01 VALUES LESS THAN ('2025-02-01'),
+    PARTITION p2025_02 VALUES LESS THAN ('2025-03-01'),
+    PARTITION p2025_03 VALUES LESS THAN ('2025-04-01'),
+    PARTITION p2025_04 VALUES LESS THAN ('2025-05-01'),
+    PARTITION p2025_05 VALUES LESS THAN ('2025-06-01'),
+    PARTITION p2025_06 VALUES LESS THAN ('2025-07-01'),
+    PARTITION p2025_07 VALUES LESS THAN ('2025-08-01'),
+    PARTITION p2025_08 VALUES LESS THAN ('2025-09-01'),
+    PARTITION p2025_09 VALUES LESS THAN ('2025-10-01'),
+    PARTITION p2025_10 VALUES LESS THAN ('2025-11-01'),
+    PARTITION p2025_11 VALUES LESS THAN ('2025-12-01'),
+    PARTITION p2025_12 VALUES LESS THAN ('2026-01-01'),
+    PARTITION p2026_01 VALUES LESS THAN ('2026-02-01'),
+    PARTITION p2026_02 VALUES LESS THAN ('2026-03-01'),
+    PARTITION p2026_03 VALUES LESS THAN ('2026-04-01'),
+    PARTITION p2026_04 VALUES LESS THAN ('2026-05-01'),
+    PARTITION p2026_05 VALUES LESS THAN ('2026-06-01'),
+    PARTITION p2026_06 VALUES LESS THAN ('2026-07-01'),
+    PARTITION p2026_07 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p2026_08 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p2026_09 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p2026_10 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p2026_11 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p2026_12 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
 );
 
+-- Keys of deleted (or re-keyed) rows, so a delta refresh can drop them too.
+-- Entries older than the longest time between two refreshes can be purged.
+CREATE TABLE IF NOT EXISTS payroll_register_deletions (
+    id INT NOT NULL,
+    payment_date DATE NOT NULL,
+    deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_payroll_deletions_deleted_at (deleted_at)
+);
+
+DROP TRIGGER IF EXISTS payroll_register_after_delete;
+CREATE TRIGGER payroll_register_after_delete AFTER DELETE ON payroll_register
+FOR EACH ROW INSERT INTO payroll_register_deletions (id, payment_date) VALUES (OLD.id, OLD.payment_date);
+
+DROP TRIGGER IF EXISTS payroll_register_after_update;
+CREATE TRIGGER payroll_register_after_update AFTER UPDATE ON payroll_register
+FOR EACH ROW INSERT INTO payroll_register_deletions (id, payment_date)
+SELECT OLD.id, OLD.payment_date FROM DUAL WHERE OLD.id <> NEW.id OR OLD.payment_date <> NEW.payment_date;
+
+-- Upgrading an existing database: run the statements above for the deletions
+-- table and triggers, plus
+-- ALTER TABLE payroll_register
+--     ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+--     ADD INDEX idx_payroll_updated_at (updated_at),
+--     ADD COLUMN row_version INT NOT NULL DEFAULT 0;
+-- and for the history key, indexes and partitions
+-- ALTER TABLE payroll_register_deletions ADD COLUMN payment_date DATE NOT NULL DEFAULT '1970-01-01' AFTER id;
+-- ALTER TABLE payroll_register
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (id, payment_date),
+--     ADD INDEX idx_payroll_date_id (payment_date, id),
+--     ADD INDEX idx_payroll_name (employee_name, payment_date);
+-- ALTER TABLE payroll_register PARTITION BY RANGE COLUMNS (payment_date) (...partitions as above...);
+-- then recreate the two triggers. The offline journal format changed too:
+-- sync pending offline changes with the old version before upgrading.
+
 -- Insert sample data
-INSERT INTO payroll_register VALUES
+INSERT INTO payroll_register (payment_date, id, employee_name, basic_salary, incentive, special_bonus,
+    number_of_bonuses, bonus_rate, bonus, number_of_business_trips, business_trip_amount, ot_hours, ot_rate,
+    ot_amount, gross_pay, social_insurance, advances, transportation_deductions, number_of_deductions,
+    deduction_rate, deductions, total_deductions, net_pay, status) VALUES
 ('2024-01-15', 1, 'Ahmed Hassan', 5000.00, 500.00, 200.00, 2, 500.00, 700.00, 1, 150.00, 10, 31.25, 312.50, 6862.50, 300.00, 100.00, 50.00, 1, 250.00, 250.00, 700.00, 6162.50, 'Active'),
 ('2024-01-15', 2, 'Sarah Johnson', 4500.00, 300.00, 150.00, 1, 450.00, 360.00, 2, 200.00, 8, 28.13, 225.00, 5735.00, 270.00, 150.00, 75.00, 2, 225.00, 270.00, 765.00, 4970.00, 'Active'),
 ('2024-01-15', 3, 'Mohamed Ali', 6000.00, 600.00, 300.00, 3, 600.00, 900.00, 0, 0.00, 15, 37.50, 562.50, 8362.50, 360.00, 200.00, 100.00, 1, 300.00, 240.00, 900.00, 7462.50, 'Active'),
@@ -0,0 +1,34 @@
+package com.payroll;
+
+import com.payroll.batch.PayrollRun;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+// Main class of the jar.
+//   java -jar payroll-desktop-app.jar                  the desktop app
+//   java -jar payroll-desktop-app.jar --batch ...      the headless pay run
+// The pay run is reached without loading any Swing class. The desktop app
+// (PayrollDesktopApp, compiled from the project root into the default
+// package) is looked up by name, since a named package cannot import it.
+public final class Launcher {
+    static final String DESKTOP_APP = "PayrollDesktopApp";
+
+    private Launcher() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            PayrollRun.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        try {
+            Class.forName(DESKTOP_APP).getMethod("main", String[].class).invoke(null, (Object) args);
+        } catch (ClassNotFoundException e) {
+            System.err.println(DESKTOP_APP + " is not in this build; --batch runs the headless pay run");
+            System.exit(1);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.payroll.batch;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.db.ConnectionSource;
+import com.payroll.db.RegisterDao;
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+// Streams a CSV/TSV file of any size into payroll_register (header format as
+// in CsvRegisterReader). Three stages connected by bounded queues:
+//   reader (calling thread) -> parse/validate/calculate workers -> one writer
+// Lines travel in chunks of CHUNK_LINES. A fixed set of chunks, each with its
+// own reusable register, is recycled through the stages: the reader blocks
+// when all chunks are in use, so a slow database throttles reading and the
+// heap stays the same whether the file has a thousand rows or a billion.
+// The writer upserts the chunks in file order (so the last of two lines with
+// the same key wins) with RegisterDao.upsertRows, one transaction per chunk.
+// Lines that do not parse or validate are skipped and copied to the error
+// file with their line number and the reason; they never stop the import.
+public class CsvImporter {
+    static final int CHUNK_LINES = 4_096;
+    private static final long POLL_MILLIS = 50;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_STATUS_LENGTH = 20;
+    private static final String DEFAULT_STATUS = "Active";
+
+    // Called by the writer after each chunk
+    @FunctionalInterface
+    public interface Progress {
+        // bytesRead counts characters and line breaks, close to bytes for mostly ASCII files
+        void update(long bytesRead, long imported, long rejected);
+    }
+
+    public static final class Result {
+        public final long lines;
+        public final long imported;
+        public final long rejected;
+        public final long elapsedNanos;
+        public final boolean cancelled;
+        // null when no line was rejected
+        public final Path errorFile;
+
+        Result(long lines, long imported, long rejected, long elapsedNanos, boolean cancelled, Path errorFile) {
+            this.lines = lines;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+            this.cancelled = cancelled;
+            this.errorFile = errorFile;
+        }
+
+        public double rowsPerSecond() {
+            return elapsedNanos > 0 ? lines * 1e9 / elapsedNanos : 0;
+        }
+    }
+
+    private final ConnectionSource connections;
+    private final int threads;
+    private final int batchSize;
+
+    // State of the running import
+    // First error of any stage; the others stop when they see it
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private CsvRegisterReader csv;
+    private BlockingQueue<Chunk> free;
+    private BlockingQueue<Chunk> toParse;
+    private BlockingQueue<Chunk> toWrite;
+    // Set by the reader when it stopped before the end of the file
+    private boolean stoppedEarly;
+
+    public CsvImporter(ConnectionSource connections, int threads, int batchSize) {
+        if (threads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("threads and batchSize must be positive");
+        }
+        this.connections = connections;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    // The reader and the writer keep a core busy between them
+    public static int defaultThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    // payroll.csv -> payroll.errors.csv, next to the input
+    public static Path defaultErrorFile(Path input) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : ".csv";
+        return input.resolveSibling(base + ".errors" + extension);
+    }
+
+    // Imports the file; one CsvImporter runs one import at a time.
+    // When cancelled, reading stops and the lines read so far are still written.
+    public synchronized Result importFile(Path input, Path errorFile, Progress progress,
+                                          BooleanSupplier cancelled) throws IOException, SQLException {
+        long start = System.nanoTime();
+        int chunks = 2 * threads + 4;
+        failure.set(null);
+        stoppedEarly = false;
+        free = new ArrayBlockingQueue<>(chunks);
+        toParse = new ArrayBlockingQueue<>(chunks + threads);
+        toWrite = new ArrayBlockingQueue<>(chunks + threads);
+        for (int i = 0; i < chunks; i++) {
+            free.add(new Chunk(CHUNK_LINES));
+        }
+
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             CsvRegisterReader csvReader = new CsvRegisterReader(reader);
+             Connection conn = connections.getConnection()) {
+            csv = csvReader;
+            ChunkWriter writer = new ChunkWriter(conn, chunks, errorFile, progress);
+            Thread writerThread = new Thread(writer, "payroll-import-writer");
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(this::parseChunks, "payroll-import-parse-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+            writerThread.setDaemon(true);
+            writerThread.start();
+
+            long lines = 0;
+            try {
+                lines = readChunks(cancelled);
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            } finally {
+                for (int i = 0; i < threads; i++) {
+                    if (!offer(toParse, Chunk.END)) {
+                        break; // Failed; the workers stop by themselves
+                    }
+                }
+                joinAll(workers, writerThread);
+            }
+            rethrowFailure();
+            PayrollMetrics.IMPORT.record(start, writer.imported);
+            return new Result(lines, writer.imported, writer.rejected, System.nanoTime() - start, stoppedEarly,
+                writer.rejected > 0 ? errorFile : null);
+        } catch (IOException | SQLException | RuntimeException e) {
+            PayrollMetrics.IMPORT.recordFailure(start);
+            throw e;
+        } finally {
+            csv = null;
+            free = null;
+            toParse = null;
+            toWrite = null;
+        }
+    }
+
+    // Reader stage: fills free chunks with lines; returns the lines read
+    private long readChunks(BooleanSupplier cancelled) throws IOException {
+        long lines = 0;
+        long bytes = 0;
+        long sequence = 0;
+        String line = csv.readLine();
+        while (line != null && !cancelled.getAsBoolean()) {
+            Chunk chunk = take(free);
+            if (chunk == null) {
+                break; // Failed
+            }
+            chunk.sequence = sequence++;
+            while (line != null && chunk.lineCount < CHUNK_LINES) {
+                chunk.lines[chunk.lineCount] = line;
+                chunk.lineNumbers[chunk.lineCount++] = csv.getLineNumber();
+                bytes += line.length() + 1;
+                line = csv.readLine();
+            }
+            lines += chunk.lineCount;
+            chunk.bytesRead = bytes;
+            if (!offer(toParse, chunk)) {
+                break;
+            }
+        }
+        stoppedEarly = line != null;
+        return lines;
+    }
+
+    // Worker stage: parses, calculates and validates the lines of each chunk
+    private void parseChunks() {
+        try {
+            Chunk chunk;
+            while ((chunk = take(toParse)) != null && chunk != Chunk.END) {
+                PayrollRegister register = chunk.register;
+                for (int i = 0; i < chunk.lineCount; i++) {
+                    String line = chunk.lines[i];
+                    try {
+                        csv.parseLine(line, register);
+                    } catch (IllegalArgumentException e) {
+                        chunk.reject(i, e.getMessage());
+                        continue;
+                    }
+                    int row = register.getRowCount() - 1;
+                    PayrollCalculator.calculateRow(register, row);
+                    String problem = validate(register, row);
+                    if (problem != null) {
+                        register.removeRow(row);
+                        chunk.reject(i, problem);
+                    }
+                }
+                if (!offer(toWrite, chunk)) {
+                    return;
+                }
+            }
+            if (chunk == Chunk.END) {
+                offer(toWrite, Chunk.END);
+            }
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        }
+    }
+
+    // Checks a parsed and calculated row against the table definition, so a
+    // bad value is rejected here instead of failing a whole database batch;
+    // returns null for a good row. A missing status gets the table default.
+    static String validate(PayrollRegister register, int row) {
+        if (register.getInt(row, PayrollColumns.ID) <= 0) {
+            return "id must be a positive number";
+        }
+        String name = register.getText(row, PayrollColumns.EMPLOYEE_NAME);
+        if (name == null) {
+            return "employee_name is required";
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            return "employee_name is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        String status = register.getText(row, PayrollColumns.STATUS);
+        if (status == null) {
+            register.setText(row, PayrollColumns.STATUS, DEFAULT_STATUS);
+        } else if (status.length() > MAX_STATUS_LENGTH) {
+            return "status is longer than " + MAX_STATUS_LENGTH + " characters";
+        }
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            boolean derived = (PayrollCalculator.DERIVED_COLUMNS & 1 << col) != 0;
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    long cents = register.getCents(row, col);
+                    if (Math.abs(cents) > PayrollColumns.maxCents(col)) {
+                        return PayrollColumns.dbName(col) + " is out of range";
+                    }
+                    if (cents < 0 && !derived) {
+                        return PayrollColumns.dbName(col) + " must not be negative";
+                    }
+                    break;
+                case INTEGER:
+                    if (register.getInt(row, col) < 0) {
+                        return PayrollColumns.dbName(col) + " must not be negative";
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    // Writer stage: upserts chunks in sequence order and records rejects
+    private final class ChunkWriter implements Runnable {
+        private final Connection conn;
+        private final Chunk[] pending;
+        private final Path errorFile;
+        private final Progress progress;
+        private final int[] rows = new int[CHUNK_LINES];
+        private BufferedWriter errors;
+        private long nextSequence;
+        private volatile long imported;
+        private volatile long rejected;
+
+        ChunkWriter(Connection conn, int chunks, Path errorFile, Progress progress) {
+            this.conn = conn;
+            this.pending = new Chunk[chunks];
+            this.errorFile = errorFile;
+            this.progress = progress;
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = i;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                int ended = 0;
+                while (ended < threads) {
+                    Chunk chunk = take(toWrite);
+                    if (chunk == null) {
+                        return;
+                    }
+                    if (chunk == Chunk.END) {
+                        ended++;
+                        continue;
+                    }
+                    // Sequences in flight span fewer than pending.length, so slots never collide
+                    pending[(int) (chunk.sequence % pending.length)] = chunk;
+                    Chunk next;
+                    while ((next = pending[(int) (nextSequence % pending.length)]) != null
+                            && next.sequence == nextSequence) {
+                        pending[(int) (nextSequence % pending.length)] = null;
+                        write(next);
+                        nextSequence++;
+                    }
+                }
+            } catch (IOException | SQLException | RuntimeException | Error e) {
+                fail(e);
+            } finally {
+                try {
+                    if (errors != null) {
+                        errors.close();
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        private void write(Chunk chunk) throws IOException, SQLException {
+            int count = chunk.register.getRowCount();
+            if (count > 0) {
+                RegisterDao.upsertRows(conn, chunk.register, rows, count, batchSize, Integer.MAX_VALUE);
+            }
+            if (chunk.rejectCount > 0) {
+                writeRejects(chunk);
+            }
+            imported += count;
+            rejected += chunk.rejectCount;
+            progress.update(chunk.bytesRead, imported, rejected);
+            chunk.reset();
+            offer(free, chunk);
+        }
+
+        // Each rejected line as read, followed by its line number and the reason
+        private void writeRejects(Chunk chunk) throws IOException {
+            char separator = csv.getSeparator();
+            if (errors == null) {
+                errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8);
+                errors.write(csv.getHeader() + separator + "line" + separator + "error");
+                errors.newLine();
+            }
+            for (int i = 0; i < chunk.rejectCount; i++) {
+                int index = chunk.rejectIndexes[i];
+                errors.write(chunk.lines[index]);
+                errors.write(separator);
+                errors.write(Long.toString(chunk.lineNumbers[index]));
+                errors.write(separator);
+                errors.write('"' + String.valueOf(chunk.rejectReasons[i]).replace("\"", "\"\"") + '"');
+                errors.newLine();
+            }
+        }
+    }
+
+    // Blocking queue access that gives up once any stage has failed; null means failed
+    private Chunk take(BlockingQueue<Chunk> queue) {
+        try {
+            while (failure.get() == null) {
+                Chunk chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new InterruptedIOException("Import interrupted"));
+        }
+        return null;
+    }
+
+    private boolean offer(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            while (failure.get() == null) {
+                if (queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new InterruptedIOException("Import interrupted"));
+        }
+        return false;
+    }
+
+    private void fail(Throwable e) {
+        failure.compareAndSet(null, e);
+    }
+
+    private void joinAll(Thread[] workers, Thread writerThread) {
+        boolean interrupted = false;
+        Thread[] all = Arrays.copyOf(workers, workers.length + 1);
+        all[workers.length] = writerThread;
+        for (Thread thread : all) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    fail(new InterruptedIOException("Import interrupted"));
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void rethrowFailure() throws IOException, SQLException {
+        Throwable e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof SQLException) {
+            throw (SQLException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+    }
+
+    // Lines and their parsed rows on their way through the pipeline
+    private static final class Chunk {
+        static final Chunk END = new Chunk(0);
+
+        final String[] lines;
+        final long[] lineNumbers;
+        final PayrollRegister register;
+        final int[] rejectIndexes;
+        final String[] rejectReasons;
+        int lineCount;
+        int rejectCount;
+        long sequence;
+        long bytesRead;
+
+        Chunk(int capacity) {
+            lines = new String[capacity];
+            lineNumbers = new long[capacity];
+            register = new PayrollRegister(Math.max(1, capacity));
+            rejectIndexes = new int[capacity];
+            rejectReasons = new String[capacity];
+        }
+
+        void reject(int index, String reason) {
+            rejectIndexes[rejectCount] = index;
+            rejectReasons[rejectCount++] = reason;
+        }
+
+        void reset() {
+            Arrays.fill(lines, 0, lineCount, null);
+            Arrays.fill(rejectReasons, 0, rejectCount, null);
+            lineCount = 0;
+            rejectCount = 0;
+            register.reset();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.payroll.batch;
+
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streams register rows from CSV or TSV text.
+// The first line is a header of database column names (payment_date, id,
+// employee_name, ... as in PayrollColumns); columns may come in any order,
+// unknown ones (row_version, updated_at) are ignored and missing ones stay
+// empty, but id and payment_date are required. The separator is a tab when
+// the header contains one, a comma otherwise. Fields may be quoted with "..."
+// ("" for a quote inside); a quoted field cannot span lines.
+// readLine and parseLine are split so lines can be read on one thread and
+// parsed on others; parseLine keeps no state between calls.
+public class CsvRegisterReader implements AutoCloseable {
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final BufferedReader in;
+    private final String header;
+    private final char separator;
+    // Register column of each field, -1 for ignored fields
+    private final int[] columnOfField;
+    private long lineNumber;
+
+    public CsvRegisterReader(Reader reader) throws IOException {
+        in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, BUFFER_CHARS);
+        String header = in.readLine();
+        if (header == null) {
+            throw new IOException("Empty input: expected a header line");
+        }
+        lineNumber = 1;
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1); // UTF-8 byte order mark
+        }
+        this.header = header;
+        separator = header.indexOf('\t') >= 0 ? '\t' : ',';
+
+        List<String> names = split(header, separator);
+        columnOfField = new int[names.size()];
+        boolean[] seen = new boolean[PayrollColumns.COUNT];
+        for (int field = 0; field < columnOfField.length; field++) {
+            columnOfField[field] = columnOf(names.get(field).trim());
+            if (columnOfField[field] >= 0) {
+                if (seen[columnOfField[field]]) {
+                    throw new IOException("Column " + names.get(field) + " appears twice in the header");
+                }
+                seen[columnOfField[field]] = true;
+            }
+        }
+        if (!seen[PayrollColumns.ID] || !seen[PayrollColumns.PAYMENT_DATE]) {
+            throw new IOException("The header needs at least the id and payment_date columns");
+        }
+    }
+
+    // The header line as read, without a byte order mark
+    public String getHeader() {
+        return header;
+    }
+
+    public char getSeparator() {
+        return separator;
+    }
+
+    // Line number of the line last returned by readLine (the header is line 1)
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    // Next non-blank line, or null at the end of the input
+    public String readLine() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            lineNumber++;
+        } while (line != null && line.trim().isEmpty());
+        return line;
+    }
+
+    // Reads and parses the next line; false at the end of the input.
+    // Throws IllegalArgumentException for a bad line, see parseLine.
+    public boolean readRow(PayrollRegister register) throws IOException {
+        String line = readLine();
+        if (line == null) {
+            return false;
+        }
+        parseLine(line, register);
+        return true;
+    }
+
+    // Appends the line as a new row. A line that does not parse throws
+    // IllegalArgumentException naming the column and leaves the register
+    // unchanged. Safe to call from several threads on different registers.
+    public void parseLine(String line, PayrollRegister register) {
+        List<String> fields = split(line, separator);
+        if (fields.size() > columnOfField.length) {
+            throw new IllegalArgumentException("Expected " + columnOfField.length + " fields, found " + fields.size());
+        }
+        int row = register.addRow();
+        try {
+            boolean hasId = false;
+            for (int field = 0; field < fields.size(); field++) {
+                int col = columnOfField[field];
+                if (col >= 0) {
+                    hasId |= col == PayrollColumns.ID && !fields.get(field).trim().isEmpty();
+                    parseField(fields.get(field), register, row, col);
+                }
+            }
+            if (!hasId || !register.hasPaymentDate(row)) {
+                throw new IllegalArgumentException("id and payment_date are required");
+            }
+        } catch (RuntimeException e) {
+            register.removeRow(row);
+            throw e instanceof IllegalArgumentException ? e : new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static void parseField(String text, PayrollRegister register, int row, int col) {
+        String value = text.trim();
+        if (value.isEmpty()) {
+            return; // Keep the empty value of addRow()
+        }
+        try {
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    register.setCents(row, col, Money.parse(value));
+                    break;
+                case INTEGER:
+                    register.setInt(row, col, Integer.parseInt(value));
+                    break;
+                case DATE:
+                    register.setEpochDay(row, (int) LocalDate.parse(value).toEpochDay());
+                    break;
+                default:
+                    register.setText(row, col, value);
+                    break;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException(PayrollColumns.dbName(col) + ": cannot read \"" + value + "\"");
+        }
+    }
+
+    // Splits one line into fields, unquoting quoted ones
+    static List<String> split(String line, char separator) {
+        List<String> fields = new ArrayList<>(PayrollColumns.COUNT);
+        int length = line.length();
+        int start = 0;
+        while (true) {
+            if (start < length && line.charAt(start) == '"') {
+                StringBuilder field = new StringBuilder();
+                int i = start + 1;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                fields.add(field.toString());
+                if (i < length && line.charAt(i) != separator) {
+                    throw new IllegalArgumentException("Text after a quoted field");
+                }
+                start = i + 1;
+                if (i >= length) {
+                    return fields;
+                }
+            } else {
+                int end = line.indexOf(separator, start);
+                if (end < 0) {
+                    fields.add(line.substring(start));
+                    return fields;
+                }
+                fields.add(line.substring(start, end));
+                start = end + 1;
+            }
+        }
+    }
+
+    private static int columnOf(String name) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (PayrollColumns.dbName(col).equalsIgnoreCase(name)) {
+                return col;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,406 @@
+package com.payroll.batch;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.db.PoolConfig;
+import com.payroll.db.RegisterDao;
+import com.payroll.export.CsvRegisterExporter;
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.PayrollRegister;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless pay run for schedulers and servers: no Swing, no dialogs.
+//   java -cp payroll-desktop-app.jar com.payroll.batch.PayrollRun --period 2024-01 [options]
+// (or java -jar payroll-desktop-app.jar --batch ...). Reads one pay period from the database
+// or a CSV/TSV file, recalculates every row on all cores, writes the results
+// back (or to a CSV file) and prints time and throughput per phase. Rows read
+// from the database only get their calculated columns written, checked
+// against the row_version they were read with, so edits made in the desktop
+// app during the run are never overwritten; such rows are reported and left
+// for the next run. Rows of a CSV file are upserted whole. The register is sized up front from the row count and all three
+// phases work on its primitive columns, so a 1M-row period runs in a few
+// seconds plus database time, with little GC.
+// With --import the file is instead streamed straight into the database
+// through CsvImporter, for files too large to hold in memory.
+// Exit status: 0 done, 1 failed, 2 bad arguments, 3 done except for rows
+// changed by others during the run.
+public final class PayrollRun {
+    private static final long REPORT_INTERVAL_NANOS = 5_000_000_000L;
+    private static final int CONFLICTS_LISTED = 20;
+    private static final String USAGE = String.join("\n",
+        "Usage: java -jar payroll-desktop-app.jar --batch --period yyyy-MM [options]",
+        "       java -jar payroll-desktop-app.jar --batch --import FILE [--errors FILE] [--threads N] [--batch-size N]",
+        "  --period yyyy-MM     pay month to run (with --input: keep only rows of this month)",
+        "  --input FILE         read rows from CSV/TSV instead of the database",
+        "  --output FILE        write the results to CSV instead of the database",
+        "  --dry-run            calculate only, write nothing",
+        "  --all-rows           write every row, not only rows whose amounts changed",
+        "  --threads N          calculation threads (default: all cores)",
+        "  --batch-size N       rows per JDBC batch (default 1000)",
+        "  --commit-rows N      rows per database transaction (default 50000)",
+        "  --import FILE        stream a CSV/TSV file of any size into the database",
+        "  --errors FILE        rejected lines of --import (default: FILE.errors.csv)",
+        "  --help               print this text",
+        "Database settings come from payroll-db.properties (-Dpayroll.db.config=FILE).");
+
+    private YearMonth period;
+    private Path input;
+    private Path output;
+    private Path importFile;
+    private Path errorFile;
+    private boolean dryRun;
+    private boolean allRows;
+    // 0 until given: all cores for a run, CsvImporter.defaultThreads() for an import
+    private int threads;
+    private int batchSize = 1_000;
+    private int commitRows = 50_000;
+
+    private PayrollRun() {
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.println(USAGE);
+            return;
+        }
+        PayrollRun run = new PayrollRun();
+        try {
+            run.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        PayrollMetrics.start();
+        int status = 0;
+        try {
+            status = run.run();
+        } catch (IOException | SQLException e) {
+            System.err.println("Payroll run failed: " + e.getMessage());
+            status = 1;
+        } finally {
+            PayrollMetrics.stop(); // Last snapshot to the metrics file, if one is configured
+        }
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--period":
+                    try {
+                        period = YearMonth.parse(value(args, ++i, arg));
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("--period must be yyyy-MM");
+                    }
+                    break;
+                case "--input":
+                    input = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--output":
+                    output = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--import":
+                    importFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--errors":
+                    errorFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--dry-run":
+                    dryRun = true;
+                    break;
+                case "--all-rows":
+                    allRows = true;
+                    break;
+                case "--threads":
+                    threads = positive(args, ++i, arg);
+                    break;
+                case "--batch-size":
+                    batchSize = positive(args, ++i, arg);
+                    break;
+                case "--commit-rows":
+                    commitRows = positive(args, ++i, arg);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (importFile != null) {
+            if (input != null || output != null || dryRun || period != null) {
+                throw new IllegalArgumentException("--import cannot be combined with --period, --input, --output or --dry-run");
+            }
+            return;
+        }
+        if (errorFile != null) {
+            throw new IllegalArgumentException("--errors only applies to --import");
+        }
+        if (period == null && input == null) {
+            throw new IllegalArgumentException("--period is required when reading from the database");
+        }
+    }
+
+    // Returns the exit status
+    private int run() throws IOException, SQLException {
+        if (importFile != null) {
+            runImport();
+            return 0;
+        }
+        if (threads == 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+
+        // Read
+        long phase = System.nanoTime();
+        PayrollRegister register;
+        int skipped = 0;
+        if (input != null) {
+            register = new PayrollRegister(estimateRows(input));
+            skipped = readCsv(register);
+        } else {
+            register = readDatabase();
+        }
+        stats.phase("read", register.getRowCount(), phase);
+        if (skipped > 0) {
+            System.out.printf(Locale.ROOT, "           %,d rows outside %s skipped%n", skipped, period);
+        }
+
+        // Calculate
+        phase = System.nanoTime();
+        boolean[] changed = new boolean[register.getRowCount()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int changedRows;
+        try {
+            changedRows = PayrollCalculator.calculateAll(register, pool, changed);
+        } finally {
+            pool.shutdown();
+        }
+        stats.phase("calculate", register.getRowCount(), phase);
+        System.out.printf(Locale.ROOT, "           %,d rows changed, %d threads%n", changedRows, threads);
+
+        // Write
+        phase = System.nanoTime();
+        int conflicts = 0;
+        if (dryRun) {
+            System.out.println("write      skipped (--dry-run)");
+        } else if (output != null) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+                int written = new CsvRegisterExporter().export(register, out, rows -> { }, () -> false);
+                stats.phase("write", written, phase);
+            }
+        } else if (input != null) {
+            // CSV input may hold rows the database does not have yet, so all are written
+            int[] rows = rowsToWrite(changed, true);
+            int written;
+            try (Connection conn = openConnection()) {
+                written = RegisterDao.upsertRows(conn, register, rows, batchSize, commitRows);
+            }
+            stats.phase("write", written, phase);
+        } else {
+            int[] rows = rowsToWrite(changed, allRows);
+            RegisterDao.SubmitResult result;
+            try (Connection conn = openConnection()) {
+                result = RegisterDao.updateDerivedColumns(conn, register, rows, batchSize, commitRows);
+            }
+            stats.phase("write", result.updated, phase);
+            conflicts = result.conflicts.size();
+            reportConflicts(result.conflicts);
+        }
+        stats.phase("total", register.getRowCount(), start);
+        stats.printMemory();
+        return conflicts > 0 ? 3 : 0;
+    }
+
+    // Rows changed or deleted in the database after they were read
+    private static void reportConflicts(List<RegisterDao.Conflict> conflicts) {
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        System.err.printf(Locale.ROOT, "%,d rows were changed by others during the run and not written; "
+            + "run the period again to recalculate them:%n", conflicts.size());
+        for (int i = 0; i < Math.min(CONFLICTS_LISTED, conflicts.size()); i++) {
+            RegisterDao.Conflict conflict = conflicts.get(i);
+            System.err.printf(Locale.ROOT, "  ID %d on %s: %s%n", ChangeTracker.keyId(conflict.key),
+                LocalDate.ofEpochDay(ChangeTracker.keyEpochDay(conflict.key)),
+                conflict.kind == RegisterDao.Conflict.Kind.DELETED_BY_OTHERS ? "deleted" : "changed");
+        }
+        if (conflicts.size() > CONFLICTS_LISTED) {
+            System.err.printf(Locale.ROOT, "  ... and %,d more%n", conflicts.size() - CONFLICTS_LISTED);
+        }
+    }
+
+    private void runImport() throws IOException, SQLException {
+        Stats stats = new Stats();
+        Path errors = errorFile != null ? errorFile : CsvImporter.defaultErrorFile(importFile);
+        long size = Math.max(1, Files.size(importFile));
+        CsvImporter importer = new CsvImporter(PayrollRun::openConnection,
+            threads > 0 ? threads : CsvImporter.defaultThreads(), batchSize);
+        long start = System.nanoTime();
+        long[] nextReport = {start + REPORT_INTERVAL_NANOS};
+        CsvImporter.Result result = importer.importFile(importFile, errors, (bytesRead, imported, rejected) -> {
+            long now = System.nanoTime();
+            if (now >= nextReport[0]) {
+                nextReport[0] = now + REPORT_INTERVAL_NANOS;
+                System.out.printf(Locale.ROOT, "import     %3d%% %,12d rows %,12.0f rows/s, %,d rejected%n",
+                    Math.min(100, bytesRead * 100 / size), imported, imported * 1e9 / (now - start), rejected);
+            }
+        }, () -> false);
+        stats.phase("import", result.lines, start);
+        System.out.printf(Locale.ROOT, "           %,d rows imported, %,d rejected%s%n", result.imported, result.rejected,
+            result.errorFile != null ? " (see " + result.errorFile + ")" : "");
+        stats.printMemory();
+    }
+
+    private PayrollRegister readDatabase() throws SQLException {
+        try (Connection conn = openConnection()) {
+            PayrollRegister register = new PayrollRegister(Math.max(1, RegisterDao.countRows(conn, period)));
+            try (PreparedStatement ps = RegisterDao.prepareStreamingSelect(conn, period);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    RegisterDao.readVersionedRow(rs, register);
+                }
+            }
+            return register;
+        }
+    }
+
+    // Reads the file; returns the number of rows skipped for being outside the period
+    private int readCsv(PayrollRegister register) throws IOException {
+        int skipped = 0;
+        int from = period != null ? (int) period.atDay(1).toEpochDay() : Integer.MIN_VALUE;
+        int to = period != null ? (int) period.plusMonths(1).atDay(1).toEpochDay() : Integer.MAX_VALUE;
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             CsvRegisterReader csv = new CsvRegisterReader(reader)) {
+            while (true) {
+                try {
+                    if (!csv.readRow(register)) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(input + " line " + csv.getLineNumber() + ": " + e.getMessage());
+                }
+                int row = register.getRowCount() - 1;
+                int day = register.getEpochDay(row);
+                if (day < from || day >= to) {
+                    register.removeRow(row);
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    // Row count guess from the file size, so the register rarely has to grow
+    private static int estimateRows(Path file) throws IOException {
+        long bytesPerRow = 160;
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, Files.size(file) / bytesPerRow));
+    }
+
+    private static int[] rowsToWrite(boolean[] changed, boolean all) {
+        int count = 0;
+        for (boolean rowChanged : changed) {
+            count += all || rowChanged ? 1 : 0;
+        }
+        int[] rows = new int[count];
+        int next = 0;
+        for (int row = 0; row < changed.length; row++) {
+            if (all || changed[row]) {
+                rows[next++] = row;
+            }
+        }
+        return rows;
+    }
+
+    // One plain connection; a pool brings nothing to a single-threaded writer
+    private static Connection openConnection() throws SQLException {
+        PoolConfig config = PoolConfig.load();
+        try {
+            Class.forName(config.getDriver());
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC driver " + config.getDriver() + " is not on the classpath");
+        }
+        return DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static int positive(String[] args, int index, String option) {
+        try {
+            int value = Integer.parseInt(value(args, index, option));
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(option + " must be a positive number");
+    }
+
+    // Timing lines and GC/heap figures for the report
+    private static class Stats {
+        private final long gcCountAtStart = gcCount();
+        private final long gcMillisAtStart = gcMillis();
+
+        void phase(String name, long rows, long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            double seconds = nanos / 1e9;
+            System.out.printf(Locale.ROOT, "%-10s %,12d rows %,9d ms %,12.0f rows/s%n",
+                name, rows, nanos / 1_000_000, seconds > 0 ? rows / seconds : 0);
+        }
+
+        void printMemory() {
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf(Locale.ROOT, "gc         %,d collections, %,d ms; heap %,d MB used of %,d MB%n",
+                gcCount() - gcCountAtStart, gcMillis() - gcMillisAtStart,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20);
+        }
+
+        private static long gcCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+            }
+            return count;
+        }
+
+        private static long gcMillis() {
+            long millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            return millis;
+        }
+    }
+}
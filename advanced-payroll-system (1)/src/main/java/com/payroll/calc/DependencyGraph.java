@@ -0,0 +1,199 @@
+package com.payroll.calc;
+
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+
+import java.util.Arrays;
+
+// Spreadsheet-style recalculation over the register's 24 columns. Each
+// derived column has a formula and the mask of columns it reads. The graph
+// keeps the formulas in topological order (a column after everything it
+// reads) and, per column, the mask of columns depending on it directly or
+// through other formulas.
+// recalculate() walks that order once and evaluates a formula only when one
+// of its inputs changed - an edited column, or a formula result that really
+// moved. Editing Advances recomputes Total Deductions and Net Pay and nothing
+// else, and a result that comes out the same stops the chain there.
+// All formulas sit behind one Formulas object (a switch on the column) rather
+// than an object per column: the call stays monomorphic and is inlined, which
+// keeps a full recalculation as fast as straight-line code.
+// Define every column before the graph is shared; after that it is read-only
+// and threads may recalculate different rows at once.
+public final class DependencyGraph implements PayrollTableModel.Recalculator {
+    // Derived amounts in cents, read from the row's other columns
+    public interface Formulas {
+        long compute(PayrollRegister register, int row, int column);
+    }
+
+    // Rows per block in range recalculation; the block's masks stay in L1
+    private static final int BLOCK_ROWS = 1_024;
+
+    private final Formulas formulas;
+    private final int[] inputs = new int[PayrollColumns.COUNT];
+    private final int[] dependents = new int[PayrollColumns.COUNT];
+    private int[] order = new int[0];
+    private int derivedColumns;
+
+    public DependencyGraph(Formulas formulas) {
+        this.formulas = formulas;
+    }
+
+    // Makes the column derived: computed by the formulas from the input columns.
+    // Throws IllegalArgumentException for a non-amount column, a column
+    // defined twice or a formula that would (indirectly) read itself.
+    public DependencyGraph define(int column, int inputMask) {
+        if (PayrollColumns.kindOf(column) != PayrollColumns.Kind.DECIMAL) {
+            throw new IllegalArgumentException("Only amount columns can be derived: " + PayrollColumns.dbName(column));
+        }
+        if ((derivedColumns & (1 << column)) != 0) {
+            throw new IllegalArgumentException(PayrollColumns.dbName(column) + " is already derived");
+        }
+        if (inputMask == 0) {
+            throw new IllegalArgumentException(PayrollColumns.dbName(column) + " must read at least one column");
+        }
+        inputs[column] = inputMask;
+        try {
+            sort();
+        } catch (IllegalArgumentException e) {
+            inputs[column] = 0;
+            sort();
+            throw e;
+        }
+        return this;
+    }
+
+    // Mask of the columns that have a formula
+    public int getDerivedColumns() {
+        return derivedColumns;
+    }
+
+    // Mask of the columns that read the given ones, directly or indirectly
+    @Override
+    public int dependentsOf(int columns) {
+        int mask = 0;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if ((columns & (1 << col)) != 0) {
+                mask |= dependents[col];
+            }
+        }
+        return mask;
+    }
+
+    // Recomputes what depends on the changed columns of one row, writing into
+    // the register; returns the mask of derived columns whose value changed
+    @Override
+    public int recalculate(PayrollRegister register, int row, int changedColumns) {
+        int[] columnInputs = inputs;
+        int dirty = changedColumns;
+        int changed = 0;
+        for (int col : order) {
+            if ((columnInputs[col] & dirty) == 0) {
+                continue;
+            }
+            long value = formulas.compute(register, row, col);
+            if (register.getCents(row, col) != value) {
+                register.setCents(row, col, value);
+                dirty |= 1 << col;
+                changed |= 1 << col;
+            }
+        }
+        return changed;
+    }
+
+    // Rows [from, to) with the same changed columns. Works a block of rows at
+    // a time and one formula at a time across the block, so each pass streams
+    // through a few of the register's column arrays; per-row masks still
+    // skip the formulas whose inputs did not change. Returns how many rows
+    // changed and, when the array is given, sets changed[row] for each of them.
+    public int recalculate(PayrollRegister register, int from, int to, int changedColumns, boolean[] changed) {
+        if (dependentsOf(changedColumns) == 0 || from >= to) {
+            return 0;
+        }
+        int[] dirty = new int[Math.min(BLOCK_ROWS, to - from)];
+        int[] written = new int[dirty.length];
+        int changedRows = 0;
+        for (int start = from; start < to; start += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, to - start);
+            Arrays.fill(dirty, 0, rows, changedColumns);
+            Arrays.fill(written, 0, rows, 0);
+            for (int col : order) {
+                int columnInputs = inputs[col];
+                int bit = 1 << col;
+                for (int i = 0; i < rows; i++) {
+                    if ((columnInputs & dirty[i]) == 0) {
+                        continue;
+                    }
+                    int row = start + i;
+                    long value = formulas.compute(register, row, col);
+                    if (register.getCents(row, col) != value) {
+                        register.setCents(row, col, value);
+                        dirty[i] |= bit;
+                        written[i] |= bit;
+                    }
+                }
+            }
+            for (int i = 0; i < rows; i++) {
+                boolean rowChanged = written[i] != 0;
+                if (changed != null) {
+                    changed[start + i] = rowChanged;
+                }
+                changedRows += rowChanged ? 1 : 0;
+            }
+        }
+        return changedRows;
+    }
+
+    // Kahn's algorithm over the derived columns, then the transitive
+    // dependents of every column in one pass over that order
+    private void sort() {
+        int derived = 0;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (inputs[col] != 0) {
+                derived |= 1 << col;
+            }
+        }
+        int[] sorted = new int[Integer.bitCount(derived)];
+        int count = 0;
+        int remaining = derived;
+        while (remaining != 0) {
+            int ready = 0;
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                if ((remaining & (1 << col)) != 0 && (inputs[col] & remaining) == 0) {
+                    ready |= 1 << col;
+                }
+            }
+            if (ready == 0) {
+                throw new IllegalArgumentException("Formulas depend on each other in a cycle: " + names(remaining));
+            }
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                if ((ready & (1 << col)) != 0) {
+                    sorted[count++] = col;
+                }
+            }
+            remaining &= ~ready;
+        }
+
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            int mask = 0;
+            for (int derivedCol : sorted) {
+                if ((inputs[derivedCol] & (1 << col | mask)) != 0) {
+                    mask |= 1 << derivedCol;
+                }
+            }
+            dependents[col] = mask;
+        }
+        order = sorted;
+        derivedColumns = derived;
+    }
+
+    private static String names(int mask) {
+        StringBuilder names = new StringBuilder();
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if ((mask & (1 << col)) != 0) {
+                names.append(names.length() == 0 ? "" : ", ").append(PayrollColumns.dbName(col));
+            }
+        }
+        return names.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.payroll.calc;
+
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// The pay rules, applied directly to the register's cent columns.
+// No Swing and no boxing: the same code serves the desktop app (the cells an
+// edit affects), batch jobs and benchmarks (whole pay periods). Large ranges
+// are split across cores with fork/join; rows are independent, so each task
+// simply owns its slice of the columns.
+//
+// Rules (amounts in Money cents, rounded half-up):
+//   bonus rate     = 10% of basic salary
+//   OT rate        = basic salary / 160 hours
+//   deduction rate = 5% of basic salary
+//   gross pay      = basic + incentive + special bonus + bonus + business trips + OT amount
+//   total deduct.  = social insurance + advances + transportation + deductions
+//   net pay        = gross pay - total deductions
+// They are held as a DependencyGraph, so an edit recomputes only the cells
+// that read the edited column.
+public final class PayrollCalculator {
+    private static final int[] EARNINGS = {
+        PayrollColumns.BASIC_SALARY, PayrollColumns.INCENTIVE, PayrollColumns.SPECIAL_BONUS,
+        PayrollColumns.BONUS, PayrollColumns.BUSINESS_TRIP_AMOUNT, PayrollColumns.OT_AMOUNT
+    };
+    private static final int[] DEDUCTION_COLUMNS = {
+        PayrollColumns.SOCIAL_INSURANCE, PayrollColumns.ADVANCES,
+        PayrollColumns.TRANSPORTATION_DEDUCTIONS, PayrollColumns.DEDUCTIONS
+    };
+
+    public static final DependencyGraph GRAPH = new DependencyGraph(PayrollCalculator::compute)
+        .define(PayrollColumns.BONUS_RATE, 1 << PayrollColumns.BASIC_SALARY)
+        .define(PayrollColumns.OT_RATE, 1 << PayrollColumns.BASIC_SALARY)
+        .define(PayrollColumns.DEDUCTION_RATE, 1 << PayrollColumns.BASIC_SALARY)
+        .define(PayrollColumns.GROSS_PAY, maskOf(EARNINGS))
+        .define(PayrollColumns.TOTAL_DEDUCTIONS, maskOf(DEDUCTION_COLUMNS))
+        .define(PayrollColumns.NET_PAY, 1 << PayrollColumns.GROSS_PAY | 1 << PayrollColumns.TOTAL_DEDUCTIONS);
+
+    // Columns written by the calculator, as a ChangeTracker-style bitmask
+    public static final int DERIVED_COLUMNS = GRAPH.getDerivedColumns();
+
+    // Every column counts as changed for a full recalculation
+    private static final int ALL_COLUMNS = (1 << PayrollColumns.COUNT) - 1;
+
+    // Below this many rows a task computes instead of splitting further
+    static final int SPLIT_ROWS = 8_192;
+
+    private PayrollCalculator() {
+    }
+
+    // Rates and totals for one row; returns the bitmask of columns whose value changed
+    public static int calculateRow(PayrollRegister register, int row) {
+        return GRAPH.recalculate(register, row, ALL_COLUMNS);
+    }
+
+    // Rows [from, to) on the calling thread; returns how many rows changed
+    public static int calculate(PayrollRegister register, int from, int to) {
+        return GRAPH.recalculate(register, from, to, ALL_COLUMNS, null);
+    }
+
+    // Every row, split across the common fork/join pool
+    public static int calculateAll(PayrollRegister register) {
+        return calculateAll(register, ForkJoinPool.commonPool());
+    }
+
+    public static int calculateAll(PayrollRegister register, ForkJoinPool pool) {
+        return calculateAll(register, pool, null);
+    }
+
+    // Same, also setting changed[row] for every row whose values changed
+    // (the array must cover the register), so a batch job writes back only those
+    public static int calculateAll(PayrollRegister register, ForkJoinPool pool, boolean[] changed) {
+        long start = System.nanoTime();
+        CalculateTask task = new CalculateTask(register, 0, register.getRowCount(), changed);
+        pool.invoke(task);
+        PayrollMetrics.CALCULATE_PERIOD.record(start, register.getRowCount());
+        return task.changedRows;
+    }
+
+    // The formula of each derived column; the inputs declared above must
+    // match the columns read here
+    private static long compute(PayrollRegister register, int row, int column) {
+        switch (column) {
+            case PayrollColumns.BONUS_RATE:
+                return Money.percentOf(register.getCents(row, PayrollColumns.BASIC_SALARY), 10);
+            case PayrollColumns.OT_RATE:
+                return Money.divide(register.getCents(row, PayrollColumns.BASIC_SALARY), 160);
+            case PayrollColumns.DEDUCTION_RATE:
+                return Money.percentOf(register.getCents(row, PayrollColumns.BASIC_SALARY), 5);
+            case PayrollColumns.GROSS_PAY:
+                return sum(register, row, EARNINGS);
+            case PayrollColumns.TOTAL_DEDUCTIONS:
+                return sum(register, row, DEDUCTION_COLUMNS);
+            case PayrollColumns.NET_PAY:
+                return Money.subtract(register.getCents(row, PayrollColumns.GROSS_PAY),
+                    register.getCents(row, PayrollColumns.TOTAL_DEDUCTIONS));
+            default:
+                throw new IllegalArgumentException("Not a derived column: " + PayrollColumns.dbName(column));
+        }
+    }
+
+    private static long sum(PayrollRegister register, int row, int[] columns) {
+        long total = 0;
+        for (int col : columns) {
+            total = Money.add(total, register.getCents(row, col));
+        }
+        return total;
+    }
+
+    private static int maskOf(int[] columns) {
+        int mask = 0;
+        for (int col : columns) {
+            mask |= 1 << col;
+        }
+        return mask;
+    }
+
+    private static class CalculateTask extends RecursiveAction {
+        private final PayrollRegister register;
+        private final int from;
+        private final int to;
+        private final boolean[] changed;
+        private int changedRows;
+
+        CalculateTask(PayrollRegister register, int from, int to, boolean[] changed) {
+            this.register = register;
+            this.from = from;
+            this.to = to;
+            this.changed = changed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_ROWS) {
+                changedRows = GRAPH.recalculate(register, from, to, ALL_COLUMNS, changed);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            CalculateTask left = new CalculateTask(register, from, middle, changed);
+            CalculateTask right = new CalculateTask(register, middle, to, changed);
+            invokeAll(left, right);
+            changedRows = left.changedRows + right.changedRows;
+        }
+    }
+}
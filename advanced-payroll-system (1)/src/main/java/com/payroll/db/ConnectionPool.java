@@ -0,0 +1,270 @@
+package com.payroll.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Small JDBC connection pool: bounded size, validation on borrow,
+// idle eviction and leak detection. Connections handed out are proxies
+// whose close() returns the physical connection to the pool.
+public class ConnectionPool implements ConnectionSource, AutoCloseable {
+    private final PoolConfig config;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    public ConnectionPool(PoolConfig config) throws SQLException {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        try {
+            Class.forName(config.getDriver());
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC Driver not found: " + config.getDriver(), e);
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "payroll-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.getEvictionIntervalMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+
+        // Best effort warm-up; the housekeeper keeps retrying if the database is down
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            System.err.println("Connection pool warm-up failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getMaxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + config.getMaxWaitMillis()
+                    + " ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isValid(pooled)) {
+                    break;
+                }
+                validationFailures.incrementAndGet();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            pooled.borrow(config.getLeakThresholdMillis() > 0);
+            borrowed.add(pooled);
+            recordWait(System.nanoTime() - start);
+            return pooled.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats getStats() {
+        return new PoolStats(borrowed.size(), idle.size(), permits.getQueueLength(),
+            borrowCount.get(), totalWaitNanos.get(), maxWaitNanos.get(),
+            created.get(), destroyed.get(), validationFailures.get(), leaksDetected.get());
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            // Never hand out a connection with an open transaction
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastReturned = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        destroyed.incrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Already broken
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections idle for too long, oldest first, keeping minSize open
+        PooledConnection oldest;
+        while (idle.size() + borrowed.size() > config.getMinSize()
+                && (oldest = idle.peekLast()) != null
+                && now - oldest.lastReturned > config.getIdleTimeoutMillis()) {
+            if (idle.removeLastOccurrence(oldest)) {
+                destroy(oldest);
+            }
+        }
+
+        // Report connections held longer than the leak threshold, once each
+        long threshold = config.getLeakThresholdMillis();
+        if (threshold > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > threshold) {
+                    pooled.leakReported = true;
+                    leaksDetected.incrementAndGet();
+                    System.err.println("Possible connection leak: connection held for "
+                        + (now - pooled.borrowedAt) + " ms, borrowed at:");
+                    pooled.borrowSite.printStackTrace();
+                }
+            }
+        }
+
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            // Database unavailable, try again on the next run
+        }
+    }
+
+    private void fillToMinimum() throws SQLException {
+        while (!closed && idle.size() + borrowed.size() < config.getMinSize()
+                && permits.availablePermits() > idle.size()) {
+            PooledConnection pooled = create();
+            pooled.lastReturned = System.currentTimeMillis();
+            idle.offerLast(pooled);
+        }
+    }
+
+    // Physical connection plus the proxy handed to callers
+    private final class PooledConnection implements InvocationHandler {
+        final Connection physical;
+        final Connection proxy;
+        volatile long lastReturned;
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+        private volatile boolean open;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, this);
+        }
+
+        void borrow(boolean captureSite) {
+            borrowedAt = System.currentTimeMillis();
+            borrowSite = captureSite ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            open = true;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                if (open) {
+                    open = false;
+                    release(this);
+                }
+                return null;
+            }
+            if (name.equals("isClosed")) {
+                return !open || physical.isClosed();
+            }
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("toString")) {
+                return "Pooled[" + physical + "]";
+            }
+            if (!open) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
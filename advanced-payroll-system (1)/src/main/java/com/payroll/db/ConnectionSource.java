@@ -0,0 +1,10 @@
+package com.payroll.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Anything that can hand out a JDBC connection (the pool, or Connect in the desktop app)
+@FunctionalInterface
+public interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+}
@@ -0,0 +1,173 @@
+package com.payroll.db;
+
+import com.payroll.journal.OfflineJournal;
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Writes the offline journal into payroll_register.
+// Records are sent as JDBC batches of up to BATCH_SIZE statements. A batch is
+// flushed whenever the kind of record changes, so deletes, updates and
+// upserts reach the database in the order they were journaled. The whole
+// replay is one transaction and the journal is compacted only after it commits;
+// replaying the same records twice leaves the same rows behind.
+// Offline edits are applied without version checks (last writer wins), but
+// they bump row_version so other clients see the rows as changed. The
+// versions the replayed rows end up with are read back before the commit and
+// returned, so the register that journaled them can catch up (see
+// PayrollTableModel.advanceVersions) instead of conflicting with itself.
+public class JournalReplayer implements OfflineJournal.Visitor {
+    public static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_SQL = buildUpdateSql();
+    private static final String VERSION_SQL = "SELECT row_version FROM " + RegisterDao.TABLE + RegisterDao.KEY_WHERE;
+
+    // Records written, and the row_version of each row still there after the replay
+    public static class Result {
+        public final int records;
+        public final long[] keys;
+        public final int[] versions;
+
+        Result(int records, long[] keys, int[] versions) {
+            this.records = records;
+            this.keys = keys;
+            this.versions = versions;
+        }
+    }
+
+    private final Connection conn;
+    private PreparedStatement upsert;
+    private PreparedStatement update;
+    private PreparedStatement delete;
+    private PreparedStatement current;
+    private int batched;
+    // Keys of the rows written, in log order; deleted rows are dropped again
+    private final Set<Long> writtenKeys = new LinkedHashSet<>();
+
+    private JournalReplayer(Connection conn) {
+        this.conn = conn;
+    }
+
+    // Replays every committed record, then compacts the journal
+    public static Result sync(Connection conn, OfflineJournal journal) throws SQLException, IOException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        JournalReplayer replayer = new JournalReplayer(conn);
+        Result result;
+        try {
+            int replayed = journal.replay(replayer);
+            replayer.flush();
+            result = replayer.readVersions(replayed);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            replayer.closeStatements();
+            conn.setAutoCommit(autoCommit);
+        }
+        journal.compact();
+        return result;
+    }
+
+    @Override
+    public void upsert(PayrollRegister values, int row) throws SQLException {
+        if (upsert == null) {
+            upsert = conn.prepareStatement(RegisterDao.UPSERT_SQL);
+        }
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            RegisterDao.bind(upsert, col + 1, values, row, col);
+        }
+        add(upsert);
+        writtenKeys.add(ChangeTracker.keyOf(values, row));
+    }
+
+    @Override
+    public void update(long key, PayrollRegister values, int row) throws SQLException {
+        if (update == null) {
+            update = conn.prepareStatement(UPDATE_SQL);
+        }
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            RegisterDao.bind(update, col + 1, values, row, col);
+        }
+        RegisterDao.bindKey(update, PayrollColumns.COUNT + 1, key);
+        add(update);
+        writtenKeys.remove(key);
+        writtenKeys.add(ChangeTracker.keyOf(values, row));
+    }
+
+    @Override
+    public void delete(long key) throws SQLException {
+        if (delete == null) {
+            delete = conn.prepareStatement(RegisterDao.DELETE_SQL);
+        }
+        RegisterDao.bindKey(delete, 1, key);
+        add(delete);
+        writtenKeys.remove(key);
+    }
+
+    private void add(PreparedStatement ps) throws SQLException {
+        if (current != ps) {
+            flush();
+            current = ps;
+        }
+        ps.addBatch();
+        if (++batched == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (current != null && batched > 0) {
+            current.executeBatch();
+        }
+        batched = 0;
+    }
+
+    // Versions as this transaction leaves them; its writes keep the rows locked until the commit
+    private Result readVersions(int records) throws SQLException {
+        long[] keys = new long[writtenKeys.size()];
+        int[] versions = new int[keys.length];
+        int count = 0;
+        try (PreparedStatement ps = conn.prepareStatement(VERSION_SQL)) {
+            for (long key : writtenKeys) {
+                RegisterDao.bindKey(ps, 1, key);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        keys[count] = key;
+                        versions[count++] = rs.getInt(1);
+                    }
+                }
+            }
+        }
+        return new Result(records, Arrays.copyOf(keys, count), Arrays.copyOf(versions, count));
+    }
+
+    private void closeStatements() throws SQLException {
+        for (PreparedStatement ps : new PreparedStatement[] {upsert, update, delete}) {
+            if (ps != null) {
+                ps.close();
+            }
+        }
+    }
+
+    private static String buildUpdateSql() {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(RegisterDao.TABLE).append(" SET ");
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (col > 0) {
+                sql.append(", ");
+            }
+            sql.append(PayrollColumns.dbName(col)).append(" = ?");
+        }
+        return sql.append(", row_version = row_version + 1").append(RegisterDao.KEY_WHERE).toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.payroll.db;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+// Database and pool settings, read from payroll-db.properties.
+// The file is looked up at -Dpayroll.db.config, then in the working directory,
+// then on the classpath; missing keys fall back to the defaults below.
+// There are no default credentials: db.user and db.password come from the
+// file, or are left unset for drivers that authenticate another way.
+public class PoolConfig {
+    public static final String CONFIG_PROPERTY = "payroll.db.config";
+    public static final String DEFAULT_FILE = "payroll-db.properties";
+
+    private String driver = "com.mysql.cj.jdbc.Driver";
+    private String url = "jdbc:mysql://localhost:3306/payroll_db?useSSL=false&serverTimezone=UTC";
+    private String user;
+    private String password;
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long maxWaitMillis = 5_000;
+    private int validationTimeoutSeconds = 2;
+    private long idleTimeoutMillis = 300_000;
+    private long evictionIntervalMillis = 30_000;
+    private long leakThresholdMillis = 60_000;
+
+    public static PoolConfig load() {
+        Properties props = new Properties();
+        String path = System.getProperty(CONFIG_PROPERTY);
+        File file = new File(path != null ? path : DEFAULT_FILE);
+        try {
+            if (file.isFile()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    props.load(in);
+                }
+            } else {
+                try (InputStream in = PoolConfig.class.getClassLoader().getResourceAsStream(DEFAULT_FILE)) {
+                    if (in != null) {
+                        props.load(in);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read " + file + ", using default database settings: " + e.getMessage());
+        }
+        return fromProperties(props);
+    }
+
+    public static PoolConfig fromProperties(Properties props) {
+        PoolConfig config = new PoolConfig();
+        config.driver = props.getProperty("db.driver", config.driver);
+        config.url = props.getProperty("db.url", config.url);
+        config.user = props.getProperty("db.user", config.user);
+        config.password = props.getProperty("db.password", config.password);
+        config.minSize = intProperty(props, "pool.minSize", config.minSize);
+        config.maxSize = intProperty(props, "pool.maxSize", config.maxSize);
+        config.maxWaitMillis = longProperty(props, "pool.maxWaitMillis", config.maxWaitMillis);
+        config.validationTimeoutSeconds = intProperty(props, "pool.validationTimeoutSeconds", config.validationTimeoutSeconds);
+        config.idleTimeoutMillis = longProperty(props, "pool.idleTimeoutMillis", config.idleTimeoutMillis);
+        config.evictionIntervalMillis = longProperty(props, "pool.evictionIntervalMillis", config.evictionIntervalMillis);
+        config.leakThresholdMillis = longProperty(props, "pool.leakThresholdMillis", config.leakThresholdMillis);
+
+        if (config.maxSize < 1 || config.minSize < 0 || config.minSize > config.maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + config.minSize + ", max=" + config.maxSize);
+        }
+        if (config.evictionIntervalMillis <= 0) {
+            throw new IllegalArgumentException("pool.evictionIntervalMillis must be positive");
+        }
+        return config;
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public String getDriver() {
+        return driver;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    // 0 disables leak detection
+    public long getLeakThresholdMillis() {
+        return leakThresholdMillis;
+    }
+}
@@ -0,0 +1,45 @@
+package com.payroll.db;
+
+// Point-in-time snapshot of ConnectionPool counters
+public class PoolStats {
+    public final int active;
+    public final int idle;
+    public final int waiting;
+    public final long borrowCount;
+    public final long totalWaitNanos;
+    public final long maxWaitNanos;
+    public final long created;
+    public final long destroyed;
+    public final long validationFailures;
+    public final long leaksDetected;
+
+    PoolStats(int active, int idle, int waiting, long borrowCount, long totalWaitNanos, long maxWaitNanos,
+            long created, long destroyed, long validationFailures, long leaksDetected) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.borrowCount = borrowCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.validationFailures = validationFailures;
+        this.leaksDetected = leaksDetected;
+    }
+
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1e6 / borrowCount;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, waiting=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, "
+            + "created=%d, destroyed=%d, validationFailures=%d, leaks=%d",
+            active, idle, waiting, borrowCount, getAverageWaitMillis(), getMaxWaitMillis(),
+            created, destroyed, validationFailures, leaksDetected);
+    }
+}
@@ -0,0 +1,721 @@
+package com.payroll.db;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// SQL for reading and writing payroll_register.
+// Rows are keyed by (id, payment_date), one row per employee and pay date,
+// and the table is range-partitioned by payment month. The register is loaded
+// and refreshed one pay period (month) at a time with a payment_date range,
+// so MySQL only reads that month's partition.
+public class RegisterDao {
+    static final String TABLE = "payroll_register";
+
+    static final String COLUMN_LIST = buildColumnList();
+    // The 24 columns plus row_version, read by readVersionedRow
+    static final String VERSIONED_COLUMN_LIST = COLUMN_LIST + ", row_version";
+    // Bound by bindPeriod
+    private static final String PERIOD_WHERE = " WHERE payment_date >= ? AND payment_date < ?";
+    // Bound by bindKey
+    static final String KEY_WHERE = " WHERE id = ? AND payment_date = ?";
+    private static final String SELECT_SQL = "SELECT " + VERSIONED_COLUMN_LIST + " FROM " + TABLE + PERIOD_WHERE
+        + " ORDER BY id, payment_date";
+    private static final String SELECT_ONE_SQL = "SELECT " + VERSIONED_COLUMN_LIST + " FROM " + TABLE + KEY_WHERE
+        + " FOR UPDATE";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE + PERIOD_WHERE;
+    private static final String LATEST_DATE_SQL = "SELECT MAX(payment_date) FROM " + TABLE;
+    private static final String INSERT_SQL = buildInsertSql();
+    private static final String UPDATE_ALL_SQL = buildUpdateSql((1 << PayrollColumns.COUNT) - 1);
+    private static final String UPDATE_DERIVED_SQL = buildUpdateSql(PayrollCalculator.DERIVED_COLUMNS);
+    static final String UPSERT_SQL = buildUpsertSql(1);
+    // 64 rows x 24 columns keeps well under the 65535 placeholders MySQL allows
+    private static final int UPSERT_ROWS_PER_STATEMENT = 64;
+    private static final String MULTI_UPSERT_SQL = buildUpsertSql(UPSERT_ROWS_PER_STATEMENT);
+    static final String DELETE_SQL = "DELETE FROM " + TABLE + KEY_WHERE;
+    private static final String VERSIONED_DELETE_SQL = DELETE_SQL + " AND row_version = ?";
+    private static final String NOW_SQL = "SELECT CURRENT_TIMESTAMP(3)";
+    private static final String CHANGED_SINCE_SQL = "SELECT " + VERSIONED_COLUMN_LIST + " FROM " + TABLE
+        + PERIOD_WHERE + " AND updated_at >= ? ORDER BY id, payment_date";
+    // updated_at and deleted_at are stamped when the statement runs, not when
+    // its transaction commits, so a row can become visible with a stamp older
+    // than a watermark taken in between. Each delta reads this far back from
+    // its watermark; it must exceed the longest write transaction.
+    static final long WATERMARK_LAG_MILLIS = 60_000;
+    private static final String DELETED_SINCE_SQL = "SELECT DISTINCT id, payment_date FROM payroll_register_deletions"
+        + PERIOD_WHERE + " AND deleted_at >= ?";
+
+    // Result of a submit - rows actually written to the database, plus the
+    // rows the database rejected because another user changed them first
+    public static class SubmitResult {
+        public final int inserted;
+        public final int updated;
+        public final int deleted;
+        public final int merged;
+        public final List<Conflict> conflicts;
+        // Model rows that were not written; they stay dirty
+        public final BitSet rejectedRows;
+        // Keys of the deletes that were not done (DELETE_OF_CHANGED_ROW); they stay pending
+        public final long[] rejectedDeletes;
+        // Auto-merged rows as now stored, to copy back into the model
+        public final PayrollRegister mergedValues;
+        public final int[] mergedRows;
+
+        SubmitResult(int inserted, int updated, int deleted, List<Conflict> conflicts, BitSet rejectedRows,
+                PayrollRegister mergedValues, int[] mergedRows) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.deleted = deleted;
+            this.merged = mergedRows.length;
+            this.conflicts = conflicts;
+            this.rejectedRows = rejectedRows;
+            this.rejectedDeletes = conflicts.stream()
+                .filter(c -> c.kind == Conflict.Kind.DELETE_OF_CHANGED_ROW)
+                .mapToLong(c -> c.key)
+                .toArray();
+            this.mergedValues = mergedValues;
+            this.mergedRows = mergedRows;
+        }
+
+        public int total() {
+            return inserted + updated + deleted + merged;
+        }
+    }
+
+    // One row of the conflict report
+    public static class Conflict {
+        public enum Kind {
+            // Someone else changed the row since it was loaded
+            CHANGED_BY_OTHERS,
+            // Someone else deleted the row this submit updates
+            DELETED_BY_OTHERS,
+            // A new row uses an ID and date that someone else stored first
+            DUPLICATE_ID,
+            // This submit deletes a row someone else changed; it is not deleted
+            DELETE_OF_CHANGED_ROW
+        }
+
+        public final Kind kind;
+        // Model row, or -1 for deletes
+        public final int row;
+        // (id, payment_date), see ChangeTracker.keyOf
+        public final long key;
+        // Columns changed on both sides (CHANGED_BY_OTHERS), bit n = column n
+        public final int columnMask;
+
+        Conflict(Kind kind, int row, long key, int columnMask) {
+            this.kind = kind;
+            this.row = row;
+            this.key = key;
+            this.columnMask = columnMask;
+        }
+    }
+
+    // Rows inserted, updated or deleted in the database since a watermark
+    public static class Delta {
+        public final PayrollRegister changed;
+        public final long[] deletedKeys;
+        // Pass to the next readDelta()
+        public final Timestamp watermark;
+
+        Delta(PayrollRegister changed, long[] deletedKeys, Timestamp watermark) {
+            this.changed = changed;
+            this.deletedKeys = deletedKeys;
+            this.watermark = watermark;
+        }
+    }
+
+    // Database clock, used as the watermark of a load. It is read before the
+    // rows and the next delta reads WATERMARK_LAG_MILLIS further back, so
+    // anything changed or committed late while they are read is fetched again;
+    // merging a row twice is harmless.
+    public static Timestamp currentTimestamp(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(NOW_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    // Reads the period's rows changed and keys deleted since the watermark
+    // (less the lag), both in one read-only transaction so they come from the
+    // same snapshot
+    public static Delta readDelta(Connection conn, Timestamp since, YearMonth period) throws SQLException {
+        Timestamp from = new Timestamp(since.getTime() - WATERMARK_LAG_MILLIS);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            Timestamp watermark = currentTimestamp(conn);
+            PayrollRegister changed = new PayrollRegister(16);
+            try (PreparedStatement ps = conn.prepareStatement(CHANGED_SINCE_SQL)) {
+                bindPeriod(ps, 1, period);
+                ps.setTimestamp(3, from);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        readVersionedRow(rs, changed);
+                    }
+                }
+            }
+            long[] deleted = new long[16];
+            int deletedCount = 0;
+            try (PreparedStatement ps = conn.prepareStatement(DELETED_SINCE_SQL)) {
+                bindPeriod(ps, 1, period);
+                ps.setTimestamp(3, from);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (deletedCount == deleted.length) {
+                            deleted = Arrays.copyOf(deleted, deletedCount * 2);
+                        }
+                        deleted[deletedCount++] = ChangeTracker.keyOf(rs.getInt(1),
+                            (int) rs.getDate(2).toLocalDate().toEpochDay());
+                    }
+                }
+            }
+            conn.commit();
+            return new Delta(changed, Arrays.copyOf(deleted, deletedCount), watermark);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Month of the most recent payment date, or the current month for an empty table
+    public static YearMonth latestPeriod(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(LATEST_DATE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            java.sql.Date latest = rs.next() ? rs.getDate(1) : null;
+            return latest != null ? YearMonth.from(latest.toLocalDate()) : YearMonth.now();
+        }
+    }
+
+    public static int countRows(Connection conn, YearMonth period) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(COUNT_SQL)) {
+            bindPeriod(ps, 1, period);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // Forward-only select of one period that streams rows instead of
+    // buffering the full result. MySQL Connector/J only streams with a fetch
+    // size of Integer.MIN_VALUE; other drivers take a regular fetch size.
+    public static PreparedStatement prepareStreamingSelect(Connection conn, YearMonth period) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(SELECT_SQL,
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        bindPeriod(ps, 1, period);
+        boolean mysql = conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        ps.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+        return ps;
+    }
+
+    // Like readRow, for selects of VERSIONED_COLUMN_LIST
+    public static int readVersionedRow(ResultSet rs, PayrollRegister register) throws SQLException {
+        int row = readRow(rs, register);
+        register.setVersion(row, rs.getInt(PayrollColumns.COUNT + 1));
+        return row;
+    }
+
+    // Appends the current result set row (columns in COLUMN_LIST order) to the register
+    public static int readRow(ResultSet rs, PayrollRegister register) throws SQLException {
+        int row = register.addRow();
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            int index = col + 1;
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    BigDecimal value = rs.getBigDecimal(index);
+                    register.setCents(row, col, value == null ? 0 : Money.fromBigDecimal(value));
+                    break;
+                case INTEGER:
+                    register.setInt(row, col, rs.getInt(index));
+                    break;
+                case DATE:
+                    java.sql.Date date = rs.getDate(index);
+                    if (date != null) {
+                        register.setEpochDay(row, (int) date.toLocalDate().toEpochDay());
+                    }
+                    break;
+                default:
+                    register.setText(row, col, rs.getString(index));
+                    break;
+            }
+        }
+        return row;
+    }
+
+    // Writes only new, changed and deleted rows in one transaction.
+    // Updated rows are grouped by their set of changed columns so each group
+    // gets a narrow "UPDATE ... SET changed columns" batch.
+    // Writes are optimistic: updates and deletes only match the row_version
+    // the row was read with, and inserts fail on an existing ID. Rows that
+    // lose are reported as conflicts and left out; the rest is committed and
+    // the versions in the register are advanced. With autoMerge, a row changed
+    // by someone else in other input columns than ours is merged (their
+    // values plus our edits, derived columns recalculated) and written.
+    public static SubmitResult submitChanges(Connection conn, PayrollRegister register,
+            ChangeTracker changes) throws SQLException {
+        return submitChanges(conn, register, changes, false);
+    }
+
+    public static SubmitResult submitChanges(Connection conn, PayrollRegister register,
+            ChangeTracker changes, boolean autoMerge) throws SQLException {
+        long start = System.nanoTime();
+        List<Integer> insertedRows = new ArrayList<>();
+        Map<Integer, List<Integer>> updatesByColumns = new LinkedHashMap<>();
+        for (int row = 0; row < register.getRowCount(); row++) {
+            if (changes.isInserted(row)) {
+                insertedRows.add(row);
+            } else if (changes.isDirty(row)) {
+                updatesByColumns.computeIfAbsent(changes.getDirtyColumns(row), k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        BitSet rejected = new BitSet();
+        BitSet written = new BitSet();
+        PayrollRegister merged = new PayrollRegister(4);
+        List<Integer> mergedRows = new ArrayList<>();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            int deleted = deleteRows(conn, changes, conflicts);
+            int updated = 0;
+            List<Integer> stale = new ArrayList<>();
+            for (Map.Entry<Integer, List<Integer>> group : updatesByColumns.entrySet()) {
+                updated += updateRows(conn, register, changes, group.getKey(), group.getValue(), written, stale);
+            }
+            for (int row : stale) {
+                if (mergeStaleRow(conn, register, changes, row, autoMerge, merged, conflicts)) {
+                    mergedRows.add(row);
+                } else {
+                    rejected.set(row);
+                }
+            }
+            int inserted = insertRows(conn, register, insertedRows, written, rejected, conflicts);
+            conn.commit();
+
+            // The database now holds these versions
+            for (int row = written.nextSetBit(0); row >= 0; row = written.nextSetBit(row + 1)) {
+                register.setVersion(row, changes.isInserted(row) ? 0 : register.getVersion(row) + 1);
+            }
+            SubmitResult result = new SubmitResult(inserted, updated, deleted, conflicts, rejected, merged,
+                mergedRows.stream().mapToInt(Integer::intValue).toArray());
+            PayrollMetrics.SUBMIT.record(start, result.total());
+            return result;
+        } catch (SQLException e) {
+            PayrollMetrics.SUBMIT.recordFailure(start);
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static int deleteRows(Connection conn, ChangeTracker changes, List<Conflict> conflicts)
+            throws SQLException {
+        if (changes.getDeletedCount() == 0) {
+            return 0;
+        }
+        int[] counts;
+        try (PreparedStatement ps = conn.prepareStatement(VERSIONED_DELETE_SQL)) {
+            for (int i = 0; i < changes.getDeletedCount(); i++) {
+                bindKey(ps, 1, changes.getDeletedKey(i));
+                ps.setInt(3, changes.getDeletedVersion(i));
+                ps.addBatch();
+            }
+            counts = ps.executeBatch();
+        }
+        int deleted = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                deleted++;
+            } else if (readCurrentRow(conn, changes.getDeletedKey(i)) != null) {
+                conflicts.add(new Conflict(Conflict.Kind.DELETE_OF_CHANGED_ROW, -1, changes.getDeletedKey(i), 0));
+            } // else someone else already deleted it
+        }
+        return deleted;
+    }
+
+    // Conditional update of one column group; rows whose version no longer
+    // matches are added to stale
+    private static int updateRows(Connection conn, PayrollRegister register, ChangeTracker changes,
+            int columnMask, List<Integer> rows, BitSet written, List<Integer> stale) throws SQLException {
+        int[] columns = columnsOf(columnMask);
+        int[] counts;
+        try (PreparedStatement ps = conn.prepareStatement(buildUpdateSql(columnMask))) {
+            for (int row : rows) {
+                for (int i = 0; i < columns.length; i++) {
+                    bind(ps, i + 1, register, row, columns[i]);
+                }
+                bindKey(ps, columns.length + 1, changes.getKey(row));
+                ps.setInt(columns.length + 3, register.getVersion(row));
+                ps.addBatch();
+            }
+            counts = ps.executeBatch();
+        }
+        int updated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                stale.add(rows.get(i));
+            } else {
+                written.set(rows.get(i));
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    // A stale update: reports the conflict, or merges and writes the row when
+    // autoMerge is on and the two sides changed different input columns
+    private static boolean mergeStaleRow(Connection conn, PayrollRegister register, ChangeTracker changes,
+            int row, boolean autoMerge, PayrollRegister merged, List<Conflict> conflicts) throws SQLException {
+        long key = changes.getKey(row);
+        PayrollRegister current = readCurrentRow(conn, key); // Locked until commit
+        if (current == null) {
+            conflicts.add(new Conflict(Conflict.Kind.DELETED_BY_OTHERS, row, key, 0));
+            return false;
+        }
+
+        // Columns both sides changed to different values
+        int ours = changes.getDirtyColumns(row);
+        int baseRow = changes.getBaseRow(key);
+        int clash = 0;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            boolean theirs = baseRow < 0 || !current.cellEquals(0, col, changes.getBases(), baseRow);
+            if ((ours & (1 << col)) != 0 && theirs && !current.cellEquals(0, col, register, row)) {
+                clash |= 1 << col;
+            }
+        }
+        // Derived columns are recalculated after a merge, so only inputs can clash
+        clash &= ~PayrollCalculator.DERIVED_COLUMNS;
+        if (!autoMerge || baseRow < 0 || clash != 0) {
+            conflicts.add(new Conflict(Conflict.Kind.CHANGED_BY_OTHERS, row, key, clash != 0 ? clash : ours));
+            return false;
+        }
+
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if ((ours & ~PayrollCalculator.DERIVED_COLUMNS & (1 << col)) != 0) {
+                current.copyCell(0, col, register, row);
+            }
+        }
+        PayrollCalculator.calculateRow(current, 0);
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_ALL_SQL)) {
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                bind(ps, col + 1, current, 0, col);
+            }
+            bindKey(ps, PayrollColumns.COUNT + 1, key);
+            ps.setInt(PayrollColumns.COUNT + 3, current.getVersion(0));
+            if (ps.executeUpdate() == 0) {
+                conflicts.add(new Conflict(Conflict.Kind.CHANGED_BY_OTHERS, row, key, ours));
+                return false;
+            }
+        }
+        current.setVersion(0, current.getVersion(0) + 1);
+        merged.append(current);
+        return true;
+    }
+
+    // Current database row with its version, locked for the rest of the transaction; null if gone
+    private static PayrollRegister readCurrentRow(Connection conn, long key) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_ONE_SQL)) {
+            bindKey(ps, 1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                PayrollRegister row = new PayrollRegister(1);
+                readVersionedRow(rs, row);
+                return row;
+            }
+        }
+    }
+
+    // Plain inserts at version 0; an (ID, date) that already exists is a conflict
+    private static int insertRows(Connection conn, PayrollRegister register, List<Integer> rows,
+            BitSet written, BitSet rejected, List<Conflict> conflicts) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int[] counts;
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            for (int row : rows) {
+                for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                    bind(ps, col + 1, register, row, col);
+                }
+                ps.addBatch();
+            }
+            try {
+                counts = ps.executeBatch();
+            } catch (BatchUpdateException e) {
+                counts = e.getUpdateCounts();
+                if (counts.length < rows.size()) {
+                    throw e; // The driver stopped at the failure; nothing to attribute
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED
+                            && readCurrentRow(conn, ChangeTracker.keyOf(register, rows.get(i))) == null) {
+                        throw e; // Failed for another reason than a duplicate ID
+                    }
+                }
+            }
+        }
+        int inserted = 0;
+        for (int i = 0; i < counts.length; i++) {
+            int row = rows.get(i);
+            if (counts[i] == Statement.EXECUTE_FAILED) {
+                rejected.set(row);
+                conflicts.add(new Conflict(Conflict.Kind.DUPLICATE_ID, row, ChangeTracker.keyOf(register, row), 0));
+            } else {
+                written.set(row);
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    // Bulk insert-or-overwrite for batch jobs and imports. Rows go out as
+    // multi-row INSERT ... ON DUPLICATE KEY UPDATE statements of
+    // UPSERT_ROWS_PER_STATEMENT rows (the rewrite Connector/J does with
+    // rewriteBatchedStatements, done here so it works with any driver and
+    // leaves the per-row update counts of submitChanges alone), executed in
+    // JDBC batches of about batchSize rows and committed every commitRows
+    // rows, so a long run holds neither one huge transaction nor a commit per
+    // row. Returns the rows written.
+    public static int upsertRows(Connection conn, PayrollRegister register, int[] rows, int batchSize,
+            int commitRows) throws SQLException {
+        return upsertRows(conn, register, rows, rows.length, batchSize, commitRows);
+    }
+
+    // Same for the first count entries of rows
+    public static int upsertRows(Connection conn, PayrollRegister register, int[] rows, int count, int batchSize,
+            int commitRows) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        int written = 0;
+        try (PreparedStatement multi = conn.prepareStatement(MULTI_UPSERT_SQL);
+             PreparedStatement single = conn.prepareStatement(UPSERT_SQL)) {
+            int batched = 0;
+            int uncommitted = 0;
+            int next = 0;
+            for (; next + UPSERT_ROWS_PER_STATEMENT <= count; next += UPSERT_ROWS_PER_STATEMENT) {
+                int index = 1;
+                for (int i = next; i < next + UPSERT_ROWS_PER_STATEMENT; i++) {
+                    for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                        bind(multi, index++, register, rows[i], col);
+                    }
+                }
+                multi.addBatch();
+                batched += UPSERT_ROWS_PER_STATEMENT;
+                if (batched >= batchSize) {
+                    multi.executeBatch();
+                    written += batched;
+                    uncommitted += batched;
+                    batched = 0;
+                    if (uncommitted >= commitRows) {
+                        conn.commit();
+                        uncommitted = 0;
+                    }
+                }
+            }
+            if (batched > 0) {
+                multi.executeBatch();
+                written += batched;
+            }
+            // The tail that does not fill a multi-row statement
+            if (next < count) {
+                for (int i = next; i < count; i++) {
+                    for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                        bind(single, col + 1, register, rows[i], col);
+                    }
+                    single.addBatch();
+                }
+                single.executeBatch();
+                written += count - next;
+            }
+            conn.commit();
+            return written;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Writes back the calculated columns of rows read from the database (the
+    // batch pay run). Unlike upsertRows, each update only matches the
+    // row_version the row was read with and leaves the input columns alone:
+    // a row someone changed or deleted since the read is not overwritten with
+    // amounts computed from its old inputs but reported as a conflict. The
+    // versions in the register are not advanced. Batched and committed like
+    // upsertRows; the result counts the rows written as updated.
+    public static SubmitResult updateDerivedColumns(Connection conn, PayrollRegister register, int[] rows,
+            int batchSize, int commitRows) throws SQLException {
+        int[] columns = columnsOf(PayrollCalculator.DERIVED_COLUMNS);
+        List<Conflict> conflicts = new ArrayList<>();
+        BitSet rejected = new BitSet();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        int written = 0;
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_DERIVED_SQL)) {
+            int uncommitted = 0;
+            for (int from = 0; from < rows.length; from += batchSize) {
+                int to = Math.min(rows.length, from + batchSize);
+                for (int i = from; i < to; i++) {
+                    for (int c = 0; c < columns.length; c++) {
+                        bind(ps, c + 1, register, rows[i], columns[c]);
+                    }
+                    bindKey(ps, columns.length + 1, ChangeTracker.keyOf(register, rows[i]));
+                    ps.setInt(columns.length + 3, register.getVersion(rows[i]));
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    int row = rows[from + i];
+                    if (counts[i] != 0) {
+                        written++;
+                        continue;
+                    }
+                    long key = ChangeTracker.keyOf(register, row);
+                    Conflict.Kind kind = readCurrentRow(conn, key) != null
+                        ? Conflict.Kind.CHANGED_BY_OTHERS : Conflict.Kind.DELETED_BY_OTHERS;
+                    conflicts.add(new Conflict(kind, row, key, 0));
+                    rejected.set(row);
+                }
+                uncommitted += to - from;
+                if (uncommitted >= commitRows) {
+                    conn.commit();
+                    uncommitted = 0;
+                }
+            }
+            conn.commit();
+            return new SubmitResult(0, written, 0, conflicts, rejected, new PayrollRegister(1), new int[0]);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Binds id and payment_date of a key (KEY_WHERE order)
+    static void bindKey(PreparedStatement ps, int index, long key) throws SQLException {
+        ps.setInt(index, ChangeTracker.keyId(key));
+        ps.setDate(index + 1, java.sql.Date.valueOf(LocalDate.ofEpochDay(ChangeTracker.keyEpochDay(key))));
+    }
+
+    // Binds [first day of the month, first day of the next) (PERIOD_WHERE order)
+    private static void bindPeriod(PreparedStatement ps, int index, YearMonth period) throws SQLException {
+        ps.setDate(index, java.sql.Date.valueOf(period.atDay(1)));
+        ps.setDate(index + 1, java.sql.Date.valueOf(period.plusMonths(1).atDay(1)));
+    }
+
+    // Typed parameter binding straight from the columnar arrays
+    static void bind(PreparedStatement ps, int index, PayrollRegister register, int row, int col)
+            throws SQLException {
+        switch (PayrollColumns.kindOf(col)) {
+            case DECIMAL:
+                ps.setBigDecimal(index, Money.toBigDecimal(register.getCents(row, col)));
+                break;
+            case INTEGER:
+                ps.setInt(index, register.getInt(row, col));
+                break;
+            case DATE:
+                if (register.hasPaymentDate(row)) {
+                    ps.setDate(index, java.sql.Date.valueOf(LocalDate.ofEpochDay(register.getEpochDay(row))));
+                } else {
+                    ps.setNull(index, Types.DATE);
+                }
+                break;
+            default:
+                ps.setString(index, register.getText(row, col));
+                break;
+        }
+    }
+
+    private static String buildColumnList() {
+        StringBuilder columns = new StringBuilder();
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (col > 0) {
+                columns.append(", ");
+            }
+            columns.append(PayrollColumns.dbName(col));
+        }
+        return columns.toString();
+    }
+
+    private static int[] columnsOf(int columnMask) {
+        int[] columns = new int[Integer.bitCount(columnMask)];
+        int n = 0;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if ((columnMask & (1 << col)) != 0) {
+                columns[n++] = col;
+            }
+        }
+        return columns;
+    }
+
+    // UPDATE of the given columns that only matches the expected version
+    private static String buildUpdateSql(int columnMask) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(TABLE).append(" SET ");
+        for (int col : columnsOf(columnMask)) {
+            sql.append(PayrollColumns.dbName(col)).append(" = ?, ");
+        }
+        return sql.append("row_version = row_version + 1").append(KEY_WHERE).append(" AND row_version = ?").toString();
+    }
+
+    private static String buildInsertSql() {
+        StringBuilder values = new StringBuilder();
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            values.append(col > 0 ? ", ?" : "?");
+        }
+        return "INSERT INTO " + TABLE + " (" + VERSIONED_COLUMN_LIST + ") VALUES (" + values + ", 0)";
+    }
+
+    // Unconditional insert-or-overwrite, used to replay the offline journal
+    private static String buildUpsertSql(int rows) {
+        StringBuilder values = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            values.append(col > 0 ? ", ?" : "(?");
+            if (col != PayrollColumns.PAYMENT_DATE && col != PayrollColumns.ID) {
+                String name = PayrollColumns.dbName(col);
+                if (updates.length() > 0) {
+                    updates.append(", ");
+                }
+                updates.append(name).append("=VALUES(").append(name).append(')');
+            }
+        }
+        values.append(')');
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(TABLE).append(" (").append(COLUMN_LIST)
+            .append(") VALUES ").append(values);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", ").append(values);
+        }
+        return sql.append(" ON DUPLICATE KEY UPDATE ").append(updates)
+            .append(", row_version = row_version + 1").toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.payroll.db;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Search criteria from the header fields, translated into a SQL WHERE clause.
+// Dates given as yyyy-MM-dd, yyyy-MM or yyyy become ranges so the
+// payment_date index can be used.
+public class RegisterFilter {
+    public static final RegisterFilter NONE = new RegisterFilter(null, null, null);
+
+    private final String text;
+    private final String id;
+    private final String date;
+
+    public RegisterFilter(String text, String id, String date) {
+        this.text = blankToNull(text);
+        this.id = blankToNull(id);
+        this.date = blankToNull(date);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public boolean isEmpty() {
+        return text == null && id == null && date == null;
+    }
+
+    // Appends " WHERE ..." (or nothing) and collects the bind parameters
+    void appendWhere(StringBuilder sql, List<Object> params) {
+        String keyword = " WHERE ";
+        if (text != null) {
+            String pattern = "%" + escapeLike(text) + "%";
+            sql.append(keyword).append("(employee_name LIKE ? OR CAST(id AS CHAR(20)) LIKE ? ")
+                .append("OR CAST(payment_date AS CHAR(10)) LIKE ? OR status LIKE ?)");
+            for (int i = 0; i < 4; i++) {
+                params.add(pattern);
+            }
+            keyword = " AND ";
+        }
+        if (id != null) {
+            try {
+                params.add(Integer.parseInt(id));
+                sql.append(keyword).append("id = ?");
+            } catch (NumberFormatException e) {
+                params.add("%" + escapeLike(id) + "%");
+                sql.append(keyword).append("CAST(id AS CHAR(20)) LIKE ?");
+            }
+            keyword = " AND ";
+        }
+        if (date != null) {
+            LocalDate[] range = dateRange(date);
+            if (range != null) {
+                sql.append(keyword).append("payment_date >= ? AND payment_date < ?");
+                params.add(java.sql.Date.valueOf(range[0]));
+                params.add(java.sql.Date.valueOf(range[1]));
+            } else {
+                sql.append(keyword).append("CAST(payment_date AS CHAR(10)) LIKE ?");
+                params.add("%" + escapeLike(date) + "%");
+            }
+        }
+    }
+
+    // [from, to) for a full date, a month or a year; null for anything else
+    public static LocalDate[] dateRange(String value) {
+        try {
+            if (value.length() == 10) {
+                LocalDate day = LocalDate.parse(value);
+                return new LocalDate[] {day, day.plusDays(1)};
+            }
+            if (value.length() == 7) {
+                YearMonth month = YearMonth.parse(value);
+                return new LocalDate[] {month.atDay(1), month.plusMonths(1).atDay(1)};
+            }
+            if (value.length() == 4 && value.chars().allMatch(Character::isDigit)) {
+                LocalDate year = LocalDate.of(Integer.parseInt(value), 1, 1);
+                return new LocalDate[] {year, year.plusYears(1)};
+            }
+        } catch (DateTimeParseException e) {
+            // Fall through to a plain text match
+        }
+        return null;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
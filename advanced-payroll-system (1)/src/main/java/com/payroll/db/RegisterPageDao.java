@@ -0,0 +1,173 @@
+package com.payroll.db;
+
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-size windows of payroll_register for virtual scrolling.
+// Pages are read with keyset pagination on (sort column, payment_date, id):
+// the next page starts after the last key of the previous one, so the
+// database seeks through the index instead of skipping OFFSET rows.
+// OFFSET is only used when jumping to a page with no known neighbour.
+public class RegisterPageDao {
+    private final RegisterFilter filter;
+    private final int sortColumn;
+    private final boolean ascending;
+    private final int[] keyColumns;
+
+    // sortColumn -1 means the natural (payment_date, id) order
+    public RegisterPageDao(RegisterFilter filter, int sortColumn, boolean ascending) {
+        this.filter = filter;
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        if (sortColumn < 0 || sortColumn == PayrollColumns.PAYMENT_DATE) {
+            keyColumns = new int[] {PayrollColumns.PAYMENT_DATE, PayrollColumns.ID};
+        } else if (sortColumn == PayrollColumns.ID) {
+            keyColumns = new int[] {PayrollColumns.ID, PayrollColumns.PAYMENT_DATE};
+        } else {
+            keyColumns = new int[] {sortColumn, PayrollColumns.PAYMENT_DATE, PayrollColumns.ID};
+        }
+    }
+
+    public int count(Connection conn) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(RegisterDao.TABLE);
+        List<Object> params = new ArrayList<>();
+        filter.appendWhere(sql, params);
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            bindAll(ps, params, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // Rows following afterKey (null = from the start)
+    public PayrollRegister fetchAfter(Connection conn, Object[] afterKey, int limit) throws SQLException {
+        return fetch(conn, afterKey, true, 0, limit);
+    }
+
+    // The limit rows just before beforeKey, returned in display order
+    public PayrollRegister fetchBefore(Connection conn, Object[] beforeKey, int limit) throws SQLException {
+        return fetch(conn, beforeKey, false, 0, limit);
+    }
+
+    public PayrollRegister fetchAtOffset(Connection conn, long offset, int limit) throws SQLException {
+        return fetch(conn, null, true, offset, limit);
+    }
+
+    // Keyset values of a row, in the same order as the ORDER BY
+    public Object[] keyOf(PayrollRegister rows, int row) {
+        Object[] key = new Object[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            int col = keyColumns[i];
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    key[i] = Money.toBigDecimal(rows.getCents(row, col));
+                    break;
+                case INTEGER:
+                    key[i] = rows.getInt(row, col);
+                    break;
+                case DATE:
+                    key[i] = java.sql.Date.valueOf(LocalDate.ofEpochDay(rows.getEpochDay(row)));
+                    break;
+                default:
+                    String text = rows.getText(row, col);
+                    key[i] = text == null ? "" : text;
+                    break;
+            }
+        }
+        return key;
+    }
+
+    private PayrollRegister fetch(Connection conn, Object[] key, boolean forward, long offset, int limit)
+            throws SQLException {
+        // Reading backwards flips the sort and reverses the rows afterwards
+        boolean descending = ascending != forward;
+        StringBuilder sql = new StringBuilder("SELECT ").append(RegisterDao.COLUMN_LIST)
+            .append(" FROM ").append(RegisterDao.TABLE);
+        List<Object> params = new ArrayList<>();
+        filter.appendWhere(sql, params);
+
+        if (key != null) {
+            sql.append(params.isEmpty() ? " WHERE (" : " AND (");
+            for (int i = 0; i < keyColumns.length; i++) {
+                sql.append(i > 0 ? ", " : "").append(keyExpression(keyColumns[i]));
+            }
+            sql.append(descending ? ") < (" : ") > (");
+            for (int i = 0; i < keyColumns.length; i++) {
+                sql.append(i > 0 ? ", ?" : "?");
+                params.add(key[i]);
+            }
+            sql.append(')');
+        }
+
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < keyColumns.length; i++) {
+            sql.append(i > 0 ? ", " : "").append(keyExpression(keyColumns[i]))
+                .append(descending ? " DESC" : " ASC");
+        }
+        sql.append(" LIMIT ?");
+        params.add(limit);
+        if (offset > 0) {
+            sql.append(" OFFSET ?");
+            params.add(offset);
+        }
+
+        PayrollRegister rows = new PayrollRegister(limit);
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            bindAll(ps, params, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    RegisterDao.readRow(rs, rows);
+                }
+            }
+        }
+        if (!forward) {
+            PayrollRegister reversed = new PayrollRegister(rows.getRowCount());
+            for (int row = rows.getRowCount() - 1; row >= 0; row--) {
+                reversed.append(rows, row, 1);
+            }
+            return reversed;
+        }
+        return rows;
+    }
+
+    // Nullable sort columns are coalesced so row-value comparison stays well defined
+    private static String keyExpression(int col) {
+        String name = PayrollColumns.dbName(col);
+        if (col == PayrollColumns.PAYMENT_DATE || col == PayrollColumns.ID
+                || col == PayrollColumns.EMPLOYEE_NAME) {
+            return name;
+        }
+        return PayrollColumns.kindOf(col) == PayrollColumns.Kind.TEXT
+            ? "COALESCE(" + name + ", '')" : "COALESCE(" + name + ", 0)";
+    }
+
+    // Typed binding for the parameter types the filter and keyset produce
+    private static void bindAll(PreparedStatement ps, List<Object> params, int first) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object param = params.get(i);
+            int index = first + i;
+            if (param instanceof BigDecimal) {
+                ps.setBigDecimal(index, (BigDecimal) param);
+            } else if (param instanceof Integer) {
+                ps.setInt(index, (Integer) param);
+            } else if (param instanceof Long) {
+                ps.setLong(index, (Long) param);
+            } else if (param instanceof java.sql.Date) {
+                ps.setDate(index, (java.sql.Date) param);
+            } else {
+                ps.setString(index, (String) param);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.payroll.export;
+
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+// Writes the register as UTF-8 CSV with database column names in the header,
+// the format CsvRegisterReader reads back. Amounts are plain "1234.50", dates
+// yyyy-MM-dd; text is quoted only when it contains a comma, quote or line
+// break. Rows are formatted into one reused buffer, so output is streamed
+// whatever the row count.
+public class CsvRegisterExporter implements RegisterExporter {
+    private static final int PROGRESS_ROWS = 10_000;
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    @Override
+    public int export(PayrollRegister register, OutputStream out, IntConsumer progress,
+                      BooleanSupplier cancelled) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        StringBuilder line = new StringBuilder(256);
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            line.append(col > 0 ? "," : "").append(PayrollColumns.dbName(col));
+        }
+        writer.append(line).append('\n');
+
+        int written = 0;
+        int rows = register.getRowCount();
+        for (int row = 0; row < rows; row++) {
+            line.setLength(0);
+            appendRow(line, register, row);
+            writer.append(line).append('\n');
+            written++;
+            if (written % PROGRESS_ROWS == 0) {
+                progress.accept(written);
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+            }
+        }
+        writer.flush();
+        progress.accept(written);
+        return written;
+    }
+
+    static void appendRow(StringBuilder line, PayrollRegister register, int row) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (col > 0) {
+                line.append(',');
+            }
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    Money.appendTo(line, register.getCents(row, col), false);
+                    break;
+                case INTEGER:
+                    line.append(register.getInt(row, col));
+                    break;
+                case DATE:
+                    if (register.hasPaymentDate(row)) {
+                        line.append(LocalDate.ofEpochDay(register.getEpochDay(row)));
+                    }
+                    break;
+                default:
+                    appendText(line, register.getText(row, col));
+                    break;
+            }
+        }
+    }
+
+    private static void appendText(StringBuilder line, String text) {
+        if (text == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append("\"\"");
+            } else {
+                line.append(c == '\n' || c == '\r' ? ' ' : c); // The reader takes one line per row
+            }
+        }
+        line.append('"');
+    }
+}
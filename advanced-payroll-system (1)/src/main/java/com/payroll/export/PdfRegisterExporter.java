@@ -0,0 +1,161 @@
+package com.payroll.export;
+
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+// Writes the payroll register report as a PDF, streaming the table.
+// The table is marked incomplete and added to the document every CHUNK_ROWS
+// rows; iText then lays out and writes the finished pages and drops their
+// rows, so memory stays bounded by one chunk whatever the row count. The
+// header row repeats on every page. Fonts and colours are created once, and
+// the fonts are built on a cached BaseFont: a Font created from a family name
+// re-parses the Helvetica metrics every time a cell is measured.
+public class PdfRegisterExporter implements RegisterExporter {
+    private static final int CHUNK_ROWS = 500;
+
+    private static final BaseFont HELVETICA = baseFont(BaseFont.HELVETICA);
+    private static final BaseFont HELVETICA_BOLD = baseFont(BaseFont.HELVETICA_BOLD);
+    private static final Font TITLE_FONT = new Font(HELVETICA_BOLD, 18);
+    private static final Font HEADER_FONT = new Font(HELVETICA_BOLD, 8);
+    private static final Font CELL_FONT = new Font(HELVETICA, 7);
+    private static final BaseColor GROSS_PAY_COLOR = new BaseColor(59, 130, 246, 50);
+    private static final BaseColor DEDUCTIONS_COLOR = new BaseColor(254, 226, 226);
+    private static final BaseColor NET_PAY_COLOR = new BaseColor(34, 197, 94, 50);
+
+    private final String[] columnNames;
+
+    public PdfRegisterExporter(String[] columnNames) {
+        this.columnNames = columnNames.clone();
+    }
+
+    @Override
+    public int export(PayrollRegister register, OutputStream out, IntConsumer progress,
+                      BooleanSupplier cancelled) throws IOException {
+        long start = System.nanoTime();
+        Document document = new Document(PageSize.A4.rotate());
+        int written = 0;
+        boolean completed = false;
+        try {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            Paragraph title = new Paragraph("PAYROLL REGISTER REPORT", TITLE_FONT);
+            title.setAlignment(Element.ALIGN_CENTER);
+            document.add(title);
+
+            document.add(new Paragraph(" ")); // Space
+
+            Paragraph date = new Paragraph("Generated on: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+            date.setAlignment(Element.ALIGN_RIGHT);
+            document.add(date);
+
+            document.add(new Paragraph(" ")); // Space
+
+            PdfPTable table = new PdfPTable(columnNames.length);
+            table.setWidthPercentage(100);
+            table.setWidths(relativeWidths());
+            table.setHeaderRows(1);
+            table.setComplete(false);
+
+            for (String columnName : columnNames) {
+                PdfPCell cell = new PdfPCell(new Phrase(columnName, HEADER_FONT));
+                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                table.addCell(cell);
+            }
+
+            int rows = register.getRowCount();
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columnNames.length; col++) {
+                    Object value = register.getValue(row, col);
+                    PdfPCell cell = new PdfPCell(new Phrase(value != null ? value.toString() : "", CELL_FONT));
+                    BaseColor background = backgroundOf(col);
+                    if (background != null) {
+                        cell.setBackgroundColor(background);
+                    }
+                    table.addCell(cell);
+                }
+                written++;
+
+                if (written % CHUNK_ROWS == 0) {
+                    document.add(table); // Flushes the rows laid out so far
+                    progress.accept(written);
+                    if (cancelled.getAsBoolean()) {
+                        break;
+                    }
+                }
+            }
+
+            table.setComplete(true);
+            document.add(table);
+            progress.accept(written);
+            completed = true;
+        } catch (DocumentException e) {
+            throw new IOException("Could not write PDF report: " + e.getMessage(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+            if (completed) {
+                PayrollMetrics.PDF_EXPORT.record(start, written);
+            } else {
+                PayrollMetrics.PDF_EXPORT.recordFailure(start);
+            }
+        }
+        return written;
+    }
+
+    // Wider date and name columns keep those cells on one line; every
+    // wrapped cell doubles the row height and the layout work for the row
+    private float[] relativeWidths() {
+        float[] widths = new float[columnNames.length];
+        for (int col = 0; col < widths.length; col++) {
+            widths[col] = 1f;
+        }
+        widths[PayrollColumns.PAYMENT_DATE] = 1.5f;
+        widths[PayrollColumns.ID] = 0.8f;
+        widths[PayrollColumns.EMPLOYEE_NAME] = 2.2f;
+        return widths;
+    }
+
+    private static BaseFont baseFont(String name) {
+        try {
+            return BaseFont.createFont(name, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        } catch (DocumentException | IOException e) {
+            throw new UncheckedIOException(new IOException("Built-in font " + name + " unavailable", e));
+        }
+    }
+
+    private static BaseColor backgroundOf(int col) {
+        switch (col) {
+            case PayrollColumns.GROSS_PAY:
+                return GROSS_PAY_COLOR;
+            case PayrollColumns.TOTAL_DEDUCTIONS:
+                return DEDUCTIONS_COLOR;
+            case PayrollColumns.NET_PAY:
+                return NET_PAY_COLOR;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.payroll.export;
+
+import com.payroll.model.PayrollRegister;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+// A report format the register can be written in
+public interface RegisterExporter {
+    // Writes every row of the register. progress receives the number of rows
+    // written so far; when cancelled returns true the export stops early and
+    // the output is closed as it stands. Returns the rows written.
+    int export(PayrollRegister register, OutputStream out, IntConsumer progress,
+               BooleanSupplier cancelled) throws IOException;
+}
@@ -0,0 +1,190 @@
+package com.payroll.export;
+
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+// Writes the payroll register as an Excel workbook using POI's streaming
+// SXSSF API: only the last ROW_WINDOW rows are kept in memory, older rows are
+// flushed to a compressed temp file, so memory stays constant whatever the
+// row count. Amounts are numeric cells with an accounting format, dates are
+// real Excel dates. Every cell style is created once up front - a workbook
+// can only hold 64000 styles, and one per cell would also cost memory.
+public class XlsxRegisterExporter implements RegisterExporter {
+    private static final int ROW_WINDOW = 100;
+    private static final int PROGRESS_ROWS = 1_000;
+    private static final String MONEY_FORMAT = "_(* #,##0.00_);_(* (#,##0.00);_(* \"-\"??_);_(@_)";
+    private static final String NUMBER_FORMAT = "0.00";
+    private static final String DATE_FORMAT = "yyyy-mm-dd";
+
+    private final String[] columnNames;
+
+    public XlsxRegisterExporter(String[] columnNames) {
+        this.columnNames = columnNames.clone();
+    }
+
+    @Override
+    public int export(PayrollRegister register, OutputStream out, IntConsumer progress,
+                      BooleanSupplier cancelled) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        int written = 0;
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Payroll Register");
+            CellStyle[] styles = createColumnStyles(workbook);
+
+            Row header = sheet.createRow(0);
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            for (int col = 0; col < columnNames.length; col++) {
+                Cell cell = header.createCell(col);
+                cell.setCellValue(columnNames[col]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(col, columnWidth(col));
+            }
+            sheet.createFreezePane(0, 1);
+
+            int rows = register.getRowCount();
+            for (int row = 0; row < rows; row++) {
+                writeRow(register, row, sheet.createRow(row + 1), styles);
+                written++;
+                if (written % PROGRESS_ROWS == 0) {
+                    progress.accept(written);
+                    if (cancelled.getAsBoolean()) {
+                        break;
+                    }
+                }
+            }
+            if (rows > 0) {
+                sheet.setAutoFilter(new CellRangeAddress(0, written, 0, columnNames.length - 1));
+            }
+
+            workbook.write(out);
+            progress.accept(written);
+        } finally {
+            workbook.dispose(); // Deletes the temp file
+            workbook.close();
+        }
+        return written;
+    }
+
+    private void writeRow(PayrollRegister register, int row, Row target, CellStyle[] styles) {
+        for (int col = 0; col < columnNames.length; col++) {
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL: {
+                    Cell cell = target.createCell(col);
+                    cell.setCellValue(Money.toDouble(register.getCents(row, col)));
+                    cell.setCellStyle(styles[col]);
+                    break;
+                }
+                case INTEGER: {
+                    Cell cell = target.createCell(col);
+                    cell.setCellValue(register.getInt(row, col));
+                    cell.setCellStyle(styles[col]);
+                    break;
+                }
+                case DATE:
+                    if (register.hasPaymentDate(row)) {
+                        Cell cell = target.createCell(col);
+                        cell.setCellValue(LocalDate.ofEpochDay(register.getEpochDay(row)));
+                        cell.setCellStyle(styles[col]);
+                    }
+                    break;
+                default: {
+                    String text = register.getText(row, col);
+                    if (text != null) {
+                        Cell cell = target.createCell(col);
+                        cell.setCellValue(text);
+                        cell.setCellStyle(styles[col]);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    // One shared style per column; the highlighted totals get a fill like the PDF report
+    private CellStyle[] createColumnStyles(SXSSFWorkbook workbook) {
+        DataFormat formats = workbook.createDataFormat();
+        CellStyle[] styles = new CellStyle[columnNames.length];
+        CellStyle text = workbook.createCellStyle();
+        CellStyle integer = workbook.createCellStyle();
+        integer.setDataFormat(formats.getFormat("0"));
+        CellStyle number = workbook.createCellStyle();
+        number.setDataFormat(formats.getFormat(NUMBER_FORMAT));
+        CellStyle date = workbook.createCellStyle();
+        date.setDataFormat(formats.getFormat(DATE_FORMAT));
+        CellStyle money = workbook.createCellStyle();
+        money.setDataFormat(formats.getFormat(MONEY_FORMAT));
+
+        for (int col = 0; col < styles.length; col++) {
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    styles[col] = isMoney(col) ? money : number;
+                    break;
+                case INTEGER:
+                    styles[col] = integer;
+                    break;
+                case DATE:
+                    styles[col] = date;
+                    break;
+                default:
+                    styles[col] = text;
+                    break;
+            }
+        }
+        styles[PayrollColumns.GROSS_PAY] = filled(workbook, money, IndexedColors.PALE_BLUE);
+        styles[PayrollColumns.TOTAL_DEDUCTIONS] = filled(workbook, money, IndexedColors.ROSE);
+        styles[PayrollColumns.NET_PAY] = filled(workbook, money, IndexedColors.LIGHT_GREEN);
+        return styles;
+    }
+
+    private static CellStyle createHeaderStyle(SXSSFWorkbook workbook) {
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(bold);
+        style.setWrapText(true);
+        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        return style;
+    }
+
+    private static CellStyle filled(SXSSFWorkbook workbook, CellStyle base, IndexedColors color) {
+        CellStyle style = workbook.createCellStyle();
+        style.cloneStyleFrom(base);
+        style.setFillForegroundColor(color.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        return style;
+    }
+
+    // Rates and hours are plain numbers, every other decimal column is an amount
+    private static boolean isMoney(int col) {
+        return col != PayrollColumns.BONUS_RATE && col != PayrollColumns.DEDUCTION_RATE
+            && col != PayrollColumns.OT_HOURS;
+    }
+
+    // Width in 1/256 of a character; autoSizeColumn would need every row in memory
+    private static int columnWidth(int col) {
+        if (col == PayrollColumns.EMPLOYEE_NAME) {
+            return 24 * 256;
+        }
+        return (col == PayrollColumns.ID ? 8 : 14) * 256;
+    }
+}
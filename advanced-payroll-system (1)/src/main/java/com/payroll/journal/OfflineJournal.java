@@ -0,0 +1,509 @@
+package com.payroll.journal;
+
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Append-only, memory-mapped journal of changes submitted while the database
+// is unreachable. Each submit is written as one transaction: its row records
+// followed by a COMMIT record. Records are framed as
+//   [int payload length][int CRC32 of payload][payload]
+// and a zero length marks the end of the log. The header holds the offset of
+// the first record not yet replayed; compact() moves it forward instead of
+// rewriting or truncating the file.
+// Appends are copied into the mapping on the writer thread; the caller waits
+// for the copy, so a full journal is reported to it. The mapping is forced
+// to disk at most every FSYNC_INTERVAL_MILLIS. On open, the log is scanned
+// and everything after the last intact COMMIT (a torn or partly written
+// transaction) is discarded, so a crash loses at most the submits of the
+// last fsync interval and never replays half a submit.
+public class OfflineJournal implements AutoCloseable {
+    public static final long FSYNC_INTERVAL_MILLIS = 200;
+
+    static final int MAGIC = 0x5041594A; // "PAYJ"
+    // 2: keys are (id, payment_date) longs, see ChangeTracker.keyOf
+    // 3: header [magic][version][start offset][reserved]
+    static final int VERSION = 3;
+    static final int HEADER_BYTES = 16;
+    static final int START_OFFSET = 8;
+    // Version 2 logs start right after [magic][version]; they are read as
+    // they are and get the version 3 header once drained
+    private static final int V2_HEADER_BYTES = 8;
+    static final int FRAME_BYTES = 8;
+    private static final int INITIAL_MAP_BYTES = 1 << 20;
+    private static final int MAX_MAP_BYTES = Integer.MAX_VALUE - 4096;
+
+    static final byte UPSERT = 1;
+    static final byte UPDATE = 2;
+    static final byte DELETE = 3;
+    static final byte COMMIT = 4;
+
+    // Receives the committed records in log order during replay
+    public interface Visitor {
+        // A new row, or one whose database key is its (ID, date): insert or overwrite
+        void upsert(PayrollRegister values, int row) throws SQLException;
+
+        // A stored row, possibly with a changed ID or date, identified by its old key
+        void update(long key, PayrollRegister values, int row) throws SQLException;
+
+        void delete(long key) throws SQLException;
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService writer;
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer map;
+    private int version = VERSION;
+    private int start = HEADER_BYTES;
+    private int position;
+    private int pendingRecords;
+    private int replayedEnd = HEADER_BYTES;
+    private int replayedRecords;
+    private boolean dirty;
+
+    private OfflineJournal(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "payroll-journal");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Opens (creating if needed) and recovers the journal at the given path
+    public static OfflineJournal open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        OfflineJournal journal = new OfflineJournal(file, channel);
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        journal.writer.scheduleWithFixedDelay(journal::forceIfDirty,
+            FSYNC_INTERVAL_MILLIS, FSYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Committed row records not yet replayed into the database
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized boolean hasPendingRecords() {
+        return pendingRecords > 0;
+    }
+
+    // Appends a transaction and waits until it is in the mapping; the caller
+    // decides when to force(). Only mark the changes as saved once this returned.
+    public void append(Transaction transaction) throws IOException {
+        byte[] bytes = transaction.commit();
+        int records = transaction.getRecordCount();
+        Future<?> written = writer.submit(() -> {
+            append(bytes, records);
+            return null;
+        });
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while appending to the journal");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private synchronized void append(byte[] bytes, int records) throws IOException {
+        ensureMapped(position + bytes.length + FRAME_BYTES);
+        map.position(position);
+        map.put(bytes);
+        position += bytes.length;
+        pendingRecords += records;
+        dirty = true;
+    }
+
+    // Flushes the mapping to disk
+    public synchronized void force() {
+        if (map != null) {
+            map.force();
+        }
+        dirty = false;
+    }
+
+    private synchronized void forceIfDirty() {
+        if (dirty) {
+            force();
+        }
+    }
+
+    // Feeds every committed record to the visitor in log order. The records
+    // are copied out under the lock and the visitor (database work) runs
+    // without it, so appends from the EDT are not held up by the replay.
+    public int replay(Visitor visitor) throws SQLException {
+        int end;
+        int records;
+        ByteBuffer log;
+        synchronized (this) {
+            end = position;
+            records = pendingRecords;
+            byte[] copy = new byte[end - start];
+            ByteBuffer pending = map.duplicate();
+            pending.position(start);
+            pending.get(copy);
+            log = ByteBuffer.wrap(copy);
+        }
+
+        PayrollRegister values = new PayrollRegister(1);
+        values.addRow();
+        int offset = 0;
+        int replayed = 0;
+        while (offset < log.capacity()) {
+            int length = log.getInt(offset);
+            log.limit(offset + FRAME_BYTES + length).position(offset + FRAME_BYTES);
+            byte type = log.get();
+            switch (type) {
+                case UPSERT:
+                    readRow(log, values);
+                    visitor.upsert(values, 0);
+                    replayed++;
+                    break;
+                case UPDATE:
+                    long key = log.getLong();
+                    readRow(log, values);
+                    visitor.update(key, values, 0);
+                    replayed++;
+                    break;
+                case DELETE:
+                    visitor.delete(log.getLong());
+                    replayed++;
+                    break;
+                default:
+                    break; // COMMIT
+            }
+            log.limit(log.capacity());
+            offset += FRAME_BYTES + length;
+        }
+        synchronized (this) {
+            replayedEnd = end;
+            replayedRecords = records;
+        }
+        return replayed;
+    }
+
+    // Drops the records handed out by the last replay() once they are safely
+    // in the database; transactions appended since are kept. Nothing is
+    // moved or truncated (a mapped file cannot be truncated on Windows): the
+    // header's start offset is moved past the replayed records and forced.
+    // Once the log is empty its space is reused. The old records are zeroed
+    // and forced while the start still points at the empty end, then the
+    // start goes back to the header. A crash at any step leaves a valid log
+    // holding either the unreplayed records or nothing replayed twice.
+    public synchronized void compact() throws IOException {
+        pendingRecords -= replayedRecords;
+        replayedRecords = 0;
+        if (replayedEnd < position) {
+            setStart(replayedEnd); // Appended while replaying
+            return;
+        }
+        setStart(position);
+        zero(version == VERSION ? HEADER_BYTES : V2_HEADER_BYTES, position);
+        map.force();
+        if (version != VERSION) {
+            // The old log is zeroed; start offset before the version, both in the first sector
+            map.putInt(START_OFFSET, HEADER_BYTES).putInt(12, 0).putInt(4, VERSION);
+            version = VERSION;
+        }
+        position = HEADER_BYTES;
+        setStart(HEADER_BYTES);
+        dirty = false;
+    }
+
+    // A version 2 log has no start offset in its header; there the replayed
+    // records are only skipped in memory and a crash replays them again
+    private void setStart(int offset) {
+        start = offset;
+        replayedEnd = offset;
+        if (version == VERSION) {
+            map.putInt(START_OFFSET, offset);
+            map.force();
+        }
+    }
+
+    private void zero(int from, int to) {
+        ByteBuffer region = map.duplicate();
+        region.position(from);
+        byte[] zeros = new byte[Math.min(64 << 10, Math.max(0, to - from))];
+        while (region.position() < to) {
+            region.put(zeros, 0, Math.min(zeros.length, to - region.position()));
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the offline journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // Scans the log, keeps everything up to the last intact COMMIT and zeroes the rest
+    private synchronized void recover() throws IOException {
+        long size = channel.size();
+        if (size > MAX_MAP_BYTES) {
+            throw new IOException("Journal " + file + " is too large (" + size + " bytes)");
+        }
+        ensureMapped(Math.max(INITIAL_MAP_BYTES, (int) size));
+        int magic = map.getInt(0);
+        int limit = map.capacity();
+        if (magic == 0 && size <= HEADER_BYTES) {
+            map.putInt(0, MAGIC).putInt(4, VERSION).putInt(START_OFFSET, HEADER_BYTES);
+        } else if (magic != MAGIC) {
+            throw new IOException(file + " is not a payroll journal");
+        }
+        version = map.getInt(4);
+        if (version == VERSION) {
+            start = map.getInt(START_OFFSET);
+            if (start < HEADER_BYTES || start > limit) {
+                throw new IOException("Journal " + file + " has a damaged header (start offset " + start + ")");
+            }
+        } else if (version == 2) {
+            start = V2_HEADER_BYTES;
+        } else {
+            throw new IOException(file + " is a version " + version + " payroll journal, expected " + VERSION);
+        }
+
+        int offset = start;
+        int committedEnd = start;
+        int records = 0;
+        int committedRecords = 0;
+        while (offset + FRAME_BYTES < limit) {
+            int length = map.getInt(offset);
+            if (length <= 0 || length > limit - offset - FRAME_BYTES) {
+                break;
+            }
+            if (checksum(map, offset + FRAME_BYTES, length) != map.getInt(offset + 4)) {
+                break; // Torn write
+            }
+            offset += FRAME_BYTES + length;
+            if (map.get(offset - length) == COMMIT) {
+                committedEnd = offset;
+                committedRecords = records;
+            } else {
+                records++;
+            }
+        }
+        // Zero the uncommitted tail so a later scan stops at the same place
+        for (int i = committedEnd; i < Math.min(limit, offset + FRAME_BYTES); i++) {
+            map.put(i, (byte) 0);
+        }
+        position = committedEnd;
+        pendingRecords = committedRecords;
+        replayedEnd = start;
+        map.force();
+    }
+
+    private void ensureMapped(int bytes) throws IOException {
+        if (map != null && bytes <= map.capacity()) {
+            return;
+        }
+        if (bytes < 0 || bytes > MAX_MAP_BYTES) {
+            throw new IOException("Journal " + file + " is full - connect to the database to replay it");
+        }
+        int capacity = map == null ? bytes : (int) Math.min(MAX_MAP_BYTES, Math.max(bytes, map.capacity() * 2L));
+        if (map != null) {
+            map.force();
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(offset + length).position(offset);
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void readRow(ByteBuffer in, PayrollRegister values) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    values.setCents(0, col, in.getLong());
+                    break;
+                case INTEGER:
+                    values.setInt(0, col, in.getInt());
+                    break;
+                case DATE:
+                    values.setEpochDay(0, in.getInt());
+                    break;
+                default:
+                    int length = in.getInt();
+                    if (length < 0) {
+                        values.setText(0, col, null);
+                    } else {
+                        byte[] utf8 = new byte[length];
+                        in.get(utf8);
+                        values.setText(0, col, new String(utf8, StandardCharsets.UTF_8));
+                    }
+                    break;
+            }
+        }
+    }
+
+    // One submit's worth of records, encoded on the caller's thread (the EDT)
+    // straight from the register so the writer never touches the model
+    public static class Transaction {
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer out = ByteBuffer.allocate(4096);
+        private int recordStart;
+        private int recordCount;
+
+        // The pending changes of a register, in the order RegisterDao.submitChanges
+        // writes them: deletes, updates, inserts
+        public static Transaction of(PayrollRegister register, ChangeTracker changes) {
+            Transaction transaction = new Transaction();
+            for (int i = 0; i < changes.getDeletedCount(); i++) {
+                transaction.delete(changes.getDeletedKey(i));
+            }
+            for (int row = 0; row < register.getRowCount(); row++) {
+                if (changes.isDirty(row) && !changes.isInserted(row)) {
+                    transaction.update(changes.getKey(row), register, row);
+                }
+            }
+            for (int row = 0; row < register.getRowCount(); row++) {
+                if (changes.isInserted(row)) {
+                    transaction.upsert(register, row);
+                }
+            }
+            return transaction;
+        }
+
+        public void upsert(PayrollRegister register, int row) {
+            beginRecord(UPSERT);
+            writeRow(register, row);
+            endRecord();
+        }
+
+        public void update(long key, PayrollRegister register, int row) {
+            beginRecord(UPDATE);
+            out.putLong(key);
+            writeRow(register, row);
+            endRecord();
+        }
+
+        public void delete(long key) {
+            beginRecord(DELETE);
+            out.putLong(key);
+            endRecord();
+        }
+
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        // Closes the transaction with its COMMIT record; returns the framed bytes
+        byte[] commit() {
+            beginRecord(COMMIT);
+            out.putLong(System.currentTimeMillis());
+            out.putInt(recordCount);
+            endRecord();
+            recordCount--; // The commit is not a row record
+            return Arrays.copyOf(out.array(), out.position());
+        }
+
+        private void beginRecord(byte type) {
+            // Type plus the fixed fields written before writeRow (key, or COMMIT's time and count)
+            ensureRemaining(FRAME_BYTES + 1 + Long.BYTES + Integer.BYTES);
+            recordStart = out.position();
+            out.position(recordStart + FRAME_BYTES);
+            out.put(type);
+        }
+
+        private void endRecord() {
+            int length = out.position() - recordStart - FRAME_BYTES;
+            crc.reset();
+            crc.update(out.array(), recordStart + FRAME_BYTES, length);
+            out.putInt(recordStart, length);
+            out.putInt(recordStart + 4, (int) crc.getValue());
+            recordCount++;
+        }
+
+        private void writeRow(PayrollRegister register, int row) {
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                switch (PayrollColumns.kindOf(col)) {
+                    case DECIMAL:
+                        ensureRemaining(Long.BYTES);
+                        out.putLong(register.getCents(row, col));
+                        break;
+                    case INTEGER:
+                        ensureRemaining(Integer.BYTES);
+                        out.putInt(register.getInt(row, col));
+                        break;
+                    case DATE:
+                        ensureRemaining(Integer.BYTES);
+                        out.putInt(register.getEpochDay(row));
+                        break;
+                    default:
+                        String text = register.getText(row, col);
+                        if (text == null) {
+                            ensureRemaining(Integer.BYTES);
+                            out.putInt(-1);
+                        } else {
+                            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                            ensureRemaining(Integer.BYTES + utf8.length);
+                            out.putInt(utf8.length);
+                            out.put(utf8);
+                        }
+                        break;
+                }
+            }
+        }
+
+        private void ensureRemaining(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                grown.put(out);
+                out = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.payroll.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Appends one line per active operation every interval to a local file:
+//   2024-01-15T10:00:00Z submit count=3 errors=0 rows=1250 mean=41.2 p50=38.0 p90=60.1 p99=60.1 p999=60.1 max=58.7 ms
+// Figures cover the interval only; quiet operations are left out. When the
+// file would grow past maxBytes it is rolled: file -> file.1 -> ... -> file.N,
+// the oldest being dropped.
+public class MetricsFileReporter implements AutoCloseable {
+    private final Path file;
+    private final List<OperationMetrics> operations;
+    private final long intervalSeconds;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final LatencyHistogram.Snapshot[] previous;
+    private final long[] previousRows;
+    private final long[] previousErrors;
+    private final ScheduledExecutorService writer;
+
+    public MetricsFileReporter(Path file, List<OperationMetrics> operations, long intervalSeconds,
+                               long maxBytes, int maxFiles) {
+        if (intervalSeconds <= 0 || maxBytes <= 0 || maxFiles < 1) {
+            throw new IllegalArgumentException("Invalid metrics file settings: interval=" + intervalSeconds
+                + "s, maxBytes=" + maxBytes + ", maxFiles=" + maxFiles);
+        }
+        this.file = file;
+        this.operations = operations;
+        this.intervalSeconds = intervalSeconds;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.previous = new LatencyHistogram.Snapshot[operations.size()];
+        this.previousRows = new long[operations.size()];
+        this.previousErrors = new long[operations.size()];
+        for (int i = 0; i < previous.length; i++) {
+            previous[i] = operations.get(i).snapshot();
+            previousRows[i] = operations.get(i).getRows();
+            previousErrors[i] = operations.get(i).getErrors();
+        }
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "payroll-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        writer.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report();
+    }
+
+    synchronized void report() {
+        StringBuilder lines = new StringBuilder();
+        String now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+        for (int i = 0; i < previous.length; i++) {
+            OperationMetrics operation = operations.get(i);
+            LatencyHistogram.Snapshot current = operation.snapshot();
+            long rows = operation.getRows();
+            long errors = operation.getErrors();
+            LatencyHistogram.Snapshot interval = current.since(previous[i]);
+            if (interval.getCount() > 0) {
+                lines.append(String.format(Locale.ROOT,
+                    "%s %s count=%d errors=%d rows=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p999=%.3f max=%.3f ms%n",
+                    now, operation.getName(), interval.getCount(), errors - previousErrors[i],
+                    rows - previousRows[i], interval.getMeanNanos() / 1e6, interval.valueAt(0.50) / 1e6,
+                    interval.valueAt(0.90) / 1e6, interval.valueAt(0.99) / 1e6, interval.valueAt(0.999) / 1e6,
+                    interval.getMaxNanos() / 1e6));
+            }
+            previous[i] = current;
+            previousRows[i] = rows;
+            previousErrors[i] = errors;
+        }
+        if (lines.length() == 0) {
+            return;
+        }
+        try {
+            byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+            if (Files.exists(file) && Files.size(file) + bytes.length > maxBytes) {
+                roll();
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(lines.toString());
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void roll() throws IOException {
+        for (int n = maxFiles - 1; n >= 1; n--) {
+            Path older = numbered(n);
+            if (Files.exists(older)) {
+                Files.move(older, numbered(n + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, numbered(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path numbered(int n) {
+        return Paths.get(file + "." + n);
+    }
+}
@@ -0,0 +1,97 @@
+package com.payroll.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counters and a latency histogram for one timed operation (load, submit,
+// search, ...). Callers take System.nanoTime() before the work and pass it to
+// record() afterwards with the number of rows touched:
+//   long start = System.nanoTime();
+//   ... work ...
+//   PayrollMetrics.SUBMIT.record(start, rows);
+// Recording is a clock read and a few atomic adds; nothing is allocated.
+public final class OperationMetrics implements OperationMetricsMBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public void record(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        rows.addAndGet(rowCount);
+    }
+
+    // A failed run counts towards the latencies and the error count
+    public void recordFailure(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        errors.incrementAndGet();
+    }
+
+    public LatencyHistogram.Snapshot snapshot() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.snapshot().getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.get();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return latency.snapshot().getTotalNanos() / 1e6;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.snapshot().getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.snapshot().valueAt(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.snapshot().valueAt(0.90) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.snapshot().valueAt(0.99) / 1e6;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.snapshot().valueAt(0.999) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.snapshot().getMaxNanos() / 1e6;
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        long nanos = latency.snapshot().getTotalNanos();
+        return nanos == 0 ? 0 : rows.get() * 1e9 / nanos;
+    }
+}
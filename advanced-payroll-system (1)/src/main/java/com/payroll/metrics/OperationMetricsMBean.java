@@ -0,0 +1,30 @@
+package com.payroll.metrics;
+
+// JMX view of one operation's counters, under com.payroll:type=Operation,name=...
+// Times are in milliseconds since the application started; percentiles are
+// read from the latency histogram, so they are within 12.5% of the true value.
+public interface OperationMetricsMBean {
+    String getName();
+
+    long getCount();
+
+    long getErrors();
+
+    long getRows();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    double getRowsPerSecond();
+}
@@ -0,0 +1,93 @@
+package com.payroll.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// The application's timed operations. Each one is always recorded; start()
+// publishes them as MBeans (com.payroll:type=Operation,name=load, ...) for
+// jconsole/VisualVM and, when -Dpayroll.metrics.file is set, starts writing
+// periodic snapshots to that file (see MetricsFileReporter):
+//   -Dpayroll.metrics.file=payroll-metrics.log
+//   -Dpayroll.metrics.intervalSeconds=60  -Dpayroll.metrics.maxBytes=10485760
+//   -Dpayroll.metrics.maxFiles=5
+public final class PayrollMetrics {
+    public static final String FILE_PROPERTY = "payroll.metrics.file";
+
+    private static final List<OperationMetrics> ALL = new ArrayList<>();
+
+    // Loading a pay period into the register from the database
+    public static final OperationMetrics LOAD = register("load");
+    // Submitting the tracked changes (inserts, updates, deletes)
+    public static final OperationMetrics SUBMIT = register("submit");
+    // Search index lookups; rows are the matches
+    public static final OperationMetrics SEARCH = register("search");
+    // Recalculating the derived columns of one edited row, table update included
+    public static final OperationMetrics CALCULATE_ROW = register("calculateRow");
+    // Recalculating a whole pay period across the fork/join pool
+    public static final OperationMetrics CALCULATE_PERIOD = register("calculatePeriod");
+    // PDF report generation
+    public static final OperationMetrics PDF_EXPORT = register("pdfExport");
+    // CSV/TSV import into the database; rows are the imported ones
+    public static final OperationMetrics IMPORT = register("import");
+    // Event dispatch thread stalls over the watchdog threshold (see EdtWatchdog)
+    public static final OperationMetrics EDT_STALL = register("edtStall");
+
+    private static boolean started;
+    private static MetricsFileReporter reporter;
+
+    private PayrollMetrics() {
+    }
+
+    private static OperationMetrics register(String name) {
+        OperationMetrics metrics = new OperationMetrics(name);
+        ALL.add(metrics);
+        return metrics;
+    }
+
+    public static List<OperationMetrics> all() {
+        return Collections.unmodifiableList(ALL);
+    }
+
+    // Registers the MBeans and starts the file reporter if configured; safe to
+    // call more than once. Failures are reported and leave recording working.
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationMetrics metrics : ALL) {
+            try {
+                ObjectName name = new ObjectName("com.payroll:type=Operation,name=" + metrics.getName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(metrics, name);
+                }
+            } catch (JMException e) {
+                System.err.println("Could not publish " + metrics.getName() + " metrics over JMX: " + e.getMessage());
+            }
+        }
+
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null && !file.trim().isEmpty()) {
+            reporter = new MetricsFileReporter(Paths.get(file.trim()), ALL,
+                Long.getLong("payroll.metrics.intervalSeconds", 60),
+                Long.getLong("payroll.metrics.maxBytes", 10L << 20),
+                Integer.getInteger("payroll.metrics.maxFiles", 5));
+            reporter.start();
+        }
+    }
+
+    // Writes a last snapshot, if the file reporter runs
+    public static synchronized void stop() {
+        if (reporter != null) {
+            reporter.close();
+            reporter = null;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.payroll.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+// Tracks unsaved edits per row so a submit only sends the delta.
+// Each row carries a bitmask of changed columns (24 columns fit in an int)
+// plus the database key it was loaded with; deleted rows keep only their key.
+// A key is the row's (id, payment_date) primary key packed into a long, see keyOf.
+// A row whose unsaved edits clash with a newer database version is flagged
+// as a conflict until the next submit. The values a stored row had before its
+// first unsaved edit are kept as its base, so a stale submit can tell which
+// columns another user changed.
+public class ChangeTracker {
+    public static final long NO_KEY = Long.MIN_VALUE;
+    private static final int INSERTED = 1 << 31;
+    private static final int CONFLICT = 1 << 30;
+    private static final int ALL_COLUMNS = (1 << PayrollColumns.COUNT) - 1;
+
+    private int[] masks = new int[64];
+    private long[] keys = new long[64];
+    private int size;
+    private long[] deletedKeys = new long[16];
+    private int[] deletedVersions = new int[16];
+    private int deletedCount;
+    private PayrollRegister bases = new PayrollRegister(16);
+    private final Map<Long, Integer> baseRows = new HashMap<>();
+
+    // Packs a primary key; epochDay as returned by PayrollRegister.getEpochDay
+    public static long keyOf(int id, int epochDay) {
+        return ((long) id << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    // Key of the row as it is now, i.e. the key it gets once stored
+    public static long keyOf(PayrollRegister register, int row) {
+        return keyOf(register.getInt(row, PayrollColumns.ID), register.getEpochDay(row));
+    }
+
+    public static int keyId(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int keyEpochDay(long key) {
+        return (int) key;
+    }
+
+    void rowsAppended(int count, boolean persisted, PayrollRegister register) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            int row = size++;
+            if (persisted) {
+                masks[row] = 0;
+                keys[row] = keyOf(register, row);
+            } else {
+                masks[row] = INSERTED | ALL_COLUMNS;
+                keys[row] = NO_KEY;
+            }
+        }
+    }
+
+    void cellUpdated(int row, int column) {
+        masks[row] |= 1 << column;
+    }
+
+    void cellsUpdated(int row, int columnMask) {
+        masks[row] |= columnMask & ALL_COLUMNS;
+    }
+
+    void rowRemoved(int row, int version) {
+        if (keys[row] != NO_KEY) {
+            if (deletedCount == deletedKeys.length) {
+                deletedKeys = Arrays.copyOf(deletedKeys, deletedCount * 2);
+                deletedVersions = Arrays.copyOf(deletedVersions, deletedCount * 2);
+            }
+            deletedVersions[deletedCount] = version;
+            deletedKeys[deletedCount++] = keys[row];
+        }
+        System.arraycopy(masks, row + 1, masks, row, size - row - 1);
+        System.arraycopy(keys, row + 1, keys, row, size - row - 1);
+        size--;
+    }
+
+    // Drops a row that is already gone from the database (delta refresh)
+    void rowDropped(int row) {
+        System.arraycopy(masks, row + 1, masks, row, size - row - 1);
+        System.arraycopy(keys, row + 1, keys, row, size - row - 1);
+        size--;
+    }
+
+    void markConflict(int row) {
+        masks[row] |= CONFLICT;
+    }
+
+    // The database no longer has the row but it has local edits: keep it as a
+    // new row so the next submit stores it again
+    void markDeletedRemotely(int row) {
+        masks[row] |= INSERTED | CONFLICT | ALL_COLUMNS;
+        keys[row] = NO_KEY;
+    }
+
+    // Puts a row back at the given index (undo of a delete, redo of an insert).
+    // A stored row whose deletion has not been submitted yet gets its key and
+    // dirty columns back; otherwise the row no longer exists in the database
+    // and is tracked as a new one.
+    void rowRestored(int row, int mask, long key) {
+        ensureCapacity(size + 1);
+        System.arraycopy(masks, row, masks, row + 1, size - row);
+        System.arraycopy(keys, row, keys, row + 1, size - row);
+        size++;
+        if (key != NO_KEY && removeDeletedKey(key)) {
+            masks[row] = mask;
+            keys[row] = key;
+        } else {
+            masks[row] = INSERTED | ALL_COLUMNS;
+            keys[row] = NO_KEY;
+        }
+    }
+
+    // Raw mask including the inserted flag, so a removed row can be restored as it was
+    int getMask(int row) {
+        return masks[row];
+    }
+
+    // Index of the pending delete of the key, or -1
+    int findDeleted(long key) {
+        for (int i = 0; i < deletedCount; i++) {
+            if (deletedKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The deleted row was refreshed from the database: the delete now applies
+    // to the version just seen
+    void rebaseDeleted(int index, int version) {
+        deletedVersions[index] = version;
+    }
+
+    private boolean removeDeletedKey(long key) {
+        for (int i = deletedCount - 1; i >= 0; i--) {
+            if (deletedKeys[i] == key) {
+                System.arraycopy(deletedKeys, i + 1, deletedKeys, i, deletedCount - i - 1);
+                System.arraycopy(deletedVersions, i + 1, deletedVersions, i, deletedCount - i - 1);
+                deletedCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keeps the row's current values as its base unless it already has one;
+    // called before the first edit of a clean stored row
+    void recordBase(int row, PayrollRegister register) {
+        if (masks[row] == 0 && keys[row] != NO_KEY && !baseRows.containsKey(keys[row])) {
+            baseRows.put(keys[row], bases.getRowCount());
+            bases.append(register, row, 1);
+        }
+    }
+
+    // The database row of an edited row was refreshed: it becomes the base
+    // that the next submit compares against
+    void rebase(int row, PayrollRegister remote, int remoteRow) {
+        Integer base = baseRows.get(keys[row]);
+        if (base != null) {
+            bases.setRow(base, remote, remoteRow);
+        } else if (keys[row] != NO_KEY) {
+            baseRows.put(keys[row], bases.getRowCount());
+            bases.append(remote, remoteRow, 1);
+        }
+    }
+
+    // Forget everything, e.g. when the register is reloaded
+    void clear() {
+        size = 0;
+        deletedCount = 0;
+        clearBases();
+    }
+
+    // Called after a successful submit: current values become the persisted baseline
+    void acceptChanges(PayrollRegister register) {
+        acceptChanges(register, new BitSet(), new long[0]);
+    }
+
+    // Same, except that rows whose submit was rejected stay dirty and are
+    // flagged as conflicts (their base is kept for the next attempt), and
+    // rejected deletes stay pending with the version they were read with
+    void acceptChanges(PayrollRegister register, BitSet rejectedRows, long[] rejectedDeletes) {
+        PayrollRegister keptBases = new PayrollRegister(16);
+        Map<Long, Integer> keptRows = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            if (rejectedRows.get(row)) {
+                masks[row] |= CONFLICT;
+                Integer base = baseRows.get(keys[row]);
+                if (base != null) {
+                    keptRows.put(keys[row], keptBases.getRowCount());
+                    keptBases.append(bases, base, 1);
+                }
+            } else {
+                masks[row] = 0;
+                keys[row] = keyOf(register, row);
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < deletedCount; i++) {
+            for (long key : rejectedDeletes) {
+                if (deletedKeys[i] == key) {
+                    deletedKeys[kept] = key;
+                    deletedVersions[kept++] = deletedVersions[i];
+                    break;
+                }
+            }
+        }
+        deletedCount = kept;
+        clearBases();
+        bases = keptBases;
+        baseRows.putAll(keptRows);
+    }
+
+    private void clearBases() {
+        bases = new PayrollRegister(16);
+        baseRows.clear();
+    }
+
+    // Register holding the base rows; see getBaseRow
+    public PayrollRegister getBases() {
+        return bases;
+    }
+
+    // Row in getBases() with the values the stored row had before it was
+    // edited, or -1 when none was recorded
+    public int getBaseRow(long key) {
+        Integer row = baseRows.get(key);
+        return row == null ? -1 : row;
+    }
+
+    public boolean hasChanges() {
+        if (deletedCount > 0) {
+            return true;
+        }
+        for (int row = 0; row < size; row++) {
+            if (masks[row] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isInserted(int row) {
+        return (masks[row] & INSERTED) != 0;
+    }
+
+    public boolean isConflicted(int row) {
+        return (masks[row] & CONFLICT) != 0;
+    }
+
+    public boolean isDirty(int row) {
+        return masks[row] != 0;
+    }
+
+    // Bitmask of changed columns, bit n = column n
+    public int getDirtyColumns(int row) {
+        return masks[row] & ALL_COLUMNS;
+    }
+
+    // Database key the row was loaded with, NO_KEY for rows not yet stored
+    public long getKey(int row) {
+        return keys[row];
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    public long getDeletedKey(int index) {
+        return deletedKeys[index];
+    }
+
+    // row_version the deleted row was read with
+    public int getDeletedVersion(int index) {
+        return deletedVersions[index];
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > masks.length) {
+            int newCapacity = Math.max(minCapacity, masks.length + (masks.length >> 1));
+            masks = Arrays.copyOf(masks, newCapacity);
+            keys = Arrays.copyOf(keys, newCapacity);
+        }
+    }
+}
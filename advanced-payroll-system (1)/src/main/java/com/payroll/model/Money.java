@@ -0,0 +1,181 @@
+package com.payroll.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point money: an amount is a plain long holding cents, matching the
+// DECIMAL(10,2) columns. Arithmetic is exact (overflow throws instead of
+// wrapping) and rounding is always half-up, as MySQL does for DECIMAL.
+// Parsing and formatting work on chars directly, so the hot paths don't
+// allocate; BigDecimal is only used at the JDBC boundary.
+public final class Money {
+    public static final long CENTS_PER_UNIT = 100;
+    // Largest amount a DECIMAL(10,2) column holds
+    public static final long MAX_AMOUNT_CENTS = 99_999_999_99L;
+
+    private Money() {
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // cents * percent / 100, e.g. percentOf(500000, 10) = 50000
+    public static long percentOf(long cents, long percent) {
+        return divide(Math.multiplyExact(cents, percent), 100);
+    }
+
+    // cents / divisor rounded half away from zero
+    public static long divide(long cents, long divisor) {
+        long quotient = cents / divisor;
+        long remainder = cents % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += Long.signum(cents) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+
+    // Parses "1234", "-1234.5", "1,234.56" or "$1234.567" (rounded half-up).
+    // Throws NumberFormatException for anything else.
+    public static long parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+        if (start < end && text.charAt(start) == '$') {
+            start++;
+        }
+
+        try {
+            return negative ? -parseDigits(text, start, end) : parseDigits(text, start, end);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    private static long parseDigits(CharSequence text, int start, int end) {
+        long units = 0;
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        boolean seenDigit = false;
+        boolean inFraction = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                int digit = c - '0';
+                if (!inFraction) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), digit);
+                } else if (fractionDigits < 2) {
+                    fraction = fraction * 10 + digit;
+                    fractionDigits++;
+                } else if (fractionDigits == 2) {
+                    roundUp = digit >= 5; // Only the third decimal decides
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c == ',' && !inFraction) {
+                continue; // Thousands separator
+            } else {
+                throw new NumberFormatException("Not an amount: " + text);
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("Not an amount: " + text);
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        return Math.addExact(Math.multiplyExact(units, CENTS_PER_UNIT), fraction + (roundUp ? 1 : 0));
+    }
+
+    // The amount itself if it fits a column holding at most maxCents either
+    // way (MAX_AMOUNT_CENTS for DECIMAL(10,2)); NumberFormatException if not
+    public static long checkRange(long cents, long maxCents) {
+        if (cents > maxCents || cents < -maxCents) {
+            throw new NumberFormatException("Amount out of range: " + format(cents));
+        }
+        return cents;
+    }
+
+    // Nearest cent of a double; for values coming from legacy double code
+    public static long fromDouble(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)
+                || Math.abs(amount) >= Long.MAX_VALUE / CENTS_PER_UNIT) {
+            throw new NumberFormatException("Amount out of range: " + amount);
+        }
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    public static long fromBigDecimal(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + amount);
+        }
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    // Plain "-1234.50"
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents, false).toString();
+    }
+
+    // Appends the amount with two decimals, optionally with thousands separators
+    public static StringBuilder appendTo(StringBuilder out, long cents, boolean grouping) {
+        if (cents < 0) {
+            out.append('-');
+        }
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        int fraction = (int) Math.abs(cents % CENTS_PER_UNIT);
+        if (grouping) {
+            appendGrouped(out, units);
+        } else {
+            out.append(units);
+        }
+        out.append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    private static void appendGrouped(StringBuilder out, long units) {
+        if (units < 1000) {
+            out.append(units);
+            return;
+        }
+        appendGrouped(out, units / 1000);
+        int group = (int) (units % 1000);
+        out.append(',');
+        if (group < 100) {
+            out.append('0');
+        }
+        if (group < 10) {
+            out.append('0');
+        }
+        out.append(group);
+    }
+}
@@ -0,0 +1,75 @@
+package com.payroll.model;
+
+// Column layout of the payroll register - same order as the payroll_register table
+public final class PayrollColumns {
+    public static final int PAYMENT_DATE = 0;
+    public static final int ID = 1;
+    public static final int EMPLOYEE_NAME = 2;
+    public static final int BASIC_SALARY = 3;
+    public static final int INCENTIVE = 4;
+    public static final int SPECIAL_BONUS = 5;
+    public static final int NUMBER_OF_BONUSES = 6;
+    public static final int BONUS_RATE = 7;
+    public static final int BONUS = 8;
+    public static final int NUMBER_OF_BUSINESS_TRIPS = 9;
+    public static final int BUSINESS_TRIP_AMOUNT = 10;
+    public static final int OT_HOURS = 11;
+    public static final int OT_RATE = 12;
+    public static final int OT_AMOUNT = 13;
+    public static final int GROSS_PAY = 14;
+    public static final int SOCIAL_INSURANCE = 15;
+    public static final int ADVANCES = 16;
+    public static final int TRANSPORTATION_DEDUCTIONS = 17;
+    public static final int NUMBER_OF_DEDUCTIONS = 18;
+    public static final int DEDUCTION_RATE = 19;
+    public static final int DEDUCTIONS = 20;
+    public static final int TOTAL_DEDUCTIONS = 21;
+    public static final int NET_PAY = 22;
+    public static final int STATUS = 23;
+
+    public static final int COUNT = 24;
+
+    // How each column is stored in the register
+    public enum Kind {
+        DATE,     // epoch day
+        INTEGER,  // plain int
+        TEXT,     // dictionary encoded string
+        DECIMAL   // fixed point, two decimal places (cents)
+    }
+
+    private static final Kind[] KINDS = {
+        Kind.DATE, Kind.INTEGER, Kind.TEXT, Kind.DECIMAL, Kind.DECIMAL,
+        Kind.DECIMAL, Kind.INTEGER, Kind.DECIMAL, Kind.DECIMAL,
+        Kind.INTEGER, Kind.DECIMAL, Kind.DECIMAL,
+        Kind.DECIMAL, Kind.DECIMAL, Kind.DECIMAL, Kind.DECIMAL, Kind.DECIMAL,
+        Kind.DECIMAL, Kind.INTEGER, Kind.DECIMAL,
+        Kind.DECIMAL, Kind.DECIMAL, Kind.DECIMAL, Kind.TEXT
+    };
+
+    // Database column names, index aligned with the constants above
+    private static final String[] DB_NAMES = {
+        "payment_date", "id", "employee_name", "basic_salary", "incentive",
+        "special_bonus", "number_of_bonuses", "bonus_rate", "bonus",
+        "number_of_business_trips", "business_trip_amount", "ot_hours",
+        "ot_rate", "ot_amount", "gross_pay", "social_insurance", "advances",
+        "transportation_deductions", "number_of_deductions", "deduction_rate",
+        "deductions", "total_deductions", "net_pay", "status"
+    };
+
+    private PayrollColumns() {
+    }
+
+    public static Kind kindOf(int column) {
+        return KINDS[column];
+    }
+
+    public static String dbName(int column) {
+        return DB_NAMES[column];
+    }
+
+    // Largest value of a DECIMAL column in cents: DECIMAL(5,2) for OT hours,
+    // DECIMAL(10,2) for amounts
+    public static long maxCents(int column) {
+        return column == OT_HOURS ? 999_99L : Money.MAX_AMOUNT_CENTS;
+    }
+}
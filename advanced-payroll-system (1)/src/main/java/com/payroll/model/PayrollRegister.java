@@ -0,0 +1,378 @@
+package com.payroll.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Column-oriented storage for the payroll register.
+// Every column lives in its own primitive array: money and hours as long cents,
+// counts as int, dates as epoch days and names/statuses as dictionary codes.
+// Besides the 24 columns each row carries its database row_version (0 for
+// rows never stored), used for optimistic concurrency on submit.
+public class PayrollRegister {
+    static final int NULL_DATE = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long[][] decimalColumns = new long[PayrollColumns.COUNT][];
+    private final int[][] intColumns = new int[PayrollColumns.COUNT][];
+    private final StringDictionary names = new StringDictionary();
+    private final StringDictionary statuses = new StringDictionary();
+    private int[] versions;
+    private int rowCount;
+    private int capacity;
+
+    public PayrollRegister() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PayrollRegister(int initialCapacity) {
+        capacity = Math.max(1, initialCapacity);
+        versions = new int[capacity];
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.DECIMAL) {
+                decimalColumns[col] = new long[capacity];
+            } else {
+                intColumns[col] = new int[capacity];
+            }
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    // Appends an empty row (zero amounts, no date, no name) and returns its index
+    public int addRow() {
+        ensureCapacity(rowCount + 1);
+        int row = rowCount++;
+        versions[row] = 0;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (decimalColumns[col] != null) {
+                decimalColumns[col][row] = 0;
+            } else {
+                intColumns[col][row] = emptyIntValue(col);
+            }
+        }
+        return row;
+    }
+
+    // Appends a row given in table order, converting each cell to its column type
+    public int addRow(Object[] rowData) {
+        int row = addRow();
+        if (rowData != null) {
+            for (int col = 0; col < Math.min(rowData.length, PayrollColumns.COUNT); col++) {
+                try {
+                    setValue(row, col, rowData[col]);
+                } catch (IllegalArgumentException e) {
+                    // Leave unparsable cells empty
+                }
+            }
+        }
+        return row;
+    }
+
+    // Appends all rows of another register
+    public void append(PayrollRegister other) {
+        append(other, 0, other.rowCount);
+    }
+
+    // Appends count rows of another register starting at fromRow; text columns
+    // are re-encoded because each register has its own dictionaries
+    public void append(PayrollRegister other, int fromRow, int count) {
+        ensureCapacity(rowCount + count);
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (decimalColumns[col] != null) {
+                System.arraycopy(other.decimalColumns[col], fromRow, decimalColumns[col], rowCount, count);
+            } else if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.TEXT) {
+                StringDictionary dictionary = dictionaryFor(col);
+                StringDictionary otherDictionary = other.dictionaryFor(col);
+                int[] source = other.intColumns[col];
+                int[] target = intColumns[col];
+                for (int i = 0; i < count; i++) {
+                    target[rowCount + i] = dictionary.encode(otherDictionary.decode(source[fromRow + i]));
+                }
+            } else {
+                System.arraycopy(other.intColumns[col], fromRow, intColumns[col], rowCount, count);
+            }
+        }
+        System.arraycopy(other.versions, fromRow, versions, rowCount, count);
+        rowCount += count;
+    }
+
+    // Overwrites a row (values and version) with a row of another register
+    public void setRow(int row, PayrollRegister other, int otherRow) {
+        versions[row] = other.versions[otherRow];
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            copyCell(row, col, other, otherRow);
+        }
+    }
+
+    // True when the row holds the same values as a row of another register
+    public boolean rowEquals(int row, PayrollRegister other, int otherRow) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (!cellEquals(row, col, other, otherRow)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean cellEquals(int row, int col, PayrollRegister other, int otherRow) {
+        if (decimalColumns[col] != null) {
+            return decimalColumns[col][row] == other.decimalColumns[col][otherRow];
+        }
+        if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.TEXT) {
+            return Objects.equals(getText(row, col), other.getText(otherRow, col));
+        }
+        return intColumns[col][row] == other.intColumns[col][otherRow];
+    }
+
+    // Copies one cell from a row of another register
+    public void copyCell(int row, int col, PayrollRegister other, int otherRow) {
+        if (decimalColumns[col] != null) {
+            decimalColumns[col][row] = other.decimalColumns[col][otherRow];
+        } else if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.TEXT) {
+            intColumns[col][row] = dictionaryFor(col).encode(other.getText(otherRow, col));
+        } else {
+            intColumns[col][row] = other.intColumns[col][otherRow];
+        }
+    }
+
+    // Database row_version the row was read with
+    public int getVersion(int row) {
+        return versions[row];
+    }
+
+    public void setVersion(int row, int version) {
+        versions[row] = version;
+    }
+
+    public void removeRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        int tail = rowCount - row - 1;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (decimalColumns[col] != null) {
+                System.arraycopy(decimalColumns[col], row + 1, decimalColumns[col], row, tail);
+            } else {
+                System.arraycopy(intColumns[col], row + 1, intColumns[col], row, tail);
+            }
+        }
+        System.arraycopy(versions, row + 1, versions, row, tail);
+        rowCount--;
+    }
+
+    // Opens an empty slot at the given index, shifting later rows down; the
+    // caller fills every column (see setRaw)
+    void insertRow(int row) {
+        if (row < 0 || row > rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        ensureCapacity(rowCount + 1);
+        int tail = rowCount - row;
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (decimalColumns[col] != null) {
+                System.arraycopy(decimalColumns[col], row, decimalColumns[col], row + 1, tail);
+            } else {
+                System.arraycopy(intColumns[col], row, intColumns[col], row + 1, tail);
+            }
+        }
+        System.arraycopy(versions, row, versions, row + 1, tail);
+        rowCount++;
+    }
+
+    public void clear() {
+        rowCount = 0;
+    }
+
+    // Clears the rows and also forgets every dictionary entry, for scratch
+    // registers refilled many times (import chunks). Text codes handed out
+    // before are invalid afterwards.
+    public void reset() {
+        rowCount = 0;
+        names.clear();
+        statuses.clear();
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if (decimalColumns[col] != null) {
+                decimalColumns[col] = Arrays.copyOf(decimalColumns[col], newCapacity);
+            } else {
+                intColumns[col] = Arrays.copyOf(intColumns[col], newCapacity);
+            }
+        }
+        versions = Arrays.copyOf(versions, newCapacity);
+        capacity = newCapacity;
+    }
+
+    // Typed accessors - no boxing
+
+    public long getCents(int row, int col) {
+        return decimalColumns[col][row];
+    }
+
+    public void setCents(int row, int col, long cents) {
+        decimalColumns[col][row] = cents;
+    }
+
+    public int getInt(int row, int col) {
+        return intColumns[col][row];
+    }
+
+    public void setInt(int row, int col, int value) {
+        intColumns[col][row] = value;
+    }
+
+    public int getEpochDay(int row) {
+        return intColumns[PayrollColumns.PAYMENT_DATE][row];
+    }
+
+    public boolean hasPaymentDate(int row) {
+        return getEpochDay(row) != NULL_DATE;
+    }
+
+    public void setEpochDay(int row, int epochDay) {
+        intColumns[PayrollColumns.PAYMENT_DATE][row] = epochDay;
+    }
+
+    public String getText(int row, int col) {
+        return dictionaryFor(col).decode(intColumns[col][row]);
+    }
+
+    public void setText(int row, int col, String value) {
+        intColumns[col][row] = dictionaryFor(col).encode(value);
+    }
+
+    // Dictionary code of a text cell; equal strings share a code
+    public int getTextCode(int row, int col) {
+        return intColumns[col][row];
+    }
+
+    public String decodeText(int col, int code) {
+        return dictionaryFor(col).decode(code);
+    }
+
+    // Any cell as a primitive: cents for amounts, the stored int (value, epoch
+    // day or dictionary code) otherwise. Used to journal edits without boxing.
+    long getRaw(int row, int col) {
+        return decimalColumns[col] != null ? decimalColumns[col][row] : intColumns[col][row];
+    }
+
+    void setRaw(int row, int col, long raw) {
+        if (decimalColumns[col] != null) {
+            decimalColumns[col][row] = raw;
+        } else {
+            intColumns[col][row] = (int) raw;
+        }
+    }
+
+    // Boxed view used by the table model and generic callers
+
+    public Object getValue(int row, int col) {
+        switch (PayrollColumns.kindOf(col)) {
+            case DECIMAL:
+                return Money.toBigDecimal(decimalColumns[col][row]);
+            case INTEGER:
+                return intColumns[col][row];
+            case DATE:
+                int day = intColumns[col][row];
+                return day == NULL_DATE ? null : LocalDate.ofEpochDay(day).toString();
+            default:
+                return getText(row, col);
+        }
+    }
+
+    // Throws IllegalArgumentException when the value cannot be converted to the column type
+    // or does not fit the database column (see PayrollColumns.maxCents)
+    public void setValue(int row, int col, Object value) {
+        switch (PayrollColumns.kindOf(col)) {
+            case DECIMAL:
+                decimalColumns[col][row] = Money.checkRange(toCents(value), PayrollColumns.maxCents(col));
+                break;
+            case INTEGER:
+                intColumns[col][row] = toInt(value);
+                break;
+            case DATE:
+                intColumns[col][row] = toEpochDay(value);
+                break;
+            default:
+                setText(row, col, value == null ? null : value.toString());
+                break;
+        }
+    }
+
+    static long toCents(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            try {
+                return Math.multiplyExact(((Number) value).longValue(), Money.CENTS_PER_UNIT);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Amount out of range: " + value, e);
+            }
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return Money.fromDouble(((Number) value).doubleValue());
+        }
+        if (value instanceof BigDecimal) {
+            return Money.fromBigDecimal((BigDecimal) value);
+        }
+        return Money.parse(value.toString());
+    }
+
+    // Whole numbers within int range only; anything else is rejected rather than truncated
+    static int toInt(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        BigDecimal number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString().trim());
+        try {
+            return number.intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not a whole number in range: " + value, e);
+        }
+    }
+
+    static int toEpochDay(Object value) {
+        if (value == null) {
+            return NULL_DATE;
+        }
+        if (value instanceof java.sql.Date) {
+            return (int) ((java.sql.Date) value).toLocalDate().toEpochDay();
+        }
+        if (value instanceof LocalDate) {
+            return (int) ((LocalDate) value).toEpochDay();
+        }
+        try {
+            return (int) LocalDate.parse(value.toString().trim()).toEpochDay();
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value, e);
+        }
+    }
+
+    private int emptyIntValue(int col) {
+        switch (PayrollColumns.kindOf(col)) {
+            case DATE:
+                return NULL_DATE;
+            case TEXT:
+                return StringDictionary.NULL_CODE;
+            default:
+                return 0;
+        }
+    }
+
+    private StringDictionary dictionaryFor(int col) {
+        return col == PayrollColumns.STATUS ? statuses : names;
+    }
+}
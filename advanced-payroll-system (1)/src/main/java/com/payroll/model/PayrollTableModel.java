@@ -0,0 +1,565 @@
+package com.payroll.model;
+
+import com.payroll.metrics.PayrollMetrics;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import javax.swing.table.AbstractTableModel;
+
+// Table model backed by the columnar PayrollRegister instead of Vector<Vector<Object>>.
+// Edits made through the model are recorded in an UndoJournal; loading
+// rows from the database starts a fresh history.
+// With a Recalculator set, an edit also recomputes the cells that depend on
+// the edited one. The edit and its derived cells are one undo step and go
+// out as one event.
+public class PayrollTableModel extends AbstractTableModel {
+    // Derived columns of the register (see com.payroll.calc.DependencyGraph)
+    public interface Recalculator {
+        // Mask of the columns computed from the given ones, directly or not
+        int dependentsOf(int columns);
+
+        // Recomputes one row after the given columns changed, writing into
+        // the register; returns the mask of columns whose value changed
+        int recalculate(PayrollRegister register, int row, int changedColumns);
+    }
+
+    private final String[] columnNames;
+    private final PayrollRegister register;
+    private final ChangeTracker changes = new ChangeTracker();
+    private final long[] before = new long[PayrollColumns.COUNT];
+    private final UndoJournal.Target replayTarget = new ReplayTarget();
+    private UndoJournal journal = new UndoJournal();
+    private Recalculator recalculator;
+    private boolean replaying;
+    // Range of rows touched by consecutive cell replays, fired as one update
+    private int updatedFirst = -1;
+    private int updatedLast = -1;
+
+    public PayrollTableModel(String[] columnNames) {
+        this(columnNames, new PayrollRegister());
+    }
+
+    public PayrollTableModel(String[] columnNames, PayrollRegister register) {
+        if (columnNames.length != PayrollColumns.COUNT) {
+            throw new IllegalArgumentException("Expected " + PayrollColumns.COUNT
+                + " column names but got " + columnNames.length);
+        }
+        this.columnNames = columnNames.clone();
+        this.register = register;
+        changes.rowsAppended(register.getRowCount(), true, register);
+    }
+
+    public PayrollRegister getRegister() {
+        return register;
+    }
+
+    public ChangeTracker getChangeTracker() {
+        return changes;
+    }
+
+    public UndoJournal getUndoJournal() {
+        return journal;
+    }
+
+    public void setRecalculator(Recalculator recalculator) {
+        this.recalculator = recalculator;
+    }
+
+    // Replaces the history with an empty one of the given size
+    public void setUndoLimit(long memoryLimitBytes, int maxSteps) {
+        journal = new UndoJournal(memoryLimitBytes, maxSteps);
+    }
+
+    @Override
+    public int getRowCount() {
+        return register.getRowCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column != PayrollColumns.PAYMENT_DATE; // Payment date is not editable
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return register.getValue(row, column);
+    }
+
+    @Override
+    // Recalculates the dependent cells and fires a single event: a cell
+    // update, or a row update when derived cells changed too. A value equal
+    // to the current one changes nothing and fires nothing.
+    public void setValueAt(Object value, int row, int column) {
+        long oldValue = register.getRaw(row, column);
+        changes.recordBase(row, register);
+        int candidates = recalculator == null ? 0 : recalculator.dependentsOf(1 << column);
+        snapshot(row, candidates);
+        try {
+            register.setValue(row, column, value);
+        } catch (IllegalArgumentException e) {
+            return; // Keep the previous value when the input does not fit the column
+        }
+        if (register.getRaw(row, column) == oldValue) {
+            return; // Committing an editor unchanged is not an edit
+        }
+        int derived = 0;
+        if (candidates != 0) {
+            long start = System.nanoTime();
+            derived = recalculator.recalculate(register, row, 1 << column) & candidates;
+            PayrollMetrics.CALCULATE_ROW.record(start, 1);
+        }
+        beginCompoundEdit();
+        try {
+            if (!replaying) {
+                journal.cellChanged(row, column, oldValue, register.getRaw(row, column));
+                journalChanges(row, derived);
+            }
+            if (derived == 0) {
+                changes.cellUpdated(row, column);
+                fireTableCellUpdated(row, column);
+            } else {
+                changes.cellsUpdated(row, 1 << column | derived);
+                fireTableRowsUpdated(row, row);
+            }
+        } finally {
+            endCompoundEdit();
+        }
+    }
+
+    // Sets a block of cells as one edit (a paste or a fill): values[i][j] goes
+    // to model row rows[i] and column columns[j]; rows may come in any order
+    // and a short values row leaves the remaining columns alone. Each row is
+    // recalculated once for all of its changed columns, the block is a single
+    // undo step and listeners get one update event covering the rows changed.
+    // Read-only cells and values that do not fit their column are skipped;
+    // returns how many were.
+    public int setValues(int[] rows, int[] columns, Object[][] values) {
+        int columnMask = 0;
+        for (int col : columns) {
+            columnMask |= 1 << col;
+        }
+        int candidates = columnMask | (recalculator == null ? 0 : recalculator.dependentsOf(columnMask));
+        int skipped = 0;
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        beginCompoundEdit();
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                int row = rows[i];
+                Object[] rowValues = values[i];
+                changes.recordBase(row, register);
+                snapshot(row, candidates);
+                int edited = 0;
+                for (int j = 0; j < columns.length && j < rowValues.length; j++) {
+                    int col = columns[j];
+                    if (!isCellEditable(row, col)) {
+                        skipped++;
+                        continue;
+                    }
+                    try {
+                        register.setValue(row, col, rowValues[j]);
+                    } catch (IllegalArgumentException e) {
+                        skipped++;
+                        continue;
+                    }
+                    if (register.getRaw(row, col) != before[col]) {
+                        edited |= 1 << col;
+                    }
+                }
+                if (edited == 0) {
+                    continue;
+                }
+                int changed = edited;
+                if (recalculator != null) {
+                    changed |= recalculator.recalculate(register, row, edited) & candidates;
+                }
+                if (!replaying) {
+                    journalChanges(row, changed);
+                }
+                changes.cellsUpdated(row, changed);
+                first = Math.min(first, row);
+                last = Math.max(last, row);
+            }
+            if (last >= 0) {
+                fireTableRowsUpdated(first, last);
+            }
+        } finally {
+            endCompoundEdit();
+        }
+        return skipped;
+    }
+
+    // Runs an update that writes straight into the register (e.g. the
+    // calculation engine) and returns the mask of columns it changed; the
+    // candidate columns are snapshotted first so the change can be undone
+    public void updateCells(int row, int candidateMask, IntSupplier update) {
+        changes.recordBase(row, register);
+        snapshot(row, candidateMask);
+        int changed = update.getAsInt() & candidateMask;
+        if (changed == 0) {
+            return;
+        }
+        beginCompoundEdit();
+        try {
+            if (!replaying) {
+                journalChanges(row, changed);
+            }
+            cellsChanged(row, changed);
+        } finally {
+            endCompoundEdit();
+        }
+    }
+
+    // Keeps the current values of the masked columns for journalChanges()
+    private void snapshot(int row, int columnMask) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if ((columnMask & (1 << col)) != 0) {
+                before[col] = register.getRaw(row, col);
+            }
+        }
+    }
+
+    private void journalChanges(int row, int columnMask) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            if ((columnMask & (1 << col)) != 0) {
+                journal.cellChanged(row, col, before[col], register.getRaw(row, col));
+            }
+        }
+    }
+
+    // Called after cells were written straight into the register: records the
+    // changed columns and repaints the row. Not journaled; use updateCells()
+    // for edits that should be undoable.
+    public void cellsChanged(int row, int columnMask) {
+        if (columnMask == 0) {
+            return;
+        }
+        changes.cellsUpdated(row, columnMask);
+        fireTableRowsUpdated(row, row);
+    }
+
+    // Groups the following edits into one undo step, e.g. a bulk delete.
+    // Every call must be paired with endCompoundEdit(), typically in a finally.
+    public void beginCompoundEdit() {
+        journal.begin();
+    }
+
+    public void endCompoundEdit() {
+        journal.end();
+    }
+
+    public boolean canUndo() {
+        return !replaying && journal.canUndo();
+    }
+
+    public boolean canRedo() {
+        return !replaying && journal.canRedo();
+    }
+
+    // Reverts the most recent undo step; false when there is none
+    public boolean undo() {
+        return replay(true);
+    }
+
+    public boolean redo() {
+        return replay(false);
+    }
+
+    private boolean replay(boolean undo) {
+        if (replaying) {
+            return false;
+        }
+        replaying = true;
+        try {
+            return undo ? journal.undo(replayTarget) : journal.redo(replayTarget);
+        } finally {
+            replaying = false;
+            flushUpdatedRows();
+        }
+    }
+
+    // Adds a new, unsaved row
+    public void addRow(Object[] rowData) {
+        int row = register.addRow(rowData);
+        changes.rowsAppended(1, false, register);
+        beginCompoundEdit();
+        try {
+            if (!replaying) {
+                journal.rowInserted(row, register);
+            }
+            fireTableRowsInserted(row, row);
+        } finally {
+            endCompoundEdit();
+        }
+    }
+
+    // Adds a row that already exists in the database
+    public void addPersistedRow(Object[] rowData) {
+        int row = register.addRow(rowData);
+        changes.rowsAppended(1, true, register);
+        journal.clear();
+        fireTableRowsInserted(row, row);
+    }
+
+    // Appends a chunk of rows read from the database with a single insert event
+    public void appendPersisted(PayrollRegister chunk) {
+        int first = register.getRowCount();
+        register.append(chunk);
+        int added = register.getRowCount() - first;
+        if (added > 0) {
+            changes.rowsAppended(added, true, register);
+            journal.clear();
+            fireTableRowsInserted(first, first + added - 1);
+        }
+    }
+
+    public void removeRow(int row) {
+        beginCompoundEdit();
+        try {
+            if (!replaying) {
+                journal.rowDeleted(row, changes.getMask(row), changes.getKey(row), register);
+            }
+            changes.rowRemoved(row, register.getVersion(row));
+            register.removeRow(row);
+            fireTableRowsDeleted(row, row);
+        } finally {
+            endCompoundEdit();
+        }
+    }
+
+    public void clear() {
+        int rows = register.getRowCount();
+        register.clear();
+        changes.clear();
+        journal.clear();
+        if (rows > 0) {
+            fireTableRowsDeleted(0, rows - 1);
+        }
+    }
+
+    // Outcome of merging a database delta into the model
+    public static class MergeResult {
+        public final int updated;
+        public final int inserted;
+        public final int deleted;
+        public final int conflicts;
+
+        MergeResult(int updated, int inserted, int deleted, int conflicts) {
+            this.updated = updated;
+            this.inserted = inserted;
+            this.deleted = deleted;
+            this.conflicts = conflicts;
+        }
+
+        public int total() {
+            return updated + inserted + deleted;
+        }
+    }
+
+    // Merges rows changed in the database since the last load (delta refresh).
+    // Rows are matched by their database key. Clean rows take the database
+    // values; rows with unsaved edits or deletes keep them and are flagged as
+    // conflicts.
+    // Every changed row gets its own update/insert/delete event, so selection
+    // and scroll position survive. The undo history is cleared when anything
+    // changed, since its entries no longer describe the rows.
+    public MergeResult mergeRemote(PayrollRegister changed, long[] deletedKeys) {
+        Map<Long, Integer> rowsByKey = new HashMap<>();
+        Map<Long, Integer> insertedByKey = new HashMap<>();
+        for (int row = 0; row < register.getRowCount(); row++) {
+            if (changes.isInserted(row)) {
+                insertedByKey.put(ChangeTracker.keyOf(register, row), row);
+            } else {
+                rowsByKey.put(changes.getKey(row), row);
+            }
+        }
+
+        int updated = 0;
+        int inserted = 0;
+        int deleted = 0;
+        int conflicts = 0;
+        Set<Long> changedKeys = new HashSet<>();
+        for (int i = 0; i < changed.getRowCount(); i++) {
+            long key = ChangeTracker.keyOf(changed, i);
+            changedKeys.add(key);
+            Integer row = rowsByKey.get(key);
+            if (row == null) {
+                Integer local = insertedByKey.get(key);
+                if (local != null) {
+                    changes.markConflict(local); // Same ID and date added here and in the database
+                    conflicts++;
+                    fireTableRowsUpdated(local, local);
+                    continue;
+                }
+                int deletedIndex = changes.findDeleted(key);
+                if (deletedIndex >= 0) {
+                    // Deleted here, changed in the database: the delete stays
+                    // pending and applies on top of the version just seen
+                    if (changes.getDeletedVersion(deletedIndex) != changed.getVersion(i)) {
+                        changes.rebaseDeleted(deletedIndex, changed.getVersion(i));
+                        conflicts++;
+                    }
+                    continue;
+                }
+                int appended = register.getRowCount();
+                register.append(changed, i, 1);
+                changes.rowsAppended(1, true, register);
+                fireTableRowsInserted(appended, appended);
+                inserted++;
+            } else if (changes.isDirty(row)) {
+                if (register.getVersion(row) == changed.getVersion(i)) {
+                    continue; // Already merged by an earlier delta (they overlap)
+                }
+                if (!register.rowEquals(row, changed, i)) {
+                    changes.markConflict(row);
+                    conflicts++;
+                    fireTableRowsUpdated(row, row);
+                }
+                // The edits now apply on top of the version just seen
+                changes.rebase(row, changed, i);
+                register.setVersion(row, changed.getVersion(i));
+            } else if (!register.rowEquals(row, changed, i)) {
+                register.setRow(row, changed, i);
+                updated++;
+                fireTableRowsUpdated(row, row);
+            } else {
+                register.setVersion(row, changed.getVersion(i));
+            }
+        }
+
+        // Deletions last; a key that is also in the changed rows was re-inserted
+        int[] dropRows = new int[deletedKeys.length];
+        int drops = 0;
+        for (long key : deletedKeys) {
+            Integer row = rowsByKey.get(key);
+            if (row == null || changedKeys.contains(key)) {
+                continue;
+            }
+            if (changes.isDirty(row)) {
+                changes.markDeletedRemotely(row);
+                conflicts++;
+                fireTableRowsUpdated(row, row);
+            } else {
+                dropRows[drops++] = row;
+            }
+        }
+        Arrays.sort(dropRows, 0, drops);
+        for (int i = drops - 1; i >= 0; i--) {
+            register.removeRow(dropRows[i]);
+            changes.rowDropped(dropRows[i]);
+            fireTableRowsDeleted(dropRows[i], dropRows[i]);
+            deleted++;
+        }
+
+        if (updated + inserted + deleted > 0) {
+            journal.clear();
+        }
+        return new MergeResult(updated, inserted, deleted, conflicts);
+    }
+
+    // Marks the current contents as saved
+    public void acceptChanges() {
+        changes.acceptChanges(register);
+    }
+
+    // After a partly rejected submit: everything but the rejected rows and
+    // deletes (by key) is saved
+    public void acceptChanges(BitSet rejectedRows, long[] rejectedDeletes) {
+        changes.acceptChanges(register, rejectedRows, rejectedDeletes);
+        for (int row = rejectedRows.nextSetBit(0); row >= 0; row = rejectedRows.nextSetBit(row + 1)) {
+            fireTableRowsUpdated(row, row); // Repaint the conflict highlight
+        }
+    }
+
+    // Offline changes were replayed into the database, which gave the rows new
+    // versions: rows and pending deletes with those keys move up to them so
+    // the next submit does not take the replay for someone else's change.
+    // Versions only grow; a newer one seen by a refresh in between is kept.
+    public void advanceVersions(long[] keys, int[] versions) {
+        Map<Long, Integer> versionsByKey = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            versionsByKey.put(keys[i], versions[i]);
+        }
+        for (int row = 0; row < register.getRowCount(); row++) {
+            Integer version = changes.isInserted(row) ? null : versionsByKey.get(changes.getKey(row));
+            if (version != null && version > register.getVersion(row)) {
+                register.setVersion(row, version);
+            }
+        }
+        for (int i = 0; i < changes.getDeletedCount(); i++) {
+            Integer version = versionsByKey.get(changes.getDeletedKey(i));
+            if (version != null && version > changes.getDeletedVersion(i)) {
+                changes.rebaseDeleted(i, version);
+            }
+        }
+    }
+
+    // Replaces a row with values merged from the database (auto-merge on submit)
+    public void replaceRow(int row, PayrollRegister values, int valuesRow) {
+        register.setRow(row, values, valuesRow);
+        journal.clear();
+        fireTableRowsUpdated(row, row);
+    }
+
+    private void flushUpdatedRows() {
+        if (updatedFirst >= 0) {
+            int first = updatedFirst;
+            int last = updatedLast;
+            updatedFirst = -1;
+            updatedLast = -1;
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    // Writes replayed entries straight into the register without
+    // recalculating; the journal already holds the recalculated values.
+    // Consecutive rows are fired as one update.
+    private class ReplayTarget implements UndoJournal.Target {
+        @Override
+        public void setCell(int row, int column, long value) {
+            changes.recordBase(row, register);
+            if (updatedFirst >= 0 && (row < updatedFirst - 1 || row > updatedLast + 1)) {
+                flushUpdatedRows();
+            }
+            register.setRaw(row, column, value);
+            changes.cellUpdated(row, column);
+            updatedFirst = updatedFirst < 0 ? row : Math.min(updatedFirst, row);
+            updatedLast = Math.max(updatedLast, row);
+        }
+
+        @Override
+        public void insertRow(int row, int mask, long key, int version, long[] values) {
+            flushUpdatedRows();
+            register.insertRow(row);
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                register.setRaw(row, col, values[col]);
+            }
+            register.setVersion(row, version);
+            changes.rowRestored(row, mask, key);
+            fireTableRowsInserted(row, row);
+        }
+
+        @Override
+        public void removeRow(int row) {
+            flushUpdatedRows();
+            changes.rowRemoved(row, register.getVersion(row));
+            register.removeRow(row);
+            fireTableRowsDeleted(row, row);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.payroll.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps repeated strings (employee names, statuses) to small int codes
+final class StringDictionary {
+    static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        codes.clear();
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+}
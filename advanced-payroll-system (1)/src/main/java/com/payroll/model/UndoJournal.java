@@ -0,0 +1,286 @@
+package com.payroll.model;
+
+import java.util.Arrays;
+
+// Undo/redo history of register edits, kept as primitive longs in a ring
+// buffer of fixed size instead of a list of edit objects. Entries start with
+// a header long (kind, column, row):
+//   CELL          header, old value, new value
+//   ROW_INSERTED  header, the row's COUNT values
+//   ROW_DELETED   header, change-tracker mask and row version, key, the row's COUNT values
+// Values are the register's raw cells (cents, ints, epoch days, dictionary
+// codes), so a cell edit costs 24 bytes whatever its type.
+// Everything recorded between begin() and end() is one step that undo and
+// redo apply as a unit; nested begin/end pairs join the outer step, which is
+// how an edit and the fields recalculated from it become a single undo.
+// When the buffer is full the oldest steps are dropped. A step larger than
+// the whole buffer cannot be kept and clears the history instead.
+public class UndoJournal {
+    public static final long DEFAULT_MEMORY_LIMIT = 8L << 20;
+    public static final int DEFAULT_MAX_STEPS = 1000;
+
+    static final int CELL = 1;
+    static final int ROW_INSERTED = 2;
+    static final int ROW_DELETED = 3;
+
+    // Applies journal entries back to the model during undo/redo
+    interface Target {
+        void setCell(int row, int column, long value);
+
+        void insertRow(int row, int mask, long key, int version, long[] values);
+
+        void removeRow(int row);
+    }
+
+    private final long[] data;
+    private final int[] stepStarts;
+    private final int[] stepLengths;
+    private final long[] rowValues = new long[PayrollColumns.COUNT];
+    private int[] entryOffsets = new int[64];
+
+    private int firstStep;  // ring index of the oldest step
+    private int stepCount;  // steps held, undoable and redoable
+    private int undoCount;  // the first undoCount steps can be undone, the rest redone
+    private int dataStart;  // offset of the oldest step's first long
+    private int dataUsed;   // longs held by all steps
+
+    private int depth;
+    private int pendingLength;
+    private boolean overflowed;
+
+    public UndoJournal() {
+        this(DEFAULT_MEMORY_LIMIT, DEFAULT_MAX_STEPS);
+    }
+
+    public UndoJournal(long memoryLimitBytes, int maxSteps) {
+        long longs = memoryLimitBytes / Long.BYTES;
+        if (longs < 3L + PayrollColumns.COUNT || longs > Integer.MAX_VALUE - 8 || maxSteps < 1) {
+            throw new IllegalArgumentException("Undo limit of " + memoryLimitBytes + " bytes / "
+                + maxSteps + " steps is out of range");
+        }
+        data = new long[(int) longs];
+        stepStarts = new int[maxSteps];
+        stepLengths = new int[maxSteps];
+    }
+
+    public long getMemoryLimit() {
+        return (long) data.length * Long.BYTES;
+    }
+
+    public long getUsedBytes() {
+        return (long) (dataUsed + pendingLength) * Long.BYTES;
+    }
+
+    public boolean canUndo() {
+        return depth == 0 && undoCount > 0;
+    }
+
+    public boolean canRedo() {
+        return depth == 0 && undoCount < stepCount;
+    }
+
+    public void clear() {
+        firstStep = 0;
+        stepCount = 0;
+        undoCount = 0;
+        dataStart = 0;
+        dataUsed = 0;
+        pendingLength = 0;
+        overflowed = false;
+    }
+
+    // Recording
+
+    void begin() {
+        depth++;
+    }
+
+    void end() {
+        if (depth == 0) {
+            throw new IllegalStateException("end() without begin()");
+        }
+        if (--depth > 0) {
+            return;
+        }
+        if (overflowed) {
+            clear();
+        } else if (pendingLength > 0) {
+            if (stepCount == stepStarts.length) {
+                dropOldestStep();
+            }
+            int step = (firstStep + stepCount) % stepStarts.length;
+            stepStarts[step] = (dataStart + dataUsed) % data.length;
+            stepLengths[step] = pendingLength;
+            dataUsed += pendingLength;
+            stepCount++;
+            undoCount = stepCount;
+            pendingLength = 0;
+        }
+    }
+
+    void cellChanged(int row, int column, long oldValue, long newValue) {
+        if (oldValue == newValue) {
+            return;
+        }
+        write(header(CELL, column, row));
+        write(oldValue);
+        write(newValue);
+    }
+
+    void rowInserted(int row, PayrollRegister register) {
+        write(header(ROW_INSERTED, 0, row));
+        writeRow(row, register);
+    }
+
+    void rowDeleted(int row, int mask, long key, PayrollRegister register) {
+        write(header(ROW_DELETED, 0, row));
+        write(((long) mask << 32) | (register.getVersion(row) & 0xFFFFFFFFL));
+        write(key);
+        writeRow(row, register);
+    }
+
+    private void writeRow(int row, PayrollRegister register) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            write(register.getRaw(row, col));
+        }
+    }
+
+    private void write(long value) {
+        if (depth == 0) {
+            throw new IllegalStateException("Journal entry outside begin()/end()");
+        }
+        if (overflowed) {
+            return;
+        }
+        if (pendingLength == 0) {
+            discardRedo(); // A new edit ends the redo chain
+        }
+        if (dataUsed + pendingLength == data.length) {
+            if (stepCount == 0) {
+                overflowed = true;
+                return;
+            }
+            dropOldestStep();
+        }
+        data[(dataStart + dataUsed + pendingLength) % data.length] = value;
+        pendingLength++;
+    }
+
+    private void discardRedo() {
+        while (stepCount > undoCount) {
+            stepCount--;
+            dataUsed -= stepLengths[(firstStep + stepCount) % stepStarts.length];
+        }
+    }
+
+    private void dropOldestStep() {
+        int length = stepLengths[firstStep];
+        dataStart = (dataStart + length) % data.length;
+        dataUsed -= length;
+        firstStep = (firstStep + 1) % stepStarts.length;
+        stepCount--;
+        undoCount = Math.max(0, undoCount - 1);
+    }
+
+    // Replay
+
+    boolean undo(Target target) {
+        if (!canUndo()) {
+            return false;
+        }
+        undoCount--;
+        int step = (firstStep + undoCount) % stepStarts.length;
+        int entries = indexEntries(step);
+        for (int i = entries - 1; i >= 0; i--) {
+            apply(entryOffsets[i], target, true);
+        }
+        return true;
+    }
+
+    boolean redo(Target target) {
+        if (!canRedo()) {
+            return false;
+        }
+        int step = (firstStep + undoCount) % stepStarts.length;
+        undoCount++;
+        int entries = indexEntries(step);
+        for (int i = 0; i < entries; i++) {
+            apply(entryOffsets[i], target, false);
+        }
+        return true;
+    }
+
+    // Collects the offsets of a step's entries so they can be walked backwards
+    private int indexEntries(int step) {
+        int offset = stepStarts[step];
+        int remaining = stepLengths[step];
+        int entries = 0;
+        while (remaining > 0) {
+            if (entries == entryOffsets.length) {
+                entryOffsets = Arrays.copyOf(entryOffsets, entries * 2);
+            }
+            entryOffsets[entries++] = offset;
+            int length = entryLength(kindOf(data[offset]));
+            offset = (offset + length) % data.length;
+            remaining -= length;
+        }
+        return entries;
+    }
+
+    private void apply(int offset, Target target, boolean undo) {
+        long header = data[offset];
+        int row = (int) header;
+        switch (kindOf(header)) {
+            case CELL:
+                target.setCell(row, (int) (header >>> 48) & 0xFF, data[(offset + (undo ? 1 : 2)) % data.length]);
+                break;
+            case ROW_INSERTED:
+                if (undo) {
+                    target.removeRow(row);
+                } else {
+                    readRow(offset + 1);
+                    target.insertRow(row, 0, ChangeTracker.NO_KEY, 0, rowValues);
+                }
+                break;
+            case ROW_DELETED:
+                if (undo) {
+                    long state = data[(offset + 1) % data.length];
+                    long key = data[(offset + 2) % data.length];
+                    readRow(offset + 3);
+                    target.insertRow(row, (int) (state >>> 32), key, (int) state, rowValues);
+                } else {
+                    target.removeRow(row);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Corrupt undo journal entry " + Long.toHexString(header));
+        }
+    }
+
+    private void readRow(int offset) {
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            rowValues[col] = data[(offset + col) % data.length];
+        }
+    }
+
+    private static long header(int kind, int column, int row) {
+        return ((long) kind << 56) | ((long) column << 48) | (row & 0xFFFFFFFFL);
+    }
+
+    private static int kindOf(long header) {
+        return (int) (header >>> 56);
+    }
+
+    private static int entryLength(int kind) {
+        switch (kind) {
+            case CELL:
+                return 3;
+            case ROW_INSERTED:
+                return 1 + PayrollColumns.COUNT;
+            case ROW_DELETED:
+                return 3 + PayrollColumns.COUNT;
+            default:
+                throw new IllegalStateException("Corrupt undo journal entry kind " + kind);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.payroll.search;
+
+import com.payroll.db.RegisterFilter;
+import com.payroll.metrics.PayrollMetrics;
+
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+// Runs RegisterIndex lookups on a background thread for search-as-you-type.
+// Starting a search cancels the one still in flight, and only the result of
+// the latest search is delivered, on the EDT, as a ready-made row filter.
+public class AsyncSearcher {
+    private final RegisterIndex index;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "payroll-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> running;
+    private int generation;
+
+    public AsyncSearcher(RegisterIndex index) {
+        this.index = index;
+    }
+
+    // Call on the EDT. onResult receives null when the filter is empty.
+    public void search(RegisterFilter filter, Consumer<IndexedRowFilter> onResult) {
+        cancel();
+        int gen = generation;
+        if (filter.isEmpty()) {
+            onResult.accept(null);
+            return;
+        }
+        index.refresh(); // Any rebuild happens here, on the EDT
+        int version = index.getVersion();
+        running = executor.submit(() -> {
+            long start = System.nanoTime();
+            BitSet rows = index.searchIfCurrent(filter);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (rows != null) {
+                PayrollMetrics.SEARCH.record(start, rows.cardinality());
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (gen == generation) {
+                    // rows is null if the index went stale meanwhile; the filter then looks up on first use
+                    onResult.accept(rows == null
+                        ? new IndexedRowFilter(index, filter)
+                        : new IndexedRowFilter(index, filter, rows, version));
+                }
+            });
+        });
+    }
+
+    // Drops the search in flight, if any; call on the EDT
+    public void cancel() {
+        generation++;
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    public void dispose() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
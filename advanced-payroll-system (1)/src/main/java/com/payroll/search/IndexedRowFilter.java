@@ -0,0 +1,37 @@
+package com.payroll.search;
+
+import com.payroll.db.RegisterFilter;
+
+import java.util.BitSet;
+import javax.swing.RowFilter;
+import javax.swing.table.TableModel;
+
+// RowFilter backed by a RegisterIndex lookup. The matching rows are computed
+// once per index version, so include() is a single bit test per row.
+public class IndexedRowFilter extends RowFilter<TableModel, Integer> {
+    private final RegisterIndex index;
+    private final RegisterFilter filter;
+    private BitSet matches;
+    private int matchesVersion;
+
+    public IndexedRowFilter(RegisterIndex index, RegisterFilter filter) {
+        this.index = index;
+        this.filter = filter;
+    }
+
+    // Starts from rows already looked up (e.g. in the background) at the given index version
+    public IndexedRowFilter(RegisterIndex index, RegisterFilter filter, BitSet matches, int version) {
+        this(index, filter);
+        this.matches = matches;
+        this.matchesVersion = version;
+    }
+
+    @Override
+    public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+        if (matches == null || matchesVersion != index.getVersion()) {
+            matchesVersion = index.getVersion();
+            matches = index.search(filter);
+        }
+        return matches.get(entry.getIdentifier());
+    }
+}
@@ -0,0 +1,95 @@
+package com.payroll.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Hash index from an int key to the rows holding it, without boxing.
+// Keys live in an open-addressing table; the rows for a key form a chain
+// through the per-row next[] array.
+final class IntMultiIndex {
+    private static final int FREE = -2;
+    private static final int NO_ROW = -1;
+
+    private int[] keys = new int[64];
+    private int[] heads = new int[64];
+    private int used;
+    private int[] next = new int[64];
+
+    IntMultiIndex() {
+        Arrays.fill(heads, FREE);
+    }
+
+    void add(int key, int row) {
+        if (row >= next.length) {
+            next = Arrays.copyOf(next, Math.max(row + 1, next.length * 2));
+        }
+        if ((used + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slotFor(key);
+        if (heads[slot] == FREE) {
+            keys[slot] = key;
+            heads[slot] = NO_ROW;
+            used++;
+        }
+        next[row] = heads[slot];
+        heads[slot] = row;
+    }
+
+    void remove(int key, int row) {
+        int slot = slotFor(key);
+        int previous = NO_ROW;
+        for (int current = heads[slot]; current >= 0; current = next[current]) {
+            if (current == row) {
+                if (previous == NO_ROW) {
+                    heads[slot] = next[current];
+                } else {
+                    next[previous] = next[current];
+                }
+                return;
+            }
+            previous = current;
+        }
+    }
+
+    void collect(int key, BitSet rows) {
+        for (int current = heads[slotFor(key)]; current >= 0; current = next[current]) {
+            rows.set(current);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(heads, FREE);
+        used = 0;
+    }
+
+    // Slot holding key, or the free slot where it would go
+    private int slotFor(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (heads[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new int[capacity];
+        heads = new int[capacity];
+        Arrays.fill(heads, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != FREE) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
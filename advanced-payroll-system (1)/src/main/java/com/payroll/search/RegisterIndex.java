@@ -0,0 +1,286 @@
+package com.payroll.search;
+
+import com.payroll.db.RegisterFilter;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+// In-memory search index over the register, kept current from TableModelEvents:
+//  - hash index on ID
+//  - sorted index on payment date (epoch day -> rows)
+//  - trigram index on employee name, built over the distinct names of the
+//    name dictionary rather than over rows
+// A search returns a BitSet of matching model rows; the criteria are
+// intersected bitmap-wise. Row deletions mark the index stale and it is
+// rebuilt on the next search.
+// Updates arrive on the EDT; searches may also run on a background thread
+// (see AsyncSearcher), so both are synchronized. Rebuilding reads the
+// register and therefore only happens on the EDT.
+public class RegisterIndex implements TableModelListener {
+    private final PayrollRegister register;
+
+    private final IntMultiIndex idIndex = new IntMultiIndex();
+    private final TreeMap<Integer, IntList> dateIndex = new TreeMap<>();
+    private final Map<Long, IntList> trigramIndex = new HashMap<>();
+    private IntList[] rowsByName = new IntList[64];
+    private String[] lowerNames = new String[64];
+
+    // Values currently indexed for each row, so updates can unlink the old entry
+    private int[] indexedIds = new int[64];
+    private int[] indexedDays = new int[64];
+    private int[] indexedNames = new int[64];
+    private int indexedRows;
+    private boolean stale;
+    private volatile int version;
+
+    public RegisterIndex(PayrollRegister register) {
+        this.register = register;
+        rebuild();
+    }
+
+    // Changes whenever the indexed data changes; lets callers cache results
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized void tableChanged(TableModelEvent e) {
+        version++;
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE
+                || e.getType() == TableModelEvent.DELETE) {
+            stale = true;
+            return;
+        }
+        if (stale) {
+            return;
+        }
+        if (e.getType() == TableModelEvent.INSERT) {
+            if (first != indexedRows) {
+                stale = true; // Not an append
+                return;
+            }
+            for (int row = first; row <= last; row++) {
+                addRow(row);
+            }
+        } else {
+            int column = e.getColumn();
+            if (column == TableModelEvent.ALL_COLUMNS || column == PayrollColumns.PAYMENT_DATE
+                    || column == PayrollColumns.ID || column == PayrollColumns.EMPLOYEE_NAME) {
+                for (int row = first; row <= last; row++) {
+                    reindexRow(row);
+                }
+            }
+        }
+    }
+
+    // Brings a stale index up to date; EDT only
+    public synchronized void refresh() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    // Rows matching every non-empty criterion of the filter; EDT only
+    public synchronized BitSet search(RegisterFilter filter) {
+        refresh();
+        return lookup(filter);
+    }
+
+    // Same as search() but safe off the EDT: returns null instead of
+    // rebuilding when the index is stale. An interrupted lookup stops early
+    // with a partial result that the caller is expected to discard.
+    public synchronized BitSet searchIfCurrent(RegisterFilter filter) {
+        return stale ? null : lookup(filter);
+    }
+
+    private BitSet lookup(RegisterFilter filter) {
+        BitSet result = new BitSet(indexedRows);
+        result.set(0, indexedRows);
+        if (filter.getText() != null) {
+            result.and(matchText(filter.getText()));
+        }
+        if (filter.getId() != null) {
+            result.and(matchId(filter.getId()));
+        }
+        if (filter.getDate() != null) {
+            result.and(matchDate(filter.getDate()));
+        }
+        return result;
+    }
+
+    // General search: name contains the text, or the text is the ID, or it matches the date
+    private BitSet matchText(String text) {
+        BitSet rows = matchName(text.toLowerCase());
+        rows.or(matchId(text));
+        rows.or(matchDate(text));
+        return rows;
+    }
+
+    private BitSet matchId(String text) {
+        BitSet rows = new BitSet();
+        try {
+            idIndex.collect(Integer.parseInt(text.trim()), rows);
+        } catch (NumberFormatException e) {
+            // Not an ID
+        }
+        return rows;
+    }
+
+    private BitSet matchDate(String text) {
+        BitSet rows = new BitSet();
+        LocalDate[] range = RegisterFilter.dateRange(text.trim());
+        NavigableMap<Integer, IntList> days;
+        if (range != null) {
+            days = dateIndex.subMap((int) range[0].toEpochDay(), true, (int) range[1].toEpochDay(), false);
+            for (IntList dayRows : days.values()) {
+                dayRows.addTo(rows);
+            }
+        } else {
+            // Partial input such as "-01-15": distinct pay dates are few, so check each one
+            for (Map.Entry<Integer, IntList> day : dateIndex.entrySet()) {
+                if (LocalDate.ofEpochDay(day.getKey()).toString().contains(text.trim())) {
+                    day.getValue().addTo(rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private BitSet matchName(String lowerText) {
+        BitSet rows = new BitSet();
+        BitSet candidates = null;
+        if (lowerText.length() >= 3) {
+            // Names containing every trigram of the text
+            for (int i = 0; i + 3 <= lowerText.length(); i++) {
+                IntList slots = trigramIndex.get(trigram(lowerText, i));
+                if (slots == null) {
+                    return rows;
+                }
+                BitSet slotBits = new BitSet();
+                slots.addTo(slotBits);
+                if (candidates == null) {
+                    candidates = slotBits;
+                } else {
+                    candidates.and(slotBits);
+                }
+            }
+        }
+
+        int slots = lowerNames.length;
+        for (int slot = candidates == null ? 0 : candidates.nextSetBit(0);
+                slot >= 0 && slot < slots;
+                slot = candidates == null ? slot + 1 : candidates.nextSetBit(slot + 1)) {
+            if ((slot & 0xFF) == 0 && Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            // Trigrams can match out of order, so confirm the substring
+            if (lowerNames[slot] != null && rowsByName[slot] != null && lowerNames[slot].contains(lowerText)) {
+                rowsByName[slot].addTo(rows);
+            }
+        }
+        return rows;
+    }
+
+    private void rebuild() {
+        idIndex.clear();
+        dateIndex.clear();
+        for (IntList rows : rowsByName) {
+            if (rows != null) {
+                rows.clear();
+            }
+        }
+        indexedRows = 0;
+        for (int row = 0; row < register.getRowCount(); row++) {
+            addRow(row);
+        }
+        stale = false;
+    }
+
+    private void addRow(int row) {
+        if (row >= indexedIds.length) {
+            int capacity = Math.max(row + 1, indexedIds.length * 2);
+            indexedIds = Arrays.copyOf(indexedIds, capacity);
+            indexedDays = Arrays.copyOf(indexedDays, capacity);
+            indexedNames = Arrays.copyOf(indexedNames, capacity);
+        }
+        indexedIds[row] = register.getInt(row, PayrollColumns.ID);
+        indexedDays[row] = register.getEpochDay(row);
+        indexedNames[row] = register.getTextCode(row, PayrollColumns.EMPLOYEE_NAME);
+
+        idIndex.add(indexedIds[row], row);
+        if (register.hasPaymentDate(row)) {
+            dateIndex.computeIfAbsent(indexedDays[row], day -> new IntList()).add(row);
+        }
+        nameRows(indexedNames[row]).add(row);
+        indexedRows = Math.max(indexedRows, row + 1);
+    }
+
+    private void reindexRow(int row) {
+        if (row >= indexedRows) {
+            return;
+        }
+        int id = register.getInt(row, PayrollColumns.ID);
+        if (id != indexedIds[row]) {
+            idIndex.remove(indexedIds[row], row);
+            idIndex.add(id, row);
+            indexedIds[row] = id;
+        }
+        int day = register.getEpochDay(row);
+        if (day != indexedDays[row]) {
+            IntList oldRows = dateIndex.get(indexedDays[row]);
+            if (oldRows != null) {
+                oldRows.remove(row);
+            }
+            if (register.hasPaymentDate(row)) {
+                dateIndex.computeIfAbsent(day, d -> new IntList()).add(row);
+            }
+            indexedDays[row] = day;
+        }
+        int name = register.getTextCode(row, PayrollColumns.EMPLOYEE_NAME);
+        if (name != indexedNames[row]) {
+            nameRows(indexedNames[row]).remove(row);
+            nameRows(name).add(row);
+            indexedNames[row] = name;
+        }
+    }
+
+    // Row list for a name code; the first time a name is seen its trigrams are indexed.
+    // Rows without a name share the slot after the last code.
+    private IntList nameRows(int code) {
+        int slot = code < 0 ? 0 : code + 1;
+        if (slot >= rowsByName.length) {
+            int capacity = Math.max(slot + 1, rowsByName.length * 2);
+            rowsByName = Arrays.copyOf(rowsByName, capacity);
+            lowerNames = Arrays.copyOf(lowerNames, capacity);
+        }
+        if (rowsByName[slot] == null) {
+            rowsByName[slot] = new IntList();
+            if (code >= 0) {
+                String lower = register.decodeText(PayrollColumns.EMPLOYEE_NAME, code).toLowerCase();
+                lowerNames[slot] = lower;
+                for (int i = 0; i + 3 <= lower.length(); i++) {
+                    IntList slots = trigramIndex.computeIfAbsent(trigram(lower, i), t -> new IntList(2));
+                    if (slots.size() == 0 || slots.get(slots.size() - 1) != slot) {
+                        slots.add(slot);
+                    }
+                }
+            }
+        }
+        return rowsByName[slot];
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
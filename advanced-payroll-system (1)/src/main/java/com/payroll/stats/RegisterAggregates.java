@@ -0,0 +1,206 @@
+package com.payroll.stats;
+
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+// Running totals over the register, maintained from TableModelEvents:
+// row count, per-status counts and the sums of basic salary, gross pay,
+// total deductions and net pay. A changed cell costs O(1): the values each
+// row last contributed are kept in shadow arrays, so an update subtracts the
+// old contribution and adds the new one. Only events that don't say which
+// rows changed (fireTableDataChanged) trigger a full recount.
+// Like the model itself, this is confined to the EDT.
+public class RegisterAggregates implements TableModelListener {
+    private static final int TRACKED_COLUMNS = 1 << PayrollColumns.BASIC_SALARY
+        | 1 << PayrollColumns.GROSS_PAY | 1 << PayrollColumns.TOTAL_DEDUCTIONS
+        | 1 << PayrollColumns.NET_PAY | 1 << PayrollColumns.STATUS;
+
+    private final PayrollRegister register;
+
+    // What each row currently contributes
+    private long[] basicSalaries = new long[64];
+    private long[] grossPays = new long[64];
+    private long[] totalDeductions = new long[64];
+    private long[] netPays = new long[64];
+    private int[] statusCodes = new int[64];
+    private int rows;
+
+    // Indexed by status code + 1 so rows without a status have a slot too
+    private int[] statusCounts = new int[8];
+    private long basicSalaryTotal;
+    private long grossPayTotal;
+    private long totalDeductionsTotal;
+    private long netPayTotal;
+    private int version;
+
+    public RegisterAggregates(PayrollRegister register) {
+        this.register = register;
+        recount();
+    }
+
+    // Changes whenever any aggregate changes
+    public int getVersion() {
+        return version;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public long getBasicSalaryTotal() {
+        return basicSalaryTotal;
+    }
+
+    // Mean basic salary in cents, 0 for an empty register
+    public long getAverageBasicSalary() {
+        return rows == 0 ? 0 : Money.divide(basicSalaryTotal, rows);
+    }
+
+    public long getGrossPayTotal() {
+        return grossPayTotal;
+    }
+
+    public long getTotalDeductionsTotal() {
+        return totalDeductionsTotal;
+    }
+
+    public long getNetPayTotal() {
+        return netPayTotal;
+    }
+
+    public int getStatusCount(String status) {
+        for (int slot = 1; slot < statusCounts.length; slot++) {
+            if (statusCounts[slot] > 0 && status.equals(register.decodeText(PayrollColumns.STATUS, slot - 1))) {
+                return statusCounts[slot];
+            }
+        }
+        return 0;
+    }
+
+    // Row count per status in first-seen order; rows without a status are left out
+    public Map<String, Integer> getStatusCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int slot = 1; slot < statusCounts.length; slot++) {
+            if (statusCounts[slot] > 0) {
+                counts.put(register.decodeText(PayrollColumns.STATUS, slot - 1), statusCounts[slot]);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            recount();
+            return;
+        }
+        switch (e.getType()) {
+            case TableModelEvent.INSERT:
+                insertRows(first, last - first + 1);
+                break;
+            case TableModelEvent.DELETE:
+                deleteRows(first, last - first + 1);
+                break;
+            default:
+                int column = e.getColumn();
+                if (column != TableModelEvent.ALL_COLUMNS && (TRACKED_COLUMNS & 1 << column) == 0) {
+                    return;
+                }
+                for (int row = first; row <= last && row < rows; row++) {
+                    subtract(row);
+                    add(row);
+                }
+                break;
+        }
+        version++;
+    }
+
+    private void recount() {
+        rows = 0;
+        Arrays.fill(statusCounts, 0);
+        basicSalaryTotal = 0;
+        grossPayTotal = 0;
+        totalDeductionsTotal = 0;
+        netPayTotal = 0;
+        insertRows(0, register.getRowCount());
+        version++;
+    }
+
+    private void insertRows(int first, int count) {
+        ensureCapacity(rows + count);
+        if (first < rows) {
+            // Not an append: open a gap in the shadow arrays
+            int tail = rows - first;
+            System.arraycopy(basicSalaries, first, basicSalaries, first + count, tail);
+            System.arraycopy(grossPays, first, grossPays, first + count, tail);
+            System.arraycopy(totalDeductions, first, totalDeductions, first + count, tail);
+            System.arraycopy(netPays, first, netPays, first + count, tail);
+            System.arraycopy(statusCodes, first, statusCodes, first + count, tail);
+        }
+        rows += count;
+        for (int row = first; row < first + count; row++) {
+            add(row);
+        }
+    }
+
+    private void deleteRows(int first, int count) {
+        for (int row = first; row < first + count; row++) {
+            subtract(row);
+        }
+        int tail = rows - first - count;
+        System.arraycopy(basicSalaries, first + count, basicSalaries, first, tail);
+        System.arraycopy(grossPays, first + count, grossPays, first, tail);
+        System.arraycopy(totalDeductions, first + count, totalDeductions, first, tail);
+        System.arraycopy(netPays, first + count, netPays, first, tail);
+        System.arraycopy(statusCodes, first + count, statusCodes, first, tail);
+        rows -= count;
+    }
+
+    // Reads the row from the register and adds it to the totals
+    private void add(int row) {
+        basicSalaries[row] = register.getCents(row, PayrollColumns.BASIC_SALARY);
+        grossPays[row] = register.getCents(row, PayrollColumns.GROSS_PAY);
+        totalDeductions[row] = register.getCents(row, PayrollColumns.TOTAL_DEDUCTIONS);
+        netPays[row] = register.getCents(row, PayrollColumns.NET_PAY);
+        statusCodes[row] = register.getTextCode(row, PayrollColumns.STATUS);
+
+        basicSalaryTotal = Money.add(basicSalaryTotal, basicSalaries[row]);
+        grossPayTotal = Money.add(grossPayTotal, grossPays[row]);
+        totalDeductionsTotal = Money.add(totalDeductionsTotal, totalDeductions[row]);
+        netPayTotal = Money.add(netPayTotal, netPays[row]);
+        int slot = statusCodes[row] + 1;
+        if (slot >= statusCounts.length) {
+            statusCounts = Arrays.copyOf(statusCounts, Math.max(slot + 1, statusCounts.length * 2));
+        }
+        statusCounts[slot]++;
+    }
+
+    // Removes what the row contributed when it was last added
+    private void subtract(int row) {
+        basicSalaryTotal = Money.subtract(basicSalaryTotal, basicSalaries[row]);
+        grossPayTotal = Money.subtract(grossPayTotal, grossPays[row]);
+        totalDeductionsTotal = Money.subtract(totalDeductionsTotal, totalDeductions[row]);
+        netPayTotal = Money.subtract(netPayTotal, netPays[row]);
+        statusCounts[statusCodes[row] + 1]--;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > basicSalaries.length) {
+            int capacity = Math.max(minCapacity, basicSalaries.length + (basicSalaries.length >> 1));
+            basicSalaries = Arrays.copyOf(basicSalaries, capacity);
+            grossPays = Arrays.copyOf(grossPays, capacity);
+            totalDeductions = Arrays.copyOf(totalDeductions, capacity);
+            netPays = Arrays.copyOf(netPays, capacity);
+            statusCodes = Arrays.copyOf(statusCodes, capacity);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.payroll.ui;
+
+import com.payroll.model.ChangeTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Bold and highlight set on individual register cells, plus the conditional
+// formatting rules. Cells are keyed by the row's primary key (id, payment
+// date - see ChangeTracker.keyOf) and column, so a style stays with its row
+// through sorting, filtering, deletes above it and reloads.
+// Only styled rows take space: an open-addressing table maps the row key to
+// one long holding the bold columns in the low 32 bits and the highlighted
+// ones in the high 32 bits (16 bytes per styled row). Lookups are a hash and
+// a short probe with no allocation, cheap enough for every painted cell.
+// The register has 24 columns; each mask has room for 32.
+// Call from the EDT.
+public class CellStyles {
+    public static final int BOLD = 1;
+    public static final int HIGHLIGHT = 2;
+
+    private static final long EMPTY = ChangeTracker.NO_KEY;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys = newKeys(MIN_CAPACITY);
+    private long[] masks = new long[MIN_CAPACITY];
+    private int size;
+    private final List<FormatRule> rules = new ArrayList<>();
+    private FormatRule[] ruleArray = new FormatRule[0];
+
+    // BOLD and/or HIGHLIGHT set on the cell by hand
+    public int get(long rowKey, int column) {
+        int slot = find(rowKey);
+        if (slot < 0) {
+            return 0;
+        }
+        long mask = masks[slot];
+        int style = (int) (mask >>> column) & 1; // BOLD
+        return style | ((int) (mask >>> (32 + column)) & 1) << 1; // HIGHLIGHT
+    }
+
+    public void set(long rowKey, int column, int style, boolean on) {
+        if (rowKey == EMPTY) {
+            return;
+        }
+        long bits = 0;
+        if ((style & BOLD) != 0) {
+            bits |= 1L << column;
+        }
+        if ((style & HIGHLIGHT) != 0) {
+            bits |= 1L << (32 + column);
+        }
+        int slot = find(rowKey);
+        if (slot >= 0) {
+            masks[slot] = on ? masks[slot] | bits : masks[slot] & ~bits;
+            if (masks[slot] == 0) {
+                removeSlot(slot);
+            }
+        } else if (on && bits != 0) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            slot = indexOf(rowKey, keys.length);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = rowKey;
+            masks[slot] = bits;
+            size++;
+        }
+    }
+
+    // Rows with at least one styled cell
+    public int getStyledRowCount() {
+        return size;
+    }
+
+    public void clear() {
+        keys = newKeys(MIN_CAPACITY);
+        masks = new long[MIN_CAPACITY];
+        size = 0;
+    }
+
+    public void addRule(FormatRule rule) {
+        rules.add(rule);
+        ruleArray = rules.toArray(new FormatRule[0]);
+    }
+
+    public void removeRule(int index) {
+        rules.remove(index);
+        ruleArray = rules.toArray(new FormatRule[0]);
+    }
+
+    public List<FormatRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    // Read by the renderer without an iterator
+    FormatRule[] ruleArray() {
+        return ruleArray;
+    }
+
+    private int find(long rowKey) {
+        int slot = indexOf(rowKey, keys.length);
+        long key;
+        while ((key = keys[slot]) != EMPTY) {
+            if (key == rowKey) {
+                return slot;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion keeps every probe chain unbroken without tombstones
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = indexOf(keys[next], keys.length);
+            // Move the entry back if its home is not between the hole and it
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                masks[hole] = masks[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        masks[hole] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldMasks = masks;
+        keys = newKeys(capacity);
+        masks = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = indexOf(oldKeys[i], capacity);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                masks[slot] = oldMasks[i];
+            }
+        }
+    }
+
+    private static int indexOf(long key, int capacity) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
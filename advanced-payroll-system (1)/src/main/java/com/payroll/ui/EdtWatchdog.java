@@ -0,0 +1,275 @@
+package com.payroll.ui;
+
+import com.payroll.metrics.PayrollMetrics;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Detects event dispatch thread stalls: the EDT working on one event, or one
+// event's handler, for longer than the threshold without getting back to
+// the event queue. A pushed EventQueue notes when the EDT takes an event and
+// when it asks for the next one (modal dialogs ask too, so a dialog left
+// open is not a stall). A daemon thread polls and, once a busy period passes
+// the threshold, captures the EDT stack while it is still stuck.
+// Finished stalls are grouped by call site - the innermost application frame
+// of the captured stack - with count, total and longest time and the stack
+// of the longest one. The report is available from getReport(), over JMX as
+// com.payroll:type=EdtWatchdog, and each stall also goes to stderr and to
+// the "edtStall" operation metrics.
+// Outside a stall the EDT only writes a timestamp per event.
+public final class EdtWatchdog implements EdtWatchdogMBean {
+    public static final String THRESHOLD_PROPERTY = "payroll.edt.stallMillis";
+    public static final long DEFAULT_THRESHOLD_MILLIS = 500;
+    private static final int MAX_SITES = 200;
+    private static final int REPORT_FRAMES = 30;
+    private static final String OTHER_SITES = "(other call sites)";
+    private static final String NOT_CAPTURED = "(ended before the stack was captured)";
+
+    private static EdtWatchdog installed;
+
+    private final long thresholdNanos;
+    private final long pollMillis;
+    private final Thread monitor;
+    private volatile Thread edt;
+    private volatile long busySince;
+    private volatile boolean busy;
+
+    // Guarded by this
+    private long capturedStart;
+    private StackTraceElement[] capturedStack;
+    private final Map<String, Site> sites = new LinkedHashMap<>();
+    private long stallCount;
+    private long stalledNanos;
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.pollMillis = Math.max(10, thresholdMillis / 5);
+        this.monitor = new Thread(this::watch, "payroll-edt-watchdog");
+        this.monitor.setDaemon(true);
+    }
+
+    // Starts watching the EDT with the threshold from -Dpayroll.edt.stallMillis
+    // (default 500; 0 turns the watchdog off, and null is returned)
+    public static EdtWatchdog installFromSystemProperties() {
+        long threshold = Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS);
+        return threshold > 0 ? install(threshold) : null;
+    }
+
+    public static synchronized EdtWatchdog install(long thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Stall threshold must be positive: " + thresholdMillis);
+        }
+        if (installed != null) {
+            return installed;
+        }
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog.new TimedEventQueue());
+        watchdog.monitor.start();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(watchdog,
+                new ObjectName("com.payroll:type=EdtWatchdog"));
+        } catch (JMException e) {
+            System.err.println("Could not publish the EDT watchdog over JMX: " + e.getMessage());
+        }
+        installed = watchdog;
+        return watchdog;
+    }
+
+    // The running watchdog, or null
+    public static synchronized EdtWatchdog getInstalled() {
+        return installed;
+    }
+
+    @Override
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    @Override
+    public synchronized double getStalledMillis() {
+        return stalledNanos / 1e6;
+    }
+
+    // Stalls so far by call site, longest total first, plus the stall in
+    // progress if the EDT is stuck right now
+    @Override
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "EDT stalls over %,d ms: %,d, %,.0f ms in total%n",
+            getThresholdMillis(), stallCount, stalledNanos / 1e6));
+        long start = busySince;
+        if (busy && capturedStack != null && capturedStart == start) {
+            report.append(String.format(Locale.ROOT, "%nIN PROGRESS: blocked for %,.0f ms so far in %s%n",
+                (System.nanoTime() - start) / 1e6, siteOf(capturedStack)));
+            appendStack(report, capturedStack);
+        }
+        if (sites.isEmpty()) {
+            return report.toString();
+        }
+
+        List<Site> sorted = new ArrayList<>(sites.values());
+        sorted.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        report.append(String.format(Locale.ROOT, "%n%-60s %8s %12s %10s%n", "Call site", "stalls", "total ms", "max ms"));
+        for (Site site : sorted) {
+            report.append(String.format(Locale.ROOT, "%-60s %8d %,12.0f %,10.0f%n",
+                site.name, site.count, site.totalNanos / 1e6, site.maxNanos / 1e6));
+        }
+        report.append(String.format("%nLongest stall per call site:%n"));
+        for (Site site : sorted) {
+            if (site.maxStack != null) {
+                report.append(String.format(Locale.ROOT, "%n%s - %,.0f ms%n", site.name, site.maxNanos / 1e6));
+                appendStack(report, site.maxStack);
+            }
+        }
+        return report.toString();
+    }
+
+    // Watchdog thread: capture the EDT stack once per stall
+    private void watch() {
+        while (true) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Thread dispatcher = edt;
+            long start = busySince;
+            if (dispatcher == null || !busy || System.nanoTime() - start < thresholdNanos) {
+                continue;
+            }
+            synchronized (this) {
+                if (capturedStack == null || capturedStart != start) {
+                    StackTraceElement[] stack = dispatcher.getStackTrace();
+                    // Only keep it if the EDT was still in the same busy period
+                    if (busy && busySince == start) {
+                        capturedStart = start;
+                        capturedStack = stack;
+                    }
+                }
+            }
+        }
+    }
+
+    // EDT: an event was taken from the queue
+    private void eventTaken() {
+        Thread current = Thread.currentThread();
+        if (edt != current) {
+            edt = current; // The toolkit starts a new EDT after an uncaught exception
+        }
+        busySince = System.nanoTime();
+        busy = true;
+    }
+
+    // EDT: back at the queue for the next event
+    private void waiting() {
+        if (!busy) {
+            return;
+        }
+        busy = false;
+        long start = busySince;
+        long nanos = System.nanoTime() - start;
+        if (nanos >= thresholdNanos) {
+            stallEnded(start, nanos);
+        }
+    }
+
+    private synchronized void stallEnded(long start, long nanos) {
+        StackTraceElement[] stack = capturedStart == start ? capturedStack : null;
+        capturedStack = null;
+        String name = stack != null ? siteOf(stack) : NOT_CAPTURED;
+        Site site = sites.get(name);
+        if (site == null) {
+            if (sites.size() >= MAX_SITES) {
+                name = OTHER_SITES;
+                site = sites.get(name);
+            }
+            if (site == null) {
+                site = new Site(name);
+                sites.put(name, site);
+            }
+        }
+        site.record(nanos, stack);
+        stallCount++;
+        stalledNanos += nanos;
+        PayrollMetrics.EDT_STALL.record(start, 0);
+        System.err.println(String.format(Locale.ROOT, "Event dispatch thread stalled for %,.0f ms in %s",
+            nanos / 1e6, name));
+    }
+
+    // Innermost frame of application code (default package or com.payroll),
+    // else the top of the stack
+    static String siteOf(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if ((className.indexOf('.') < 0 || className.startsWith("com.payroll."))
+                    && !className.startsWith(EdtWatchdog.class.getName())) {
+                return simpleName(className) + "." + frame.getMethodName();
+            }
+        }
+        return stack.length == 0 ? NOT_CAPTURED : stack[0].getClassName() + "." + stack[0].getMethodName();
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static void appendStack(StringBuilder report, StackTraceElement[] stack) {
+        int frames = Math.min(stack.length, REPORT_FRAMES);
+        for (int i = 0; i < frames; i++) {
+            report.append("    at ").append(stack[i]).append(System.lineSeparator());
+        }
+        if (stack.length > frames) {
+            report.append("    ... ").append(stack.length - frames).append(" more").append(System.lineSeparator());
+        }
+    }
+
+    private static final class Site {
+        final String name;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        StackTraceElement[] maxStack;
+
+        Site(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, StackTraceElement[] stack) {
+            count++;
+            totalNanos += nanos;
+            if (nanos > maxNanos) {
+                maxNanos = nanos;
+                if (stack != null) {
+                    maxStack = stack;
+                }
+            }
+        }
+    }
+
+    // Marks the EDT busy from taking an event until it next asks for one;
+    // nested loops (modal dialogs, secondary loops) ask this queue too
+    private final class TimedEventQueue extends EventQueue {
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            waiting();
+            AWTEvent event = super.getNextEvent();
+            eventTaken();
+            return event;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.payroll.ui;
+
+// JMX view of the EDT watchdog, under com.payroll:type=EdtWatchdog.
+// getReport() still answers while the UI itself is frozen.
+public interface EdtWatchdogMBean {
+    long getThresholdMillis();
+
+    long getStallCount();
+
+    double getStalledMillis();
+
+    String getReport();
+}
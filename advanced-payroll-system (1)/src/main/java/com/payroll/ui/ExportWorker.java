@@ -0,0 +1,46 @@
+package com.payroll.ui;
+
+import com.payroll.export.RegisterExporter;
+import com.payroll.model.PayrollRegister;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import javax.swing.SwingWorker;
+
+// Exports the register to a file off the event dispatch thread.
+// The rows are copied when the worker is created (on the EDT), so editing can
+// continue while the file is written. Progress (0-100) is reported through
+// the standard "progress" property; a cancelled export deletes the partial file.
+public class ExportWorker extends SwingWorker<Integer, Void> {
+    private final PayrollRegister snapshot;
+    private final RegisterExporter exporter;
+    private final File file;
+
+    public ExportWorker(PayrollRegister register, RegisterExporter exporter, File file) {
+        this.snapshot = new PayrollRegister(register.getRowCount());
+        this.snapshot.append(register);
+        this.exporter = exporter;
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        int total = snapshot.getRowCount();
+        int written;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            written = exporter.export(snapshot, out,
+                rows -> setProgress(total == 0 ? 100 : (int) (rows * 100L / total)),
+                this::isCancelled);
+        }
+        if (isCancelled()) {
+            file.delete();
+        }
+        return written;
+    }
+}
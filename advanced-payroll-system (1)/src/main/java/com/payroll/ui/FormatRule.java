@@ -0,0 +1,134 @@
+package com.payroll.ui;
+
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.awt.Color;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+// Conditional formatting: "when <column> <op> <value>, make the cell (or the
+// whole row) bold and/or give it a background". The value is parsed once into
+// the column's storage form - cents, int, epoch day or text - so matches()
+// compares primitives straight from the register and never allocates.
+public final class FormatRule {
+    public enum Operator {
+        LESS("<"), LESS_OR_EQUAL("<="), GREATER(">"), GREATER_OR_EQUAL(">="), EQUAL("="), NOT_EQUAL("!=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean test(int comparison) {
+            switch (this) {
+                case LESS:
+                    return comparison < 0;
+                case LESS_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER:
+                    return comparison > 0;
+                case GREATER_OR_EQUAL:
+                    return comparison >= 0;
+                case EQUAL:
+                    return comparison == 0;
+                default:
+                    return comparison != 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+    final int column;
+    final Operator operator;
+    final boolean bold;
+    final Color background;
+    final boolean wholeRow;
+    private final PayrollColumns.Kind kind;
+    private final long number;
+    private final String text;
+    private final String valueText;
+
+    // Throws IllegalArgumentException when the value does not fit the column
+    public FormatRule(int column, Operator operator, String value, boolean bold, Color background,
+                      boolean wholeRow) {
+        if (!bold && background == null) {
+            throw new IllegalArgumentException("A rule needs bold text, a background or both");
+        }
+        this.column = column;
+        this.operator = operator;
+        this.bold = bold;
+        this.background = background;
+        this.wholeRow = wholeRow;
+        this.kind = PayrollColumns.kindOf(column);
+        String trimmed = value == null ? "" : value.trim();
+        long parsed = 0;
+        try {
+            switch (kind) {
+                case DECIMAL:
+                    parsed = Money.parse(trimmed);
+                    trimmed = Money.format(parsed);
+                    break;
+                case INTEGER:
+                    parsed = Integer.parseInt(trimmed);
+                    break;
+                case DATE:
+                    parsed = LocalDate.parse(trimmed).toEpochDay();
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + trimmed + "' does not fit the column: " + e.getMessage(), e);
+        }
+        this.number = parsed;
+        this.text = kind == PayrollColumns.Kind.TEXT ? trimmed : null;
+        this.valueText = trimmed;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public boolean isWholeRow() {
+        return wholeRow;
+    }
+
+    // Text is compared ignoring case; an empty cell compares as ""
+    public boolean matches(PayrollRegister register, int row) {
+        switch (kind) {
+            case DECIMAL:
+                return operator.test(Long.compare(register.getCents(row, column), number));
+            case DATE:
+                if (!register.hasPaymentDate(row)) {
+                    return false;
+                }
+                return operator.test(Long.compare(register.getEpochDay(row), number));
+            case INTEGER:
+                return operator.test(Long.compare(register.getInt(row, column), number));
+            default:
+                String cell = register.getText(row, column);
+                return operator.test((cell == null ? "" : cell).compareToIgnoreCase(text));
+        }
+    }
+
+    // e.g. "Net Pay < 0.00: bold, background" with the app's column names
+    public String describe(String[] columnNames) {
+        StringBuilder description = new StringBuilder();
+        description.append(columnNames[column]).append(' ').append(operator).append(' ')
+            .append(kind == PayrollColumns.Kind.TEXT ? "\"" + valueText + "\"" : valueText).append(": ");
+        if (bold) {
+            description.append("bold");
+        }
+        if (background != null) {
+            description.append(bold ? ", " : "").append("background");
+        }
+        return description.append(wholeRow ? " (whole row)" : "").toString();
+    }
+}
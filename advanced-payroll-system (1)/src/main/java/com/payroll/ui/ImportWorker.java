@@ -0,0 +1,42 @@
+package com.payroll.ui;
+
+import com.payroll.batch.CsvImporter;
+import com.payroll.db.ConnectionSource;
+
+import java.io.File;
+import javax.swing.SwingWorker;
+
+// Streams a CSV/TSV file into the database off the event dispatch thread
+// (see CsvImporter). Progress (0-100, by bytes read) is reported through the
+// standard "progress" property and the rows written so far through "rows".
+// stop() ends reading early; rows already read are still written and the
+// result comes back as usual, marked cancelled.
+public class ImportWorker extends SwingWorker<CsvImporter.Result, Void> {
+    private final CsvImporter importer;
+    private final File file;
+    private final File errorFile;
+    private volatile boolean stopRequested;
+
+    public ImportWorker(ConnectionSource connections, File file) {
+        this.importer = new CsvImporter(connections, CsvImporter.defaultThreads(), 1_024);
+        this.file = file;
+        this.errorFile = CsvImporter.defaultErrorFile(file.toPath()).toFile();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    @Override
+    protected CsvImporter.Result doInBackground() throws Exception {
+        long size = Math.max(1, file.length());
+        return importer.importFile(file.toPath(), errorFile.toPath(), (bytesRead, imported, rejected) -> {
+            setProgress((int) Math.min(100, bytesRead * 100 / size));
+            firePropertyChange("rows", null, imported);
+        }, () -> stopRequested);
+    }
+}
@@ -0,0 +1,28 @@
+package com.payroll.ui;
+
+import com.payroll.db.ConnectionSource;
+import com.payroll.db.JournalReplayer;
+import com.payroll.journal.OfflineJournal;
+
+import java.sql.Connection;
+import javax.swing.SwingWorker;
+
+// Replays the offline journal into the database off the event dispatch thread
+// and compacts it afterwards. The result holds the number of records written
+// and the versions the replayed rows now have.
+public class JournalSyncWorker extends SwingWorker<JournalReplayer.Result, Void> {
+    private final OfflineJournal journal;
+    private final ConnectionSource connections;
+
+    public JournalSyncWorker(OfflineJournal journal, ConnectionSource connections) {
+        this.journal = journal;
+        this.connections = connections;
+    }
+
+    @Override
+    protected JournalReplayer.Result doInBackground() throws Exception {
+        try (Connection conn = connections.getConnection()) {
+            return JournalReplayer.sync(conn, journal);
+        }
+    }
+}
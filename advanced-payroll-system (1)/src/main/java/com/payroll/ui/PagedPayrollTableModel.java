@@ -0,0 +1,221 @@
+package com.payroll.ui;
+
+import com.payroll.db.ConnectionSource;
+import com.payroll.db.RegisterFilter;
+import com.payroll.db.RegisterPageDao;
+import com.payroll.model.PayrollRegister;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+// Read-only table model for browsing the full payroll history.
+// Only a bounded LRU of fixed-size pages is held in memory; missing pages are
+// fetched in the background as the viewport asks for them, and the next pages
+// in the scroll direction are prefetched. Sorting and filtering are done by
+// the database. All state except the fetch itself is confined to the EDT.
+public class PagedPayrollTableModel extends AbstractTableModel {
+    public static final int PAGE_SIZE = 200;
+    private static final int DEFAULT_MAX_PAGES = 50;
+    private static final int PREFETCH_PAGES = 2;
+    private static final int MAX_KNOWN_KEYS = 10_000;
+
+    private final String[] columnNames;
+    private final ConnectionSource connections;
+    private final Map<Integer, PayrollRegister> pages;
+    private final Map<Integer, Object[]> firstKeys = boundedMap(MAX_KNOWN_KEYS, false);
+    private final Map<Integer, Object[]> lastKeys = boundedMap(MAX_KNOWN_KEYS, false);
+    private final Set<Integer> pending = new HashSet<>();
+    private final ExecutorService fetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "payroll-page-fetcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private RegisterFilter filter = RegisterFilter.NONE;
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private RegisterPageDao dao = new RegisterPageDao(filter, sortColumn, ascending);
+    private volatile int generation;
+    private int rowCount;
+    private int lastPage;
+
+    public PagedPayrollTableModel(String[] columnNames, ConnectionSource connections) {
+        this(columnNames, connections, DEFAULT_MAX_PAGES);
+    }
+
+    public PagedPayrollTableModel(String[] columnNames, ConnectionSource connections, int maxPages) {
+        this.columnNames = columnNames.clone();
+        this.connections = connections;
+        this.pages = boundedMap(maxPages, true);
+    }
+
+    public void setFilter(RegisterFilter filter) {
+        this.filter = filter;
+        reload();
+    }
+
+    // Clicking the same column again flips the direction
+    public void toggleSort(int column) {
+        if (sortColumn == column) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        reload();
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    // Drops all cached pages and re-counts rows for the current filter and sort
+    public void reload() {
+        int gen = ++generation;
+        dao = new RegisterPageDao(filter, sortColumn, ascending);
+        RegisterPageDao query = dao;
+        pages.clear();
+        firstKeys.clear();
+        lastKeys.clear();
+        pending.clear();
+        lastPage = 0;
+
+        fetcher.execute(() -> {
+            try (Connection conn = connections.getConnection()) {
+                int count = query.count(conn);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generation) {
+                        rowCount = count;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (SQLException e) {
+                System.err.println("Could not count payroll rows: " + e.getMessage());
+            }
+        });
+    }
+
+    public void dispose() {
+        fetcher.shutdownNow();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageIndex = row / PAGE_SIZE;
+        PayrollRegister page = pages.get(pageIndex);
+        onPageAccess(pageIndex);
+        if (page == null) {
+            return null; // Filled in when the page arrives
+        }
+        int offset = row - pageIndex * PAGE_SIZE;
+        return offset < page.getRowCount() ? page.getValue(offset, column) : null;
+    }
+
+    private void onPageAccess(int pageIndex) {
+        requestPage(pageIndex);
+        if (pageIndex == lastPage) {
+            return;
+        }
+        // Prefetch ahead of the scroll direction
+        int direction = pageIndex > lastPage ? 1 : -1;
+        lastPage = pageIndex;
+        for (int i = 1; i <= PREFETCH_PAGES; i++) {
+            requestPage(pageIndex + direction * i);
+        }
+    }
+
+    private void requestPage(int pageIndex) {
+        int pageCount = (rowCount + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (pageIndex < 0 || pageIndex >= pageCount || pages.containsKey(pageIndex) || !pending.add(pageIndex)) {
+            return;
+        }
+        int gen = generation;
+        RegisterPageDao query = dao;
+        Object[] afterKey = lastKeys.get(pageIndex - 1);
+        Object[] beforeKey = afterKey == null ? firstKeys.get(pageIndex + 1) : null;
+
+        fetcher.execute(() -> {
+            if (gen != generation) {
+                return; // Filter or sort changed while queued
+            }
+            try (Connection conn = connections.getConnection()) {
+                PayrollRegister page;
+                if (afterKey != null) {
+                    page = query.fetchAfter(conn, afterKey, PAGE_SIZE);
+                } else if (beforeKey != null) {
+                    page = query.fetchBefore(conn, beforeKey, PAGE_SIZE);
+                } else {
+                    page = query.fetchAtOffset(conn, (long) pageIndex * PAGE_SIZE, PAGE_SIZE);
+                }
+                Object[] first = page.getRowCount() > 0 ? query.keyOf(page, 0) : null;
+                Object[] last = page.getRowCount() > 0 ? query.keyOf(page, page.getRowCount() - 1) : null;
+                SwingUtilities.invokeLater(() -> pageLoaded(gen, pageIndex, page, first, last));
+            } catch (SQLException e) {
+                System.err.println("Could not load payroll page " + pageIndex + ": " + e.getMessage());
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generation) {
+                        pending.remove(pageIndex);
+                    }
+                });
+            }
+        });
+    }
+
+    private void pageLoaded(int gen, int pageIndex, PayrollRegister page, Object[] first, Object[] last) {
+        if (gen != generation) {
+            return;
+        }
+        pending.remove(pageIndex);
+        pages.put(pageIndex, page);
+        if (first != null) {
+            firstKeys.put(pageIndex, first);
+            lastKeys.put(pageIndex, last);
+        }
+        int firstRow = pageIndex * PAGE_SIZE;
+        int lastRow = Math.min(rowCount, firstRow + PAGE_SIZE) - 1;
+        if (lastRow >= firstRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    private static <V> Map<Integer, V> boundedMap(int maxEntries, boolean accessOrder) {
+        return new LinkedHashMap<Integer, V>(16, 0.75f, accessOrder) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
@@ -0,0 +1,347 @@
+package com.payroll.ui;
+
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.util.Arrays;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.table.TableCellRenderer;
+
+// Paints register cells without allocating. The text is formatted straight
+// from the register's columns into a reused char buffer (amounts as
+// "1234.50", dates as yyyy-MM-dd, dictionary text copied) and drawn with
+// drawChars; colours, the bold font and the font metrics are created once.
+// The translucent column tints are blended over the table background into
+// opaque colours up front: Java2D's software loops allocate a scratch buffer
+// for every translucent fill.
+// Used with RegisterTable, which skips the boxed getValueAt() call for a
+// PayrollTableModel. Any other model (e.g. history pages) is shown from the
+// value passed in.
+// Background, highest first: conflicted row, highlighted cell, first
+// matching format rule, the Gross/Deductions/Net column tints. Bold comes
+// from the cell or any matching rule.
+public class RegisterCellRenderer extends JComponent implements TableCellRenderer {
+    public static final Color GROSS_PAY_TINT = new Color(59, 130, 246, 50);
+    public static final Color DEDUCTIONS_TINT = new Color(254, 226, 226);
+    public static final Color NET_PAY_TINT = new Color(34, 197, 94, 50);
+    public static final Color CONFLICT = new Color(253, 230, 138);
+    public static final Color HIGHLIGHT = new Color(255, 241, 118);
+    private static final int PADDING = 2;
+
+    private final CellStyles styles;
+    private final Object textAntialiasing;
+    private final Object lcdContrast;
+    private final Border focusBorder;
+    private char[] text = new char[32];
+    private int length;
+    private String fallbackText;
+    private Color cellBackground;
+    private Color cellForeground;
+    private boolean bold;
+    private boolean focused;
+    private Color tableBackground;
+    private Color grossPayTint;
+    private Color deductionsTint;
+    private Color netPayTint;
+    private Font plainFont;
+    private Font boldFont;
+    private FontMetrics plainMetrics;
+    private FontMetrics boldMetrics;
+
+    public RegisterCellRenderer(CellStyles styles) {
+        this.styles = styles;
+        Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        Map<?, ?> desktopHints = hints instanceof Map ? (Map<?, ?>) hints : null;
+        this.textAntialiasing = desktopHints == null ? null : desktopHints.get(RenderingHints.KEY_TEXT_ANTIALIASING);
+        this.lcdContrast = desktopHints == null ? null : desktopHints.get(RenderingHints.KEY_TEXT_LCD_CONTRAST);
+        this.focusBorder = UIManager.getBorder("Table.focusCellHighlightBorder");
+        setOpaque(true);
+    }
+
+    public CellStyles getStyles() {
+        return styles;
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        updateFonts(table);
+        updateTints(table.getBackground());
+        int modelColumn = table.convertColumnIndexToModel(column);
+        Color background = null;
+        bold = false;
+        focused = hasFocus;
+        fallbackText = null;
+
+        if (table.getModel() instanceof PayrollTableModel) {
+            PayrollTableModel model = (PayrollTableModel) table.getModel();
+            PayrollRegister register = model.getRegister();
+            int modelRow = table.convertRowIndexToModel(row);
+            format(register, modelRow, modelColumn);
+
+            int style = styles.get(ChangeTracker.keyOf(register, modelRow), modelColumn);
+            bold = (style & CellStyles.BOLD) != 0;
+            if (model.getChangeTracker().isConflicted(modelRow)) {
+                background = CONFLICT; // Unsaved edits vs a newer database version
+            } else if ((style & CellStyles.HIGHLIGHT) != 0) {
+                background = HIGHLIGHT;
+            }
+            FormatRule[] rules = styles.ruleArray();
+            for (int i = 0; i < rules.length; i++) {
+                FormatRule rule = rules[i];
+                if ((rule.column == modelColumn || rule.wholeRow) && rule.matches(register, modelRow)) {
+                    bold |= rule.bold;
+                    if (background == null) {
+                        background = rule.background;
+                    }
+                }
+            }
+        } else {
+            length = 0;
+            fallbackText = value == null ? "" : value.toString();
+        }
+
+        if (isSelected) {
+            cellBackground = table.getSelectionBackground();
+            cellForeground = table.getSelectionForeground();
+        } else {
+            cellBackground = background != null ? background : columnTint(modelColumn);
+            cellForeground = table.getForeground();
+        }
+        return this;
+    }
+
+    private Color columnTint(int column) {
+        switch (column) {
+            case PayrollColumns.GROSS_PAY:
+                return grossPayTint;
+            case PayrollColumns.TOTAL_DEDUCTIONS:
+                return deductionsTint;
+            case PayrollColumns.NET_PAY:
+                return netPayTint;
+            default:
+                return tableBackground;
+        }
+    }
+
+    private void updateTints(Color background) {
+        if (background != tableBackground) {
+            tableBackground = background;
+            grossPayTint = blend(GROSS_PAY_TINT, background);
+            deductionsTint = blend(DEDUCTIONS_TINT, background);
+            netPayTint = blend(NET_PAY_TINT, background);
+        }
+    }
+
+    // The opaque colour a translucent one shows as over the background
+    private static Color blend(Color color, Color background) {
+        int alpha = color.getAlpha();
+        return new Color(
+            (color.getRed() * alpha + background.getRed() * (255 - alpha) + 127) / 255,
+            (color.getGreen() * alpha + background.getGreen() * (255 - alpha) + 127) / 255,
+            (color.getBlue() * alpha + background.getBlue() * (255 - alpha) + 127) / 255);
+    }
+
+    private void updateFonts(JTable table) {
+        Font font = table.getFont();
+        if (font != plainFont) {
+            plainFont = font;
+            boldFont = font.deriveFont(Font.BOLD);
+            plainMetrics = table.getFontMetrics(plainFont);
+            boldMetrics = table.getFontMetrics(boldFont);
+        }
+    }
+
+    // Cell text into the char buffer
+    private void format(PayrollRegister register, int row, int column) {
+        length = 0;
+        switch (PayrollColumns.kindOf(column)) {
+            case DECIMAL:
+                appendCents(register.getCents(row, column));
+                break;
+            case INTEGER:
+                appendLong(register.getInt(row, column));
+                break;
+            case DATE:
+                if (register.hasPaymentDate(row)) {
+                    appendDate(register.getEpochDay(row));
+                }
+                break;
+            default:
+                String value = register.getText(row, column);
+                if (value != null) {
+                    ensureCapacity(value.length());
+                    value.getChars(0, value.length(), text, 0);
+                    length = value.length();
+                }
+                break;
+        }
+    }
+
+    // Same text as Money.format, written in place
+    private void appendCents(long cents) {
+        long units = cents / Money.CENTS_PER_UNIT;
+        int fraction = (int) Math.abs(cents % Money.CENTS_PER_UNIT);
+        if (cents < 0 && units == 0) {
+            append('-');
+        }
+        appendLong(units);
+        append('.');
+        append((char) ('0' + fraction / 10));
+        append((char) ('0' + fraction % 10));
+    }
+
+    private void appendLong(long value) {
+        if (value < 0) {
+            append('-');
+        } else {
+            value = -value; // Work on negatives so Long.MIN_VALUE fits
+        }
+        int start = length;
+        do {
+            append((char) ('0' - value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = text[i];
+            text[i] = text[j];
+            text[j] = c;
+        }
+    }
+
+    // yyyy-MM-dd from an epoch day (proleptic Gregorian, as LocalDate)
+    private void appendDate(int epochDay) {
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year >= 0 && year < 1000) {
+            append('0');
+            if (year < 100) {
+                append('0');
+            }
+            if (year < 10) {
+                append('0');
+            }
+        }
+        appendLong(year);
+        append('-');
+        append((char) ('0' + month / 10));
+        append((char) ('0' + month % 10));
+        append('-');
+        append((char) ('0' + day / 10));
+        append((char) ('0' + day % 10));
+    }
+
+    private void append(char c) {
+        ensureCapacity(length + 1);
+        text[length++] = c;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > text.length) {
+            text = Arrays.copyOf(text, Math.max(capacity, text.length * 2));
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        g.setColor(cellBackground);
+        g.fillRect(0, 0, width, height);
+
+        Font font = bold ? boldFont : plainFont;
+        FontMetrics metrics = bold ? boldMetrics : plainMetrics;
+        if (g instanceof Graphics2D && textAntialiasing != null) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialiasing);
+            if (lcdContrast != null) {
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_LCD_CONTRAST, lcdContrast);
+            }
+        }
+        g.setFont(font);
+        g.setColor(cellForeground);
+        int baseline = (height - metrics.getHeight()) / 2 + metrics.getAscent();
+        if (fallbackText != null) {
+            g.drawString(fallbackText, PADDING, baseline);
+        } else if (length > 0) {
+            g.drawChars(text, 0, length, PADDING, baseline);
+        }
+        if (focused && focusBorder != null) {
+            focusBorder.paintBorder(this, g, 0, 0, width, height);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        FontMetrics metrics = bold ? boldMetrics : plainMetrics;
+        if (metrics == null) {
+            return new Dimension(0, 0);
+        }
+        int width = fallbackText != null ? metrics.stringWidth(fallbackText) : metrics.charsWidth(text, 0, length);
+        return new Dimension(width + 2 * PADDING, metrics.getHeight() + 2);
+    }
+
+    // The text shown, for tooltips, accessibility and tests
+    public String getText() {
+        return fallbackText != null ? fallbackText : new String(text, 0, length);
+    }
+
+    // A renderer is only stamped, never laid out or repainted itself;
+    // skipping these (as DefaultTableCellRenderer does) saves work per cell
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+
+    @Override
+    public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.payroll.ui;
+
+import com.payroll.db.ConnectionSource;
+import com.payroll.db.RegisterDao;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import javax.swing.SwingWorker;
+
+// Reads the period's rows changed in the database since a watermark off the event
+// dispatch thread; the caller merges the result into the table model on the
+// EDT (PayrollTableModel.mergeRemote) and keeps the new watermark.
+public class RegisterDeltaWorker extends SwingWorker<RegisterDao.Delta, Void> {
+    private final ConnectionSource connections;
+    private final Timestamp since;
+    private final YearMonth period;
+
+    public RegisterDeltaWorker(ConnectionSource connections, Timestamp since, YearMonth period) {
+        this.connections = connections;
+        this.since = since;
+        this.period = period;
+    }
+
+    @Override
+    protected RegisterDao.Delta doInBackground() throws Exception {
+        try (Connection conn = connections.getConnection()) {
+            return RegisterDao.readDelta(conn, since, period);
+        }
+    }
+}
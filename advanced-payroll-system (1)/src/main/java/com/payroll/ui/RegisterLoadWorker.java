@@ -0,0 +1,130 @@
+package com.payroll.ui;
+
+import com.payroll.db.ConnectionSource;
+import com.payroll.db.RegisterDao;
+import com.payroll.metrics.PayrollMetrics;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import javax.swing.SwingWorker;
+
+// Streams one pay period (month) of payroll_register into the table model off
+// the event dispatch thread; without a period the latest one is loaded.
+// Rows are read into small columnar chunks and handed to the EDT a chunk at a
+// time, so the table gets one insert event per chunk instead of one per row.
+// The first chunk is kept small so the first screenful shows up right away.
+// Progress (0-100) is reported through the standard "progress" property.
+// The database clock at the start of the load is kept as the watermark for
+// the first delta refresh (see RegisterDeltaWorker).
+public class RegisterLoadWorker extends SwingWorker<Integer, PayrollRegister> {
+    private static final int FIRST_CHUNK_ROWS = 100;
+    private static final int CHUNK_ROWS = 5_000;
+    private static final long PUBLISH_INTERVAL_NANOS = 150_000_000L;
+
+    private final PayrollTableModel model;
+    private final ConnectionSource connections;
+    private volatile long elapsedNanos;
+    private volatile Timestamp watermark;
+    private volatile YearMonth period;
+
+    public RegisterLoadWorker(PayrollTableModel model, ConnectionSource connections, YearMonth period) {
+        this.model = model;
+        this.connections = connections;
+        this.period = period;
+    }
+
+    // The period loaded; once the worker is done when none was given
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    // Wall time of the background load, valid once the worker is done
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    // Valid once the worker completed without being cancelled
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+
+    @Override
+    protected Integer doInBackground() throws SQLException {
+        long start = System.nanoTime();
+        int loaded = 0;
+        boolean completed = false;
+        try (Connection conn = connections.getConnection()) {
+            Timestamp loadStart = RegisterDao.currentTimestamp(conn);
+            if (period == null) {
+                period = RegisterDao.latestPeriod(conn);
+            }
+            int total = RegisterDao.countRows(conn, period);
+            try (PreparedStatement ps = RegisterDao.prepareStreamingSelect(conn, period);
+                 ResultSet rs = ps.executeQuery()) {
+                PayrollRegister chunk = new PayrollRegister(FIRST_CHUNK_ROWS);
+                int chunkLimit = FIRST_CHUNK_ROWS;
+                long lastPublish = System.nanoTime();
+
+                while (!isCancelled() && rs.next()) {
+                    RegisterDao.readVersionedRow(rs, chunk);
+                    loaded++;
+                    if (chunk.getRowCount() >= chunkLimit
+                            || System.nanoTime() - lastPublish > PUBLISH_INTERVAL_NANOS) {
+                        publish(chunk);
+                        chunk = new PayrollRegister(CHUNK_ROWS);
+                        chunkLimit = CHUNK_ROWS;
+                        lastPublish = System.nanoTime();
+                        if (total > 0) {
+                            setProgress(Math.min(100, (int) (loaded * 100L / total)));
+                        }
+                    }
+                }
+
+                if (isCancelled()) {
+                    // Stop the server side too; closing a streaming result set
+                    // would otherwise read through all remaining rows
+                    try {
+                        ps.cancel();
+                    } catch (SQLException e) {
+                        // Best effort
+                    }
+                } else {
+                    if (chunk.getRowCount() > 0) {
+                        publish(chunk);
+                    }
+                    watermark = loadStart;
+                }
+            }
+            completed = true;
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+            // A cancelled load says nothing about how long loading takes
+            if (!isCancelled()) {
+                if (completed) {
+                    PayrollMetrics.LOAD.record(start, loaded);
+                } else {
+                    PayrollMetrics.LOAD.recordFailure(start);
+                }
+            }
+        }
+        setProgress(100);
+        return loaded;
+    }
+
+    @Override
+    protected void process(List<PayrollRegister> chunks) {
+        for (PayrollRegister chunk : chunks) {
+            if (isCancelled()) {
+                return;
+            }
+            model.appendPersisted(chunk);
+        }
+    }
+}
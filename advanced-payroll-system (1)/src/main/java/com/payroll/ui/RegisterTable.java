@@ -0,0 +1,35 @@
+package com.payroll.ui;
+
+import com.payroll.model.PayrollTableModel;
+
+import java.awt.Component;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+
+// JTable over the register. When a RegisterCellRenderer paints a
+// PayrollTableModel, prepareRenderer() skips getValueAt() - which boxes
+// every amount into a BigDecimal - since the renderer reads the register's
+// columns itself. Everything else is prepared as usual.
+public class RegisterTable extends JTable {
+    public RegisterTable(TableModel model) {
+        super(model);
+    }
+
+    @Override
+    public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+        if (!(renderer instanceof RegisterCellRenderer) || !(getModel() instanceof PayrollTableModel)) {
+            return super.prepareRenderer(renderer, row, column);
+        }
+        // Same selection and focus logic as JTable.prepareRenderer
+        boolean isSelected = false;
+        boolean hasFocus = false;
+        if (!isPaintingForPrint()) {
+            isSelected = isCellSelected(row, column);
+            boolean rowIsLead = selectionModel.getLeadSelectionIndex() == row;
+            boolean colIsLead = columnModel.getSelectionModel().getLeadSelectionIndex() == column;
+            hasFocus = rowIsLead && colIsLead && isFocusOwner();
+        }
+        return renderer.getTableCellRendererComponent(this, null, isSelected, hasFocus, row, column);
+    }
+}
@@ -0,0 +1,104 @@
+package com.payroll.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A rectangular block of cells as tab-separated text, the format spreadsheets
+// put on the clipboard: cells separated by tabs, rows by line breaks (\n or
+// \r\n) and a final line break ignored. A cell holding a tab, a line break or
+// a quote is written in double quotes with quotes doubled, and read back the
+// same way, so text copied from Excel or LibreOffice round-trips.
+public final class TsvBlock {
+    private TsvBlock() {
+    }
+
+    public static String format(String[][] cells) {
+        StringBuilder text = new StringBuilder(cells.length * 16);
+        for (String[] row : cells) {
+            for (int col = 0; col < row.length; col++) {
+                if (col > 0) {
+                    text.append('\t');
+                }
+                appendCell(text, row[col]);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    // Rows of cells; rows may differ in length. An empty text is no rows.
+    public static String[][] parse(String text) {
+        List<String[]> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        int length = text.length();
+        if (length > 0 && text.charAt(length - 1) == '\n') {
+            length -= length > 1 && text.charAt(length - 2) == '\r' ? 2 : 1;
+        }
+        if (length == 0) {
+            return text.isEmpty() ? new String[0][] : new String[][] {{""}};
+        }
+        int i = 0;
+        while (i <= length) {
+            if (i < length && text.charAt(i) == '"' && cell.length() == 0) {
+                i = readQuoted(text, i + 1, length, cell);
+                continue;
+            }
+            char c = i < length ? text.charAt(i) : '\n';
+            if (c == '\t') {
+                row.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                row.add(cell.toString());
+                cell.setLength(0);
+                rows.add(row.toArray(new String[0]));
+                row.clear();
+                if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                cell.append(c);
+            }
+            i++;
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    // Past the opening quote; returns the index after the closing one.
+    // An unterminated quote takes the rest of the text.
+    private static int readQuoted(String text, int i, int length, StringBuilder cell) {
+        while (i < length) {
+            char c = text.charAt(i++);
+            if (c != '"') {
+                cell.append(c);
+            } else if (i < length && text.charAt(i) == '"') {
+                cell.append('"');
+                i++;
+            } else {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    private static void appendCell(StringBuilder text, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf('\t') >= 0 || value.indexOf('\n') >= 0
+            || value.indexOf('\r') >= 0 || value.startsWith("\"");
+        if (!quote) {
+            text.append(value);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            text.append(c);
+            if (c == '"') {
+                text.append('"');
+            }
+        }
+        text.append('"');
+    }
+}
@@ -0,0 +1,39 @@
+package com.payroll;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The jar's entry points: the batch help as documented in the README, and
+// the desktop app compiled into the same output as the launcher
+class LauncherTest {
+    @Test
+    void batchHelpPrintsTheUsage() throws Exception {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            Launcher.main(new String[] {"--batch", "--help"});
+        } finally {
+            System.setOut(stdout);
+        }
+        String usage = captured.toString(StandardCharsets.UTF_8);
+        assertTrue(usage.contains("--batch --period yyyy-MM"), usage);
+        assertTrue(usage.contains("--import FILE"), usage);
+    }
+
+    @Test
+    void desktopAppIsBuiltWithTheLauncher() throws Exception {
+        ClassLoader loader = Launcher.class.getClassLoader();
+        Class<?> app = Class.forName(Launcher.DESKTOP_APP, false, loader);
+        assertNotNull(app.getMethod("main", String[].class));
+        assertEquals(Launcher.class.getProtectionDomain().getCodeSource().getLocation(),
+            app.getProtectionDomain().getCodeSource().getLocation());
+    }
+}
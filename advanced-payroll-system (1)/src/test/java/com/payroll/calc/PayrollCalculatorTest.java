@@ -0,0 +1,114 @@
+package com.payroll.calc;
+
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayrollCalculatorTest {
+    private static final int ROWS = 6 * PayrollCalculator.SPLIT_ROWS + 123;
+
+    @Test
+    void appliesThePayRules() {
+        PayrollRegister register = new PayrollRegister(1);
+        Object[] row = new Object[PayrollColumns.COUNT];
+        row[PayrollColumns.BASIC_SALARY] = new BigDecimal("5000.00");
+        row[PayrollColumns.INCENTIVE] = new BigDecimal("100.00");
+        row[PayrollColumns.BONUS] = new BigDecimal("20.50");
+        row[PayrollColumns.OT_AMOUNT] = new BigDecimal("0.05");
+        row[PayrollColumns.SOCIAL_INSURANCE] = new BigDecimal("300.00");
+        row[PayrollColumns.ADVANCES] = new BigDecimal("50.25");
+        register.addRow(row);
+
+        PayrollCalculator.calculateRow(register, 0);
+        assertEquals(50_000, register.getCents(0, PayrollColumns.BONUS_RATE));
+        assertEquals(3_125, register.getCents(0, PayrollColumns.OT_RATE));
+        assertEquals(25_000, register.getCents(0, PayrollColumns.DEDUCTION_RATE));
+        assertEquals(512_055, register.getCents(0, PayrollColumns.GROSS_PAY));
+        assertEquals(35_025, register.getCents(0, PayrollColumns.TOTAL_DEDUCTIONS));
+        assertEquals(477_030, register.getCents(0, PayrollColumns.NET_PAY));
+        assertEquals(0, PayrollCalculator.calculateRow(register, 0), "a second pass changes nothing");
+    }
+
+    @Test
+    void parallelCalculationMatchesRowByRow() {
+        PayrollRegister sequential = sampleRegister(ROWS, new Random(5));
+        PayrollRegister parallel = new PayrollRegister(ROWS);
+        parallel.append(sequential);
+
+        int changedRows = 0;
+        boolean[] expectedChanged = new boolean[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            expectedChanged[row] = PayrollCalculator.calculateRow(sequential, row) != 0;
+            changedRows += expectedChanged[row] ? 1 : 0;
+        }
+        boolean[] changed = new boolean[ROWS];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(changedRows, PayrollCalculator.calculateAll(parallel, pool, changed));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(changedRows > 0 && changedRows < ROWS, "some rows are already calculated");
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(expectedChanged[row], changed[row], "row " + row);
+            assertTrue(parallel.rowEquals(row, sequential, row), "row " + row);
+        }
+    }
+
+    @Test
+    void rangeCalculationMatchesRowByRow() {
+        PayrollRegister sequential = sampleRegister(5_000, new Random(8));
+        PayrollRegister range = new PayrollRegister(5_000);
+        range.append(sequential);
+        for (int row = 100; row < 4_321; row++) {
+            PayrollCalculator.calculateRow(sequential, row);
+        }
+        PayrollCalculator.calculate(range, 100, 4_321);
+        for (int row = 0; row < 5_000; row++) {
+            assertTrue(range.rowEquals(row, sequential, row), "row " + row);
+        }
+    }
+
+    @Test
+    void graphRejectsCyclesAndRecomputesOnlyDependents() {
+        DependencyGraph graph = new DependencyGraph((register, row, column) -> 0)
+            .define(PayrollColumns.GROSS_PAY, 1 << PayrollColumns.BASIC_SALARY)
+            .define(PayrollColumns.NET_PAY, 1 << PayrollColumns.GROSS_PAY);
+        assertThrows(IllegalArgumentException.class,
+            () -> graph.define(PayrollColumns.BASIC_SALARY, 1 << PayrollColumns.NET_PAY));
+        assertEquals(1 << PayrollColumns.GROSS_PAY | 1 << PayrollColumns.NET_PAY,
+            graph.dependentsOf(1 << PayrollColumns.BASIC_SALARY));
+        assertEquals(0, graph.dependentsOf(1 << PayrollColumns.ADVANCES));
+
+        int advances = PayrollCalculator.GRAPH.dependentsOf(1 << PayrollColumns.ADVANCES);
+        assertEquals(1 << PayrollColumns.TOTAL_DEDUCTIONS | 1 << PayrollColumns.NET_PAY, advances);
+    }
+
+    // Random inputs; every third row already holds its calculated values
+    private static PayrollRegister sampleRegister(int rows, Random random) {
+        PayrollRegister register = new PayrollRegister(rows);
+        for (int i = 0; i < rows; i++) {
+            int row = register.addRow();
+            register.setInt(row, PayrollColumns.ID, i + 1);
+            for (int col = PayrollColumns.BASIC_SALARY; col < PayrollColumns.STATUS; col++) {
+                if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.DECIMAL) {
+                    register.setCents(row, col, random.nextInt(2_000_000));
+                }
+            }
+            if (i % 3 == 0) {
+                PayrollCalculator.calculateRow(register, row);
+            }
+        }
+        return register;
+    }
+}
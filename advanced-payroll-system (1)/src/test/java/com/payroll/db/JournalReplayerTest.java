@@ -0,0 +1,111 @@
+package com.payroll.db;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.journal.OfflineJournal;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Offline submits replayed into H2, then submitted again from the same register
+class JournalReplayerTest {
+    private static final YearMonth PERIOD = YearMonth.of(2024, 1);
+
+    @TempDir
+    Path dir;
+
+    private Connection conn;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:replay" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        TestDatabase.createTables(conn);
+        PayrollTableModel seed = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+        for (int i = 0; i < 3; i++) {
+            seed.addRow(row(i + 1));
+        }
+        PayrollCalculator.calculateAll(seed.getRegister());
+        RegisterDao.submitChanges(conn, seed.getRegister(), seed.getChangeTracker());
+    }
+
+    @AfterEach
+    void dropDatabase() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    void rowsEditedOfflineCanBeSubmittedAgainAfterTheReplay() throws Exception {
+        PayrollTableModel model = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+        model.setRecalculator(PayrollCalculator.GRAPH);
+        model.appendPersisted(load());
+
+        // Offline: edit two rows and add one, saved to the journal as the app does
+        model.setValueAt(new BigDecimal("11.00"), 0, PayrollColumns.INCENTIVE);
+        model.setValueAt(new BigDecimal("22.00"), 1, PayrollColumns.INCENTIVE);
+        model.addRow(row(4));
+        JournalReplayer.Result result;
+        try (OfflineJournal journal = OfflineJournal.open(dir.resolve("offline.journal"))) {
+            journal.append(OfflineJournal.Transaction.of(model.getRegister(), model.getChangeTracker()));
+            model.acceptChanges();
+
+            // More edits before the database is back, one of them a delete
+            model.setValueAt(new BigDecimal("33.00"), 0, PayrollColumns.INCENTIVE);
+            model.removeRow(1);
+            result = JournalReplayer.sync(conn, journal);
+            assertFalse(journal.hasPendingRecords());
+        }
+        assertEquals(3, result.records);
+        assertEquals(3, result.keys.length);
+        assertEquals(1, result.versions[0], "the replayed update bumped the version");
+        model.advanceVersions(result.keys, result.versions);
+
+        RegisterDao.SubmitResult submit = RegisterDao.submitChanges(conn, model.getRegister(),
+            model.getChangeTracker());
+        assertTrue(submit.conflicts.isEmpty(), "the replay is not someone else's change");
+        assertEquals(1, submit.updated);
+        assertEquals(1, submit.deleted);
+        model.acceptChanges(submit.rejectedRows, submit.rejectedDeletes);
+        assertFalse(model.getChangeTracker().hasChanges());
+
+        PayrollRegister stored = load();
+        assertEquals(3, stored.getRowCount());
+        assertEquals(3_300, stored.getCents(0, PayrollColumns.INCENTIVE));
+        assertEquals(2, stored.getVersion(0));
+        assertTrue(stored.rowEquals(0, model.getRegister(), 0));
+        assertEquals(4, stored.getInt(2, PayrollColumns.ID));
+    }
+
+    private PayrollRegister load() throws SQLException {
+        return RegisterDao.readDelta(conn, new Timestamp(0), PERIOD).changed;
+    }
+
+    private static Object[] row(int id) {
+        Object[] row = new Object[PayrollColumns.COUNT];
+        row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf(PERIOD.atDay(15));
+        row[PayrollColumns.ID] = id;
+        row[PayrollColumns.EMPLOYEE_NAME] = "Employee " + id;
+        row[PayrollColumns.BASIC_SALARY] = new BigDecimal("4000.00");
+        row[PayrollColumns.STATUS] = "Active";
+        return row;
+    }
+}
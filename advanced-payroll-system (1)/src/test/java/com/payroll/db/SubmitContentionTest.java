@@ -0,0 +1,301 @@
+package com.payroll.db;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.journal.OfflineJournal;
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Several clients, each with its own connection and copy of the register,
+// submitting to the same rows of one H2 database in MySQL mode. A write must
+// either win or come back as a conflict: two clients both succeeding on the
+// same row, or an edit disappearing without a conflict, fails the test.
+// Offline edits replayed from the journal count as the replaying client's.
+class SubmitContentionTest {
+    private static final YearMonth PERIOD = YearMonth.of(2024, 1);
+    private static final int CLIENTS = 4;
+    private static final int ROUNDS = 25;
+    private static final int[] CLIENT_COLUMNS = {
+        PayrollColumns.INCENTIVE, PayrollColumns.SPECIAL_BONUS,
+        PayrollColumns.ADVANCES, PayrollColumns.TRANSPORTATION_DEDUCTIONS
+    };
+
+    @TempDir
+    Path dir;
+
+    private String url;
+    private Connection setup;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        url = "jdbc:h2:mem:contention" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        setup = DriverManager.getConnection(url);
+        TestDatabase.createTables(setup);
+        PayrollTableModel seed = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+        for (int i = 0; i < 3; i++) {
+            seed.addRow(sampleRow(i + 1));
+        }
+        PayrollCalculator.calculateAll(seed.getRegister());
+        RegisterDao.submitChanges(setup, seed.getRegister(), seed.getChangeTracker());
+    }
+
+    @AfterEach
+    void dropDatabase() throws SQLException {
+        try (Statement st = setup.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        setup.close();
+    }
+
+    @Test
+    void concurrentWritesToTheSameCellHaveOneWinner() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        CyclicBarrier start = new CyclicBarrier(CLIENTS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                List<Future<RegisterDao.SubmitResult>> results = new ArrayList<>();
+                for (int client = 0; client < CLIENTS; client++) {
+                    long cents = round * 1_000L + client;
+                    results.add(pool.submit(edit(start, 0, PayrollColumns.INCENTIVE, cents, false)));
+                }
+                int winners = 0;
+                long winningCents = -1;
+                for (int client = 0; client < CLIENTS; client++) {
+                    RegisterDao.SubmitResult result = results.get(client).get(30, TimeUnit.SECONDS);
+                    if (result.updated == 1) {
+                        winners++;
+                        winningCents = round * 1_000L + client;
+                    } else {
+                        assertEquals(1, result.conflicts.size(), "a losing write must be reported");
+                        assertEquals(RegisterDao.Conflict.Kind.CHANGED_BY_OTHERS, result.conflicts.get(0).kind);
+                        assertTrue(result.rejectedRows.get(0));
+                    }
+                }
+                assertEquals(1, winners, "round " + round);
+                PayrollRegister stored = load();
+                assertEquals(winningCents, stored.getCents(0, PayrollColumns.INCENTIVE), "round " + round);
+                assertEquals(round + 1, stored.getVersion(0), "one version per successful write");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentEditsOfDifferentColumnsAreAllMerged() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        CyclicBarrier start = new CyclicBarrier(CLIENTS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                List<Future<RegisterDao.SubmitResult>> results = new ArrayList<>();
+                for (int client = 0; client < CLIENTS; client++) {
+                    long cents = (round + 1) * 100L + client;
+                    results.add(pool.submit(edit(start, 1, CLIENT_COLUMNS[client], cents, true)));
+                }
+                int written = 0;
+                for (Future<RegisterDao.SubmitResult> result : results) {
+                    RegisterDao.SubmitResult r = result.get(30, TimeUnit.SECONDS);
+                    assertTrue(r.conflicts.isEmpty(), "different columns must merge");
+                    written += r.updated + r.merged;
+                }
+                assertEquals(CLIENTS, written);
+
+                PayrollRegister stored = load();
+                for (int client = 0; client < CLIENTS; client++) {
+                    assertEquals((round + 1) * 100L + client, stored.getCents(1, CLIENT_COLUMNS[client]),
+                        "edit of client " + client + " lost in round " + round);
+                }
+                PayrollRegister expected = new PayrollRegister(1);
+                expected.append(stored, 1, 1);
+                PayrollCalculator.calculateRow(expected, 0);
+                for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                    assertTrue(stored.cellEquals(1, col, expected, 0),
+                        "merged row not recalculated: " + PayrollColumns.dbName(col));
+                }
+                assertEquals((round + 1) * CLIENTS, stored.getVersion(1));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectedDeleteStaysPendingUntilRefreshed() throws SQLException {
+        try (Connection a = DriverManager.getConnection(url);
+             Connection b = DriverManager.getConnection(url)) {
+            PayrollTableModel deleter = open(a);
+            PayrollTableModel editor = open(b);
+            long key = ChangeTracker.keyOf(deleter.getRegister(), 2);
+
+            deleter.removeRow(2);
+            editor.setValueAt(new BigDecimal("12.34"), 2, PayrollColumns.ADVANCES);
+            submit(b, editor, false);
+
+            RegisterDao.SubmitResult result = submit(a, deleter, false);
+            assertEquals(0, result.deleted);
+            assertEquals(RegisterDao.Conflict.Kind.DELETE_OF_CHANGED_ROW, result.conflicts.get(0).kind);
+            ChangeTracker changes = deleter.getChangeTracker();
+            assertTrue(changes.hasChanges(), "the rejected delete must not count as saved");
+            assertEquals(1, changes.getDeletedCount());
+            assertEquals(key, changes.getDeletedKey(0));
+
+            // Refreshing shows the conflict; submitting again deletes the row they changed
+            PayrollTableModel.MergeResult merge = deleter.mergeRemote(
+                RegisterDao.readDelta(a, new Timestamp(0), PERIOD).changed, new long[0]);
+            assertEquals(1, merge.conflicts);
+            assertEquals(2, deleter.getRowCount(), "the row stays deleted here");
+            result = submit(a, deleter, false);
+            assertEquals(1, result.deleted);
+            assertTrue(result.conflicts.isEmpty());
+            assertFalse(deleter.getChangeTracker().hasChanges());
+            assertEquals(2, load().getRowCount());
+        }
+    }
+
+    @Test
+    void replayedOfflineEditCanBeResubmittedByTheSameClient() throws Exception {
+        try (Connection a = DriverManager.getConnection(url);
+             Connection b = DriverManager.getConnection(url);
+             OfflineJournal journal = OfflineJournal.open(dir.resolve("offline.journal"))) {
+            PayrollTableModel offline = open(a);
+            PayrollTableModel online = open(b);
+
+            // Client a saves an edit to its journal while b submits to the same row
+            offline.setValueAt(new BigDecimal("10.00"), 0, PayrollColumns.INCENTIVE);
+            journal.append(OfflineJournal.Transaction.of(offline.getRegister(), offline.getChangeTracker()));
+            offline.acceptChanges();
+            online.setValueAt(new BigDecimal("20.00"), 0, PayrollColumns.ADVANCES);
+            assertEquals(1, submit(b, online, false).updated);
+
+            // The replay overwrites b's row (last writer wins); a edits it again and submits
+            JournalReplayer.Result replayed = JournalReplayer.sync(a, journal);
+            offline.advanceVersions(replayed.keys, replayed.versions);
+            offline.setValueAt(new BigDecimal("30.00"), 0, PayrollColumns.INCENTIVE);
+            RegisterDao.SubmitResult result = submit(a, offline, false);
+            assertEquals(1, result.updated);
+            assertTrue(result.conflicts.isEmpty(), "a client must not conflict with its own replay");
+
+            PayrollRegister stored = load();
+            assertTrue(stored.rowEquals(0, offline.getRegister(), 0));
+            assertEquals(3, stored.getVersion(0), "b's submit, the replay and the resubmit");
+
+            // b still holds the version before the replay
+            online.setValueAt(new BigDecimal("40.00"), 0, PayrollColumns.ADVANCES);
+            result = submit(b, online, false);
+            assertEquals(RegisterDao.Conflict.Kind.CHANGED_BY_OTHERS, result.conflicts.get(0).kind);
+            assertEquals(3_000, load().getCents(0, PayrollColumns.INCENTIVE));
+        }
+    }
+
+    @Test
+    void batchRunWritesOnlyDerivedColumnsOfUnchangedRows() throws SQLException {
+        try (Statement st = setup.createStatement()) {
+            st.execute("UPDATE payroll_register SET gross_pay = 0, net_pay = 0"); // Not calculated yet
+        }
+        PayrollRegister batch = load();
+        PayrollCalculator.calculateAll(batch);
+
+        // While the run calculates, the app changes row 0 and deletes row 2
+        try (Connection app = DriverManager.getConnection(url)) {
+            PayrollTableModel model = open(app);
+            model.setValueAt(new BigDecimal("777.00"), 0, PayrollColumns.INCENTIVE);
+            model.removeRow(2);
+            RegisterDao.SubmitResult result = submit(app, model, false);
+            assertEquals(2, result.total());
+        }
+        PayrollRegister edited = load();
+
+        RegisterDao.SubmitResult result = RegisterDao.updateDerivedColumns(setup, batch, new int[] {0, 1, 2}, 2, 2);
+        assertEquals(1, result.updated);
+        assertEquals(2, result.conflicts.size());
+        assertEquals(RegisterDao.Conflict.Kind.CHANGED_BY_OTHERS, result.conflicts.get(0).kind);
+        assertEquals(0, result.conflicts.get(0).row);
+        assertEquals(RegisterDao.Conflict.Kind.DELETED_BY_OTHERS, result.conflicts.get(1).kind);
+        assertEquals(2, result.conflicts.get(1).row);
+
+        PayrollRegister stored = load();
+        assertEquals(2, stored.getRowCount());
+        assertTrue(stored.rowEquals(0, edited, 0), "the app's edit must survive the run");
+        assertTrue(stored.rowEquals(1, batch, 1));
+        assertEquals(batch.getVersion(1) + 1, stored.getVersion(1));
+    }
+
+    // One client: loads the register, waits for the others, edits one cell and submits
+    private Callable<RegisterDao.SubmitResult> edit(CyclicBarrier start, int row, int column, long cents,
+            boolean autoMerge) {
+        return () -> {
+            try (Connection conn = DriverManager.getConnection(url)) {
+                PayrollTableModel model = open(conn);
+                model.setValueAt(Money.toBigDecimal(cents), row, column);
+                start.await(30, TimeUnit.SECONDS);
+                return submit(conn, model, autoMerge);
+            }
+        };
+    }
+
+    private static RegisterDao.SubmitResult submit(Connection conn, PayrollTableModel model, boolean autoMerge)
+            throws SQLException {
+        RegisterDao.SubmitResult result = RegisterDao.submitChanges(conn, model.getRegister(),
+            model.getChangeTracker(), autoMerge);
+        for (int i = 0; i < result.mergedRows.length; i++) {
+            model.replaceRow(result.mergedRows[i], result.mergedValues, i);
+        }
+        model.acceptChanges(result.rejectedRows, result.rejectedDeletes);
+        return result;
+    }
+
+    private static PayrollTableModel open(Connection conn) throws SQLException {
+        PayrollTableModel model = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+        model.setRecalculator(PayrollCalculator.GRAPH);
+        model.appendPersisted(RegisterDao.readDelta(conn, new Timestamp(0), PERIOD).changed);
+        return model;
+    }
+
+    private PayrollRegister load() throws SQLException {
+        return RegisterDao.readDelta(setup, new Timestamp(0), PERIOD).changed;
+    }
+
+    private static Object[] sampleRow(int id) {
+        Object[] row = new Object[PayrollColumns.COUNT];
+        row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf(PERIOD.atDay(15));
+        row[PayrollColumns.ID] = id;
+        row[PayrollColumns.EMPLOYEE_NAME] = "Employee " + id;
+        for (int col = PayrollColumns.BASIC_SALARY; col < PayrollColumns.STATUS; col++) {
+            if (PayrollColumns.kindOf(col) == PayrollColumns.Kind.INTEGER) {
+                row[col] = id % 4;
+            } else {
+                row[col] = BigDecimal.valueOf(3_000_00L + id * 101L + col, 2);
+            }
+        }
+        row[PayrollColumns.STATUS] = "Active";
+        return row;
+    }
+}
@@ -0,0 +1,45 @@
+package com.payroll.db;
+
+import com.payroll.model.PayrollColumns;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// The payroll tables in an H2 database in MySQL mode
+final class TestDatabase {
+    private TestDatabase() {
+    }
+
+    static void createTables(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute(createTableSql());
+            st.execute("CREATE TABLE payroll_register_deletions (id INT NOT NULL, payment_date DATE NOT NULL, "
+                + "deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))");
+        }
+    }
+
+    private static String createTableSql() {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE payroll_register (");
+        for (int col = 0; col < PayrollColumns.COUNT; col++) {
+            ddl.append(PayrollColumns.dbName(col)).append(' ');
+            switch (PayrollColumns.kindOf(col)) {
+                case DECIMAL:
+                    ddl.append("DECIMAL(12,2)");
+                    break;
+                case INTEGER:
+                    ddl.append("INT");
+                    break;
+                case DATE:
+                    ddl.append("DATE");
+                    break;
+                default:
+                    ddl.append("VARCHAR(100)");
+            }
+            ddl.append(", ");
+        }
+        return ddl.append("row_version INT NOT NULL DEFAULT 0, PRIMARY KEY (id, payment_date), ")
+            .append("updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3))")
+            .toString();
+    }
+}
@@ -0,0 +1,245 @@
+package com.payroll.journal;
+
+import com.payroll.model.PayrollRegister;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OfflineJournalTest {
+    // A DELETE record is its frame, the type and the key; a COMMIT its frame,
+    // the type, the time and the record count
+    private static final int DELETE_BYTES = OfflineJournal.FRAME_BYTES + 1 + Long.BYTES;
+    private static final int COMMIT_BYTES = OfflineJournal.FRAME_BYTES + 1 + Long.BYTES + Integer.BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoveryDropsATransactionWithATornCommit() throws Exception {
+        Path file = dir.resolve("torn.journal");
+        int end = writeTwoTransactions(file);
+        patch(file, end - 1, (byte) 0x5A); // Last byte of the second COMMIT
+
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(2, journal.getPendingRecords());
+            assertEquals(List.of(1L, 2L), replay(journal));
+            journal.append(deletes(7));
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(1L, 2L, 7L), replay(journal));
+        }
+    }
+
+    @Test
+    void recoveryDropsRecordsWithoutACommit() throws Exception {
+        Path file = dir.resolve("uncommitted.journal");
+        int end = writeTwoTransactions(file);
+        zero(file, end - COMMIT_BYTES, end); // The crash came before the second COMMIT
+
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(1L, 2L), replay(journal));
+        }
+    }
+
+    @Test
+    void recoveryStopsAtGarbageAfterTheLog() throws Exception {
+        Path file = dir.resolve("garbage.journal");
+        int end = writeTwoTransactions(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer garbage = ByteBuffer.allocate(64);
+            garbage.putInt(40).putInt(0xCAFEBABE);
+            while (garbage.hasRemaining()) {
+                garbage.put((byte) 0x7F);
+            }
+            garbage.flip();
+            channel.write(garbage, end);
+        }
+
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(1L, 2L, 3L), replay(journal));
+            journal.append(deletes(4));
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(1L, 2L, 3L, 4L), replay(journal));
+        }
+    }
+
+    @Test
+    void rejectsAFileThatIsNotAJournal() throws Exception {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+        assertThrows(IOException.class, () -> OfflineJournal.open(file));
+    }
+
+    @Test
+    void compactionKeepsTransactionsAppendedDuringTheReplay() throws Exception {
+        Path file = dir.resolve("compact.journal");
+        writeTwoTransactions(file);
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(1L, 2L, 3L), replay(journal));
+            journal.append(deletes(4, 5));
+            journal.compact();
+            assertEquals(2, journal.getPendingRecords());
+            assertEquals(List.of(4L, 5L), replay(journal));
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(4L, 5L), replay(journal));
+            journal.compact();
+            assertEquals(0, journal.getPendingRecords());
+        }
+        long size = Files.size(file);
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(), replay(journal));
+            journal.append(deletes(6));
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(6L), replay(journal));
+        }
+        assertEquals(size, Files.size(file), "compaction reuses the file in place");
+    }
+
+    @Test
+    void appendsDoNotWaitForTheVisitorOfAReplay() throws Exception {
+        Path file = dir.resolve("busy.journal");
+        writeTwoTransactions(file);
+        ExecutorService edt = Executors.newSingleThreadExecutor();
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            List<Long> keys = replay(journal, key -> {
+                if (key == 1) {
+                    // The replay is busy with the database; an offline submit must still go through
+                    edt.submit(() -> {
+                        journal.append(deletes(4));
+                        return null;
+                    }).get(5, TimeUnit.SECONDS);
+                }
+            });
+            assertEquals(List.of(1L, 2L, 3L), keys);
+            journal.compact();
+            assertEquals(List.of(4L), replay(journal));
+        } finally {
+            edt.shutdownNow();
+        }
+    }
+
+    @Test
+    void aCrashDuringCompactionReplaysNothingTwice() throws Exception {
+        Path file = dir.resolve("crash.journal");
+        int end = writeTwoTransactions(file);
+        // As left by a crash after the start offset moved past the replayed
+        // records and before they were zeroed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, end), OfflineJournal.START_OFFSET);
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(0, journal.getPendingRecords());
+            journal.append(deletes(8));
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(8L), replay(journal));
+        }
+    }
+
+    @Test
+    void readsAndUpgradesAVersion2Journal() throws Exception {
+        Path file = dir.resolve("v2.journal");
+        int end = writeTwoTransactions(file);
+        // Version 2 had no start offset: the log follows [magic][version]
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer v2 = ByteBuffer.allocate(end - 8);
+        v2.putInt(OfflineJournal.MAGIC).putInt(2)
+            .put(bytes, OfflineJournal.HEADER_BYTES, end - OfflineJournal.HEADER_BYTES);
+        Files.write(file, v2.array());
+
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(1L, 2L, 3L), replay(journal));
+            journal.compact();
+            journal.append(deletes(9));
+        }
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            assertEquals(List.of(9L), replay(journal));
+        }
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(OfflineJournal.VERSION, header.getInt(4));
+    }
+
+    // Deletes of keys 1, 2 then 3 in two transactions; returns the end of the log
+    private static int writeTwoTransactions(Path file) throws IOException {
+        try (OfflineJournal journal = OfflineJournal.open(file)) {
+            journal.append(deletes(1, 2));
+            journal.append(deletes(3));
+        }
+        return OfflineJournal.HEADER_BYTES + 3 * DELETE_BYTES + 2 * COMMIT_BYTES;
+    }
+
+    private static OfflineJournal.Transaction deletes(long... keys) {
+        OfflineJournal.Transaction transaction = new OfflineJournal.Transaction();
+        for (long key : keys) {
+            transaction.delete(key);
+        }
+        return transaction;
+    }
+
+    // Keys of the deletes, in log order
+    private static List<Long> replay(OfflineJournal journal) throws SQLException {
+        return replay(journal, key -> { });
+    }
+
+    private static List<Long> replay(OfflineJournal journal, DeleteHook hook) throws SQLException {
+        List<Long> keys = new ArrayList<>();
+        journal.replay(new OfflineJournal.Visitor() {
+            @Override
+            public void upsert(PayrollRegister values, int row) {
+                throw new AssertionError("no upserts written");
+            }
+
+            @Override
+            public void update(long key, PayrollRegister values, int row) {
+                throw new AssertionError("no updates written");
+            }
+
+            @Override
+            public void delete(long key) {
+                keys.add(key);
+                try {
+                    hook.deleted(key);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        return keys;
+    }
+
+    // Runs inside the visitor, as the database work of a replay does
+    private interface DeleteHook {
+        void deleted(long key) throws Exception;
+    }
+
+    private static void patch(Path file, int offset, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {value}), offset);
+        }
+    }
+
+    private static void zero(Path file, int from, int to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(to - from), from);
+        }
+    }
+}
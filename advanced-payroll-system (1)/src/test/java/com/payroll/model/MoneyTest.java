@@ -0,0 +1,108 @@
+package com.payroll.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+    @Test
+    void parsesPlainGroupedSignedAndCurrencyAmounts() {
+        assertEquals(123_400, Money.parse("1234"));
+        assertEquals(-123_450, Money.parse("-1234.5"));
+        assertEquals(123_456, Money.parse("1,234.56"));
+        assertEquals(123_456, Money.parse("+$1234.56"));
+        assertEquals(5, Money.parse("  .05 "));
+        assertEquals(100, Money.parse("1."));
+        assertEquals(0, Money.parse("-0"));
+    }
+
+    @Test
+    void roundsTheThirdDecimalHalfUp() {
+        assertEquals(123_457, Money.parse("$1234.565"));
+        assertEquals(123_456, Money.parse("1234.5649"));
+        assertEquals(-1, Money.parse("-0.005"));
+        assertEquals(100, Money.parse("0.995"));
+    }
+
+    @Test
+    void rejectsWhatIsNotAnAmount() {
+        for (String text : new String[] {"", " ", "-", "$", "1.2.3", "12a", "1 000", "1.000,5", "--1"}) {
+            assertThrows(NumberFormatException.class, () -> Money.parse(text), text);
+        }
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.08"));
+    }
+
+    @Test
+    void rejectsDigitsBeyondALongAsAnInvalidAmount() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("123456789012345678901"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-99999999999999999999.99"));
+    }
+
+    @Test
+    void rejectsAmountsADecimal10x2ColumnCannotHold() {
+        assertEquals(Money.MAX_AMOUNT_CENTS, Money.checkRange(Money.parse("99,999,999.99"), Money.MAX_AMOUNT_CENTS));
+        assertEquals(-Money.MAX_AMOUNT_CENTS, Money.checkRange(Money.parse("-99999999.99"), Money.MAX_AMOUNT_CENTS));
+        assertThrows(NumberFormatException.class,
+            () -> Money.checkRange(Money.parse("100000000.00"), Money.MAX_AMOUNT_CENTS));
+        assertThrows(NumberFormatException.class,
+            () -> Money.checkRange(Money.parse("-100,000,000"), Money.MAX_AMOUNT_CENTS));
+
+        // The register keeps the previous value of a cell given an amount out of range
+        PayrollRegister register = new PayrollRegister(1);
+        register.addRow();
+        register.setValue(0, PayrollColumns.INCENTIVE, "12.50");
+        for (Object value : new Object[] {"90,000,000,000,000,000", "123456789012345678901",
+                new BigDecimal("100000000"), 1_000_000_000}) {
+            assertThrows(IllegalArgumentException.class,
+                () -> register.setValue(0, PayrollColumns.INCENTIVE, value), value.toString());
+            assertEquals(1_250, register.getCents(0, PayrollColumns.INCENTIVE));
+        }
+        assertThrows(IllegalArgumentException.class, () -> register.setValue(0, PayrollColumns.OT_HOURS, "1000"));
+        register.setValue(0, PayrollColumns.OT_HOURS, "999.99");
+        assertEquals(99_999, register.getCents(0, PayrollColumns.OT_HOURS));
+    }
+
+    @Test
+    void formatsWithTwoDecimals() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.50", Money.format(-50));
+        assertEquals("-1234.50", Money.format(-123_450));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+        assertEquals("1,000,000.01", Money.appendTo(new StringBuilder(), 100_000_001, true).toString());
+        assertEquals("-1,005.00", Money.appendTo(new StringBuilder(), -100_500, true).toString());
+        assertEquals("999.99", Money.appendTo(new StringBuilder(), 99_999, true).toString());
+    }
+
+    @Test
+    void formatAndParseRoundTripAndMatchBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = random.nextLong() / (1L << random.nextInt(63));
+            String plain = Money.format(cents);
+            assertEquals(BigDecimal.valueOf(cents, 2).toPlainString(), plain);
+            assertEquals(cents, Money.parse(plain));
+            assertEquals(cents, Money.parse(Money.appendTo(new StringBuilder(), cents, true)));
+            assertEquals(cents, Money.fromBigDecimal(Money.toBigDecimal(cents)));
+        }
+    }
+
+    @Test
+    void divisionRoundsHalfAwayFromZero() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = random.nextInt() * (long) random.nextInt(1_000);
+            long divisor = random.nextInt(999) + 1;
+            long expected = BigDecimal.valueOf(cents).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+            assertEquals(expected, Money.divide(cents, divisor), cents + " / " + divisor);
+        }
+        assertEquals(50_000, Money.percentOf(500_000, 10));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+    }
+}
@@ -0,0 +1,168 @@
+package com.payroll.model;
+
+import com.payroll.calc.PayrollCalculator;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The journal is driven through the table model, as the app does
+class UndoJournalTest {
+    // An int column no formula reads
+    private static final int TRIPS = PayrollColumns.NUMBER_OF_BUSINESS_TRIPS;
+    // A cell edit is three longs: header, old value, new value
+    private static final int CELL_STEP_BYTES = 3 * Long.BYTES;
+    // The smallest journal the constructor allows: one deleted row
+    private static final int MIN_BYTES = (3 + PayrollColumns.COUNT) * Long.BYTES;
+
+    @Test
+    void keepsOnlyTheNewestSteps() {
+        PayrollTableModel model = model(1);
+        model.setUndoLimit(1 << 20, 3);
+        for (int i = 1; i <= 5; i++) {
+            model.setValueAt(i, 0, TRIPS);
+        }
+        for (int i = 4; i >= 2; i--) {
+            assertTrue(model.undo());
+            assertEquals(i, model.getValueAt(0, TRIPS));
+        }
+        assertFalse(model.canUndo());
+        while (model.redo()) {
+            // Back to the newest value
+        }
+        assertEquals(5, model.getValueAt(0, TRIPS));
+    }
+
+    @Test
+    void wrapsAroundTheRingAndDropsTheOldestStepsWhenFull() {
+        PayrollTableModel model = model(10);
+        model.setUndoLimit(MIN_BYTES, 1000);
+        int kept = MIN_BYTES / CELL_STEP_BYTES;
+        int edits = 3 * kept + 2;
+        for (int i = 0; i < edits; i++) {
+            model.setValueAt(1000 + i, i % 10, TRIPS);
+            assertTrue(model.getUndoJournal().getUsedBytes() <= MIN_BYTES);
+        }
+        int undone = 0;
+        while (model.undo()) {
+            undone++;
+        }
+        assertEquals(kept, undone);
+        // Every row is back to what it held before the oldest kept edit
+        for (int row = 0; row < 10; row++) {
+            int expected = row;
+            for (int i = row; i < edits - kept; i += 10) {
+                expected = 1000 + i;
+            }
+            assertEquals(expected, model.getValueAt(row, TRIPS), "row " + row);
+        }
+        int redone = 0;
+        while (model.redo()) {
+            redone++;
+        }
+        assertEquals(kept, redone);
+        for (int row = 0; row < 10; row++) {
+            int last = edits - 1 - ((edits - 1 - row) % 10);
+            assertEquals(1000 + last, model.getValueAt(row, TRIPS), "row " + row);
+        }
+    }
+
+    @Test
+    void aStepLargerThanTheJournalClearsTheHistory() {
+        PayrollTableModel model = model(20);
+        model.setUndoLimit(MIN_BYTES, 1000);
+        model.setValueAt(99, 0, TRIPS);
+        assertTrue(model.canUndo());
+
+        int[] rows = new int[20];
+        Object[][] values = new Object[20][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+            values[i] = new Object[] {500 + i};
+        }
+        assertEquals(0, model.setValues(rows, new int[] {TRIPS}, values));
+        assertFalse(model.canUndo());
+        assertEquals(0, model.getUndoJournal().getUsedBytes());
+        assertEquals(519, model.getValueAt(19, TRIPS), "the edit itself still applies");
+
+        model.setValueAt(7, 0, TRIPS);
+        assertTrue(model.undo());
+        assertEquals(500, model.getValueAt(0, TRIPS));
+    }
+
+    @Test
+    void anEditAndItsRecalculatedCellsAreOneStep() {
+        PayrollTableModel model = model(1);
+        model.setRecalculator(PayrollCalculator.GRAPH);
+        PayrollRegister register = model.getRegister();
+        PayrollCalculator.calculateRow(register, 0);
+        long net = register.getCents(0, PayrollColumns.NET_PAY);
+        long gross = register.getCents(0, PayrollColumns.GROSS_PAY);
+
+        model.setValueAt(new BigDecimal("9000.00"), 0, PayrollColumns.BASIC_SALARY);
+        assertEquals(90_000, register.getCents(0, PayrollColumns.BONUS_RATE));
+        assertTrue(register.getCents(0, PayrollColumns.NET_PAY) != net);
+
+        assertTrue(model.undo());
+        assertFalse(model.canUndo());
+        assertEquals(gross, register.getCents(0, PayrollColumns.GROSS_PAY));
+        assertEquals(net, register.getCents(0, PayrollColumns.NET_PAY));
+        assertTrue(model.redo());
+        assertEquals(900_000, register.getCents(0, PayrollColumns.BASIC_SALARY));
+        assertEquals(90_000, register.getCents(0, PayrollColumns.BONUS_RATE));
+    }
+
+    @Test
+    void undoingADeleteRestoresTheStoredRow() {
+        PayrollTableModel model = model(3);
+        long key = ChangeTracker.keyOf(model.getRegister(), 1);
+        model.removeRow(1);
+        assertEquals(1, model.getChangeTracker().getDeletedCount());
+
+        assertTrue(model.undo());
+        assertEquals(3, model.getRowCount());
+        assertEquals(key, model.getChangeTracker().getKey(1));
+        assertEquals(0, model.getChangeTracker().getDeletedCount());
+        assertFalse(model.getChangeTracker().hasChanges());
+    }
+
+    @Test
+    void storingTheSameValueIsNotAnEdit() {
+        PayrollTableModel model = model(1);
+        model.setValueAt(model.getValueAt(0, TRIPS), 0, TRIPS);
+        assertFalse(model.canUndo());
+        assertFalse(model.getChangeTracker().hasChanges());
+    }
+
+    @Test
+    void aNumberThatIsNotAnIntKeepsThePreviousValue() {
+        PayrollTableModel model = model(2);
+        for (Object value : new Object[] {"3000000000", 3_000_000_000L, -1e10, "2.5", new BigDecimal("1.01")}) {
+            model.setValueAt(value, 1, TRIPS);
+            assertEquals(1, model.getValueAt(1, TRIPS), value.toString());
+        }
+        model.setValueAt("7.00", 1, TRIPS);
+        assertEquals(7, model.getValueAt(1, TRIPS));
+        assertTrue(model.undo());
+        assertFalse(model.canUndo(), "only the valid edit was recorded");
+    }
+
+    // Stored rows with as many business trips as their index
+    private static PayrollTableModel model(int rows) {
+        PayrollRegister register = new PayrollRegister(rows);
+        for (int i = 0; i < rows; i++) {
+            Object[] row = new Object[PayrollColumns.COUNT];
+            row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf("2024-01-15");
+            row[PayrollColumns.ID] = i + 1;
+            row[PayrollColumns.EMPLOYEE_NAME] = "Employee " + i;
+            row[PayrollColumns.BASIC_SALARY] = new BigDecimal("5000.00");
+            row[TRIPS] = i;
+            register.addRow(row);
+        }
+        return new PayrollTableModel(new String[PayrollColumns.COUNT], register);
+    }
+}
@@ -0,0 +1,113 @@
+package com.payroll.stats;
+
+import com.payroll.calc.PayrollCalculator;
+import com.payroll.model.Money;
+import com.payroll.model.PayrollColumns;
+import com.payroll.model.PayrollRegister;
+import com.payroll.model.PayrollTableModel;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The running totals against sums recomputed from the register after every
+// kind of model event: cell edits with recalculation, block pastes, inserts,
+// deletes, undo/redo and a reload
+class RegisterAggregatesTest {
+    private static final String[] STATUSES = {"Active", "Pending", "On Hold"};
+    private static final int[] INPUTS = {
+        PayrollColumns.BASIC_SALARY, PayrollColumns.INCENTIVE, PayrollColumns.ADVANCES,
+        PayrollColumns.SOCIAL_INSURANCE, PayrollColumns.NET_PAY
+    };
+
+    @Test
+    void matchesBruteForceSumsThroughRandomEdits() {
+        Random random = new Random(11);
+        PayrollTableModel model = new PayrollTableModel(new String[PayrollColumns.COUNT]);
+        model.setRecalculator(PayrollCalculator.GRAPH);
+        RegisterAggregates aggregates = new RegisterAggregates(model.getRegister());
+        model.addTableModelListener(aggregates);
+        for (int i = 0; i < 50; i++) {
+            model.addRow(row(random, i));
+        }
+
+        for (int step = 0; step < 5_000; step++) {
+            int rows = model.getRowCount();
+            int action = random.nextInt(10);
+            if (action < 5 && rows > 0) {
+                int column = random.nextInt(4) == 0 ? PayrollColumns.STATUS : INPUTS[random.nextInt(INPUTS.length)];
+                Object value = column == PayrollColumns.STATUS ? STATUSES[random.nextInt(STATUSES.length)]
+                    : amount(random);
+                model.setValueAt(value, random.nextInt(rows), column);
+            } else if (action == 5 && rows > 3) {
+                int first = random.nextInt(rows - 3);
+                model.setValues(new int[] {first, first + 2, first + 1},
+                    new int[] {PayrollColumns.BASIC_SALARY, PayrollColumns.STATUS},
+                    new Object[][] {{amount(random), "Pending"}, {amount(random)}, {amount(random), "Active"}});
+            } else if (action == 6) {
+                model.addRow(row(random, step));
+            } else if (action == 7 && rows > 0) {
+                model.removeRow(random.nextInt(rows));
+            } else if (action == 8) {
+                model.undo();
+            } else {
+                model.redo();
+            }
+            assertMatchesRegister(aggregates, model.getRegister(), step);
+        }
+
+        model.fireTableDataChanged();
+        assertMatchesRegister(aggregates, model.getRegister(), -1);
+    }
+
+    private static void assertMatchesRegister(RegisterAggregates aggregates, PayrollRegister register, int step) {
+        long basic = 0;
+        long gross = 0;
+        long deductions = 0;
+        long net = 0;
+        Map<String, Integer> statuses = new HashMap<>();
+        for (int row = 0; row < register.getRowCount(); row++) {
+            basic += register.getCents(row, PayrollColumns.BASIC_SALARY);
+            gross += register.getCents(row, PayrollColumns.GROSS_PAY);
+            deductions += register.getCents(row, PayrollColumns.TOTAL_DEDUCTIONS);
+            net += register.getCents(row, PayrollColumns.NET_PAY);
+            String status = register.getText(row, PayrollColumns.STATUS);
+            if (status != null) {
+                statuses.merge(status, 1, Integer::sum);
+            }
+        }
+        String at = "after step " + step;
+        assertEquals(register.getRowCount(), aggregates.getRowCount(), at);
+        assertEquals(basic, aggregates.getBasicSalaryTotal(), at);
+        assertEquals(gross, aggregates.getGrossPayTotal(), at);
+        assertEquals(deductions, aggregates.getTotalDeductionsTotal(), at);
+        assertEquals(net, aggregates.getNetPayTotal(), at);
+        assertEquals(statuses, new HashMap<>(aggregates.getStatusCounts()), at);
+        for (String status : STATUSES) {
+            assertEquals(statuses.getOrDefault(status, 0), aggregates.getStatusCount(status), at);
+        }
+        long average = register.getRowCount() == 0 ? 0 : Money.divide(basic, register.getRowCount());
+        assertEquals(average, aggregates.getAverageBasicSalary(), at);
+    }
+
+    private static Object[] row(Random random, int id) {
+        Object[] row = new Object[PayrollColumns.COUNT];
+        row[PayrollColumns.PAYMENT_DATE] = java.sql.Date.valueOf("2024-01-15");
+        row[PayrollColumns.ID] = id;
+        row[PayrollColumns.EMPLOYEE_NAME] = "Employee " + id;
+        for (int col : INPUTS) {
+            row[col] = amount(random);
+        }
+        row[PayrollColumns.STATUS] = random.nextInt(5) == 0 ? null : STATUSES[random.nextInt(STATUSES.length)];
+        return row;
+    }
+
+    private static BigDecimal amount(Random random) {
+        return BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+    }
+}
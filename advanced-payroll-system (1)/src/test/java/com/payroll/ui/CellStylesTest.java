@@ -0,0 +1,68 @@
+package com.payroll.ui;
+
+import com.payroll.model.ChangeTracker;
+import com.payroll.model.PayrollColumns;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CellStylesTest {
+    @Test
+    void clearingTheLastStyleOfARowRemovesIt() {
+        CellStyles styles = new CellStyles();
+        long key = ChangeTracker.keyOf(7, 19_000);
+        styles.set(key, PayrollColumns.NET_PAY, CellStyles.BOLD | CellStyles.HIGHLIGHT, true);
+        styles.set(key, PayrollColumns.ID, CellStyles.BOLD, true);
+        assertEquals(CellStyles.BOLD | CellStyles.HIGHLIGHT, styles.get(key, PayrollColumns.NET_PAY));
+        assertEquals(1, styles.getStyledRowCount());
+
+        styles.set(key, PayrollColumns.NET_PAY, CellStyles.BOLD, false);
+        assertEquals(CellStyles.HIGHLIGHT, styles.get(key, PayrollColumns.NET_PAY));
+        styles.set(key, PayrollColumns.NET_PAY, CellStyles.HIGHLIGHT, false);
+        styles.set(key, PayrollColumns.ID, CellStyles.BOLD, false);
+        assertEquals(0, styles.get(key, PayrollColumns.ID));
+        assertEquals(0, styles.getStyledRowCount());
+    }
+
+    @Test
+    void removalsKeepEveryOtherRowReachable() {
+        // Keys one id apart on the same date land in neighbouring slots, so
+        // removals have to shift the probe chains back
+        Random random = new Random(3);
+        CellStyles styles = new CellStyles();
+        Map<Long, long[]> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = ChangeTracker.keyOf(random.nextInt(2_000), 19_000 + random.nextInt(3));
+            int column = random.nextInt(PayrollColumns.COUNT);
+            int style = 1 + random.nextInt(3);
+            // Mostly setting, then mostly clearing until few rows are left
+            boolean on = random.nextInt(4) < (i < 150_000 ? 3 : 1);
+            styles.set(key, column, style, on);
+
+            long[] cells = expected.computeIfAbsent(key, k -> new long[PayrollColumns.COUNT]);
+            cells[column] = on ? cells[column] | style : cells[column] & ~style;
+            if (i % 997 == 0) {
+                assertMatches(expected, styles);
+            }
+        }
+        assertMatches(expected, styles);
+    }
+
+    private static void assertMatches(Map<Long, long[]> expected, CellStyles styles) {
+        int styledRows = 0;
+        for (Map.Entry<Long, long[]> row : expected.entrySet()) {
+            boolean styled = false;
+            for (int col = 0; col < PayrollColumns.COUNT; col++) {
+                assertEquals(row.getValue()[col], styles.get(row.getKey(), col));
+                styled |= row.getValue()[col] != 0;
+            }
+            styledRows += styled ? 1 : 0;
+        }
+        assertEquals(styledRows, styles.getStyledRowCount());
+    }
+}
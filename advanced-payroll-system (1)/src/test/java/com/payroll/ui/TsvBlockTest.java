@@ -0,0 +1,50 @@
+package com.payroll.ui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TsvBlockTest {
+    @Test
+    void splitsCellsOnTabsAndRowsOnLineBreaks() {
+        assertArrayEquals(new String[][] {{"a", "b"}, {"c", "d"}}, TsvBlock.parse("a\tb\nc\td\n"));
+        assertArrayEquals(new String[][] {{"a", "b"}, {"c", "d"}}, TsvBlock.parse("a\tb\r\nc\td\r\n"));
+        assertArrayEquals(new String[][] {{"a"}, {"b"}}, TsvBlock.parse("a\rb"));
+        assertArrayEquals(new String[][] {{"1", "", "3"}}, TsvBlock.parse("1\t\t3"));
+        assertArrayEquals(new String[][] {{"x", ""}, {"y"}}, TsvBlock.parse("x\t\ny"));
+    }
+
+    @Test
+    void dropsOnlyTheFinalLineBreak() {
+        assertArrayEquals(new String[][] {{"a"}, {""}}, TsvBlock.parse("a\n\n"));
+        assertArrayEquals(new String[][] {{""}}, TsvBlock.parse("\n"));
+        assertArrayEquals(new String[0][], TsvBlock.parse(""));
+    }
+
+    @Test
+    void readsQuotedCellsWithTabsLineBreaksAndQuotes() {
+        assertArrayEquals(new String[][] {{"a\tb", "c\nd", "say \"hi\""}, {"e"}},
+            TsvBlock.parse("\"a\tb\"\t\"c\nd\"\t\"say \"\"hi\"\"\"\ne\n"));
+        // A quote inside a cell is only a character; an unterminated one runs to the end
+        assertArrayEquals(new String[][] {{"5\" pipe", "x"}}, TsvBlock.parse("5\" pipe\tx"));
+        assertArrayEquals(new String[][] {{"open\tend"}}, TsvBlock.parse("\"open\tend"));
+    }
+
+    @Test
+    void formatRoundTrips() {
+        String[][] cells = {
+            {"1,234.50", "", "Employee 1"},
+            {"tab\there", "line\nbreak", "\"quoted\""},
+            {"crlf\r\n", "trailing\"", " "}
+        };
+        String text = TsvBlock.format(cells);
+        assertEquals("1,234.50\t\tEmployee 1\n", text.substring(0, text.indexOf('\n') + 1));
+        assertArrayEquals(cells, TsvBlock.parse(text));
+    }
+
+    @Test
+    void formatWritesNullAsAnEmptyCell() {
+        assertEquals("a\t\tb\n", TsvBlock.format(new String[][] {{"a", null, "b"}}));
+    }
+}